@@ -0,0 +1,46 @@
+package study.querydsl.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * --name=value 형식의 실행 인자
+ */
+class LoadTestOptions {
+
+    final int members;
+    final int teams;
+    final double requestsPerSecond;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final long seed;
+    final String output;
+
+    private LoadTestOptions(Map<String, String> values) {
+        this.members = Integer.parseInt(values.getOrDefault("members", "100000"));
+        this.teams = Integer.parseInt(values.getOrDefault("teams", "100"));
+        this.requestsPerSecond = Double.parseDouble(values.getOrDefault("rps", "100"));
+        this.warmupSeconds = Integer.parseInt(values.getOrDefault("warmup", "10"));
+        this.durationSeconds = Integer.parseInt(values.getOrDefault("duration", "30"));
+        this.seed = Long.parseLong(values.getOrDefault("seed", "42"));
+        this.output = values.getOrDefault("output", "build/loadtest/result.tsv");
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --name=value but was " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    @Override
+    public String toString() {
+        return "members=" + members + " teams=" + teams + " rps=" + requestsPerSecond
+            + " warmup=" + warmupSeconds + "s duration=" + durationSeconds + "s seed=" + seed;
+    }
+}
@@ -0,0 +1,215 @@
+package study.querydsl.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.loadtest.WorkloadMix.Request;
+
+/**
+ * MemberController 부하 테스트
+ *
+ * 인메모리 H2로 애플리케이션을 띄우고 데이터를 생성한 뒤, 열린 모델(open model)로 요청을 보낸다.
+ * 요청은 응답을 기다리지 않고 포아송 분포의 도착 간격으로 보내며, 지연 시간은 예정된 발송 시각부터 잰다.
+ * (서버가 느려져도 보내는 쪽이 같이 느려지지 않으므로 coordinated omission이 없다.)
+ *
+ * 실행: ./gradlew loadTest -PloadTestArgs="--members=100000 --rps=200 --duration=30"
+ * 결과는 탭으로 구분한 고정 형식이라 커밋 간에 diff로 비교할 수 있다.
+ */
+public class MemberLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        // properties()는 기본값이라 application.yml에 덮이므로 커맨드라인 인자로 넘긴다.
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+            .run(
+                "--spring.profiles.active=loadtest",
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn",
+                "--decorator.datasource.p6spy.enable-logging=false");
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            generateDataset(context.getBean(JdbcTemplate.class), options);
+
+            Statistics statistics = context.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class).getStatistics();
+            LoadGenerator generator = new LoadGenerator("http://localhost:" + port, options);
+
+            generator.run(options.warmupSeconds);
+            statistics.clear();
+            Run run = generator.run(options.durationSeconds);
+            long statements = statistics.getPrepareStatementCount();
+
+            String report = report(options, run, statements);
+            System.out.print(report);
+            Path output = Paths.get(options.output);
+            if (output.getParent() != null) {
+                Files.createDirectories(output.getParent());
+            }
+            Files.write(output, report.getBytes());
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void generateDataset(JdbcTemplate jdbcTemplate, LoadTestOptions options) {
+        List<Object[]> teams = new ArrayList<>();
+        for (int i = 0; i < options.teams; i++) {
+            teams.add(new Object[]{(long) i + 1, "team" + i});
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", teams);
+
+        Random random = new Random(options.seed);
+        List<Object[]> members = new ArrayList<>();
+        for (int i = 0; i < options.members; i++) {
+            members.add(new Object[]{(long) options.teams + i + 1, "member" + i, random.nextInt(100),
+                (long) random.nextInt(options.teams) + 1});
+            if (members.size() == 10_000) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", members);
+                members.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", members);
+        jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + (options.teams + options.members + 1));
+    }
+
+    private static String report(LoadTestOptions options, Run run, long statements) {
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+        out.println("# " + options);
+        out.println("endpoint\trequests\terrors\tthroughput_rps\tp50_ms\tp95_ms\tp99_ms\tmax_ms\tsql_per_request");
+
+        List<Long> all = new ArrayList<>();
+        long allErrors = 0;
+        for (Map.Entry<String, List<Long>> entry : run.latencies.entrySet()) {
+            List<Long> values = entry.getValue();
+            long errors = values.stream().filter(value -> value < 0).count();
+            allErrors += errors;
+            all.addAll(values);
+            out.println(line(entry.getKey(), values, errors, run.elapsedNanos, "-"));
+        }
+        long requests = all.size();
+        String sqlPerRequest = requests == 0 ? "-" : String.format("%.2f", (double) statements / requests);
+        out.println(line("total", all, allErrors, run.elapsedNanos, sqlPerRequest));
+        out.flush();
+        return buffer.toString();
+    }
+
+    /**
+     * 실패한 요청은 음수로 기록되어 있다. 처리량과 백분위는 성공한 요청만으로 계산한다.
+     * 처리량은 첫 요청을 보낸 때부터 마지막 응답을 받을 때까지 실제로 걸린 시간으로 나눈다.
+     */
+    private static String line(String name, List<Long> values, long errors, long elapsedNanos, String sqlPerRequest) {
+        List<Long> succeeded = new ArrayList<>();
+        for (Long value : values) {
+            if (value >= 0) {
+                succeeded.add(value);
+            }
+        }
+        Collections.sort(succeeded);
+        return String.format("%s\t%d\t%d\t%.1f\t%.2f\t%.2f\t%.2f\t%.2f\t%s",
+            name, values.size(), errors, succeeded.size() / (elapsedNanos / 1e9),
+            percentile(succeeded, 0.50), percentile(succeeded, 0.95), percentile(succeeded, 0.99),
+            percentile(succeeded, 1.0), sqlPerRequest);
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    private static class LoadGenerator {
+
+        private final String baseUrl;
+        private final LoadTestOptions options;
+        private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        private final Random arrivals;
+        private final WorkloadMix workload;
+
+        LoadGenerator(String baseUrl, LoadTestOptions options) {
+            this.baseUrl = baseUrl;
+            this.options = options;
+            this.arrivals = new Random(options.seed);
+            this.workload = new WorkloadMix(options.seed, options.members, options.teams);
+        }
+
+        Run run(int seconds) throws InterruptedException {
+            Map<String, List<Long>> latencies = new TreeMap<>();
+            List<CompletableFuture<?>> inFlight = new ArrayList<>();
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(seconds);
+            double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / options.requestsPerSecond;
+
+            long scheduled = start;
+            while (scheduled < end) {
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                Request request = workload.next();
+                List<Long> values = latencies.computeIfAbsent(request.endpoint,
+                    key -> Collections.synchronizedList(new ArrayList<>()));
+                long intended = scheduled;
+                inFlight.add(httpClient.sendAsync(HttpRequest.newBuilder(URI.create(baseUrl + request.path))
+                        .timeout(Duration.ofSeconds(30))
+                        .build(), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        long elapsed = System.nanoTime() - intended;
+                        values.add(error == null && response.statusCode() == 200 ? elapsed : -1L);
+                        return null;
+                    }));
+                scheduled += (long) (-Math.log(1 - arrivals.nextDouble()) * meanIntervalNanos);
+            }
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+            return new Run(latencies, System.nanoTime() - start);
+        }
+    }
+
+    private static class Run {
+
+        private final Map<String, List<Long>> latencies;
+        private final long elapsedNanos;
+
+        Run(Map<String, List<Long>> latencies, long elapsedNanos) {
+            this.latencies = latencies;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+
+    private MemberLoadTest() {
+    }
+}
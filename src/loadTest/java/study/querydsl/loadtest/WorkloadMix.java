@@ -0,0 +1,69 @@
+package study.querydsl.loadtest;
+
+import java.util.Random;
+
+/**
+ * 요청 분포
+ * - 엔드포인트: v1 20%, v2 40%, v3 40%
+ * - 조건: 팀 이름 50%(앞쪽 팀에 몰리도록 skew), 나이 범위 25%, 회원 이름 15%, 조건 없음 10% (v1은 전체 조회를 피하기 위해 항상 팀 이름)
+ * - 페이지 깊이: 0페이지 60%, 1~9 30%, 10~99 10%
+ */
+class WorkloadMix {
+
+    private final Random random;
+    private final int members;
+    private final int teams;
+
+    WorkloadMix(long seed, int members, int teams) {
+        this.random = new Random(seed);
+        this.members = members;
+        this.teams = teams;
+    }
+
+    synchronized Request next() {
+        int endpoint = random.nextInt(10);
+        if (endpoint < 2) {
+            return new Request("v1", "/v1/members?" + teamName());
+        }
+        String version = endpoint < 6 ? "v2" : "v3";
+        return new Request(version, "/" + version + "/members?" + condition() + "&" + page());
+    }
+
+    private String condition() {
+        int type = random.nextInt(100);
+        if (type < 50) {
+            return teamName();
+        }
+        if (type < 75) {
+            int ageGoe = random.nextInt(90);
+            return "ageGoe=" + ageGoe + "&ageLoe=" + (ageGoe + 1 + random.nextInt(10));
+        }
+        if (type < 90) {
+            return "username=member" + random.nextInt(members);
+        }
+        return "";
+    }
+
+    private String teamName() {
+        // 제곱 분포로 번호가 작은 팀에 요청이 몰리게 한다.
+        double skewed = Math.pow(random.nextDouble(), 2);
+        return "teamName=team" + (int) (skewed * teams);
+    }
+
+    private String page() {
+        int depth = random.nextInt(100);
+        int page = depth < 60 ? 0 : depth < 90 ? 1 + random.nextInt(9) : 10 + random.nextInt(90);
+        return "page=" + page + "&size=20";
+    }
+
+    static class Request {
+
+        final String endpoint;
+        final String path;
+
+        Request(String endpoint, String path) {
+            this.endpoint = endpoint;
+            this.path = path;
+        }
+    }
+}
@@ -2,12 +2,18 @@ package study.querydsl;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class QuerydslApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(QuerydslApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(QuerydslApplication.class, args);
+
+        // AppCDS 클래스 목록을 만들 때는 기동이 끝나면 바로 종료한다. (./gradlew appCdsArchive)
+        if (Boolean.getBoolean("querydsl.cds.training")) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 
 }
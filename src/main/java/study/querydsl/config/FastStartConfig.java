@@ -0,0 +1,24 @@
+package study.querydsl.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import study.querydsl.controller.InitMember;
+import study.querydsl.jdbc.AdaptivePoolSizer;
+import study.querydsl.warmup.SearchWarmup;
+
+/**
+ * fast 프로파일은 lazy-initialization을 켠다.
+ * 스스로 동작해야 하는 빈(스케줄러, 초기 데이터, 워밍업)은 누가 주입받지 않으면 생성되지 않으므로 제외한다.
+ */
+@Profile("fast")
+@Configuration
+public class FastStartConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(InitMember.class, AdaptivePoolSizer.class,
+            SearchWarmup.class);
+    }
+}
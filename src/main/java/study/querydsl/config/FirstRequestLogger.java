@@ -0,0 +1,32 @@
+package study.querydsl.config;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * 첫 요청의 응답이 끝난 시점의 JVM 가동 시간(time-to-first-request)을 로그로 남긴다.
+ */
+@Slf4j
+@Component
+public class FirstRequestLogger extends OncePerRequestFilter {
+
+    private final AtomicBoolean logged = new AtomicBoolean();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+        FilterChain filterChain) throws ServletException, IOException {
+        filterChain.doFilter(request, response);
+        if (!logged.get() && logged.compareAndSet(false, true)) {
+            log.info("time-to-first-request: {}ms ({} {})", ManagementFactory.getRuntimeMXBean().getUptime(),
+                request.getMethod(), request.getRequestURI());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * JSON 외에 바이너리 포맷(Smile, CBOR)으로 응답할 수 있도록 컨버터를 등록한다.
+ * HttpMessageConverter 빈은 스프링 부트가 기본 컨버터 목록에 추가하므로 Accept 헤더로 협상된다.
+ * - application/x-jackson-smile
+ * - application/cbor
+ */
+@Configuration
+public class MessageConverterConfig {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder
+            .factory(new SmileFactory())
+            .build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder
+            .factory(new CBORFactory())
+            .build());
+    }
+}
@@ -1,15 +1,21 @@
 package study.querydsl.controller;
 
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
+@Slf4j
 @Profile("local")
 @Component
 @RequiredArgsConstructor
@@ -17,11 +23,34 @@ public class InitMember {
 
     private final InitMemberService initMemberService;
 
+    /**
+     * true면 기동이 끝난 뒤 백그라운드에서 데이터를 넣는다. (fast 프로파일)
+     */
+    @Value("${querydsl.init.async:false}")
+    private boolean async;
+
     @PostConstruct
     public void init() {
-        initMemberService.init();
+        if (!async) {
+            initMemberService.init();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initAfterStartup() {
+        if (async) {
+            CompletableFuture.runAsync(initMemberService::init)
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        log.error("Background member init failed", e);
+                    }
+                });
+        }
     }
 
+    /**
+     * 이미 회원이 있으면(파일 DB 재기동 등) 넣지 않는다.
+     */
     @Component
     static class InitMemberService {
         @PersistenceContext
@@ -29,6 +58,10 @@ public class InitMember {
 
         @Transactional
         public void init() {
+            if (!em.createQuery("select m.id from Member m").setMaxResults(1).getResultList().isEmpty()) {
+                log.info("Members already exist, skipping init");
+                return;
+            }
             Team teamA = new Team("teamA");
             Team teamB = new Team("teamB");
             em.persist(teamA);
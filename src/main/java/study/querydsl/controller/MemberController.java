@@ -1,15 +1,41 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.persistence.EntityNotFoundException;
+import javax.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberCreateRequest;
+import study.querydsl.dto.MemberCreateResponse;
+import study.querydsl.dto.MemberLookupRequest;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberField;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberKeyRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberWriteBehind;
+import study.querydsl.version.DataVersions;
 
 @RestController
 @RequiredArgsConstructor
@@ -17,14 +43,44 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberExportWriter memberExportWriter;
+    private final DataVersions dataVersions;
+    private final MemberWriteBehind memberWriteBehind;
+    private final MemberKeyRepository memberKeyRepository;
 
+    /**
+     * 조회 한 번에 받을 수 있는 키 수 (/v1/members/lookup)
+     */
+    @Value("${querydsl.key-search.max-keys:50000}")
+    private int maxLookupKeys;
+
+    /**
+     * 조회 조건이 참조하는 데이터의 버전으로 ETag를 만들고, 변경이 없으면 쿼리 없이 304를 응답한다.
+     * fields(예: fields=username,teamName)를 주면 그 필드만 조회해서 응답한다. (MemberField)
+     */
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
+    public List<?> searchMemberV1(MemberSearchCondition condition,
+        @RequestParam(required = false) String fields, WebRequest webRequest) {
+        List<MemberField> memberFields = parseFields(fields);
+        if (webRequest.checkNotModified(dataVersions.etag(condition, memberFields))) {
+            return null;
+        }
+        if (memberFields != null) {
+            return memberJpaRepository.search(condition, memberFields);
+        }
         return memberJpaRepository.search(condition);
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+    public Page<?> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+        @RequestParam(required = false) String fields, WebRequest webRequest) {
+        List<MemberField> memberFields = parseFields(fields);
+        if (webRequest.checkNotModified(dataVersions.etag(condition, pageable, memberFields))) {
+            return null;
+        }
+        if (memberFields != null) {
+            return memberRepository.searchPageFields(condition, memberFields, pageable);
+        }
         return memberRepository.searchPageSimple(condition, pageable);
     }
 
@@ -35,7 +91,99 @@ public class MemberController {
      * @return
      */
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+    public Page<?> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+        @RequestParam(required = false) String fields, WebRequest webRequest) {
+        List<MemberField> memberFields = parseFields(fields);
+        if (webRequest.checkNotModified(dataVersions.etag(condition, pageable, memberFields))) {
+            return null;
+        }
+        if (memberFields != null) {
+            return memberRepository.searchPageFields(condition, memberFields, pageable);
+        }
         return memberRepository.searchPageComplex(condition, pageable);
     }
+
+    /**
+     * 조회 결과를 모아두지 않고 스트리밍으로 내려준다.
+     * Accept 헤더로 JSON, Smile(application/x-jackson-smile), CBOR(application/cbor) 중 하나를 선택한다.
+     */
+    @GetMapping("/v1/members/export")
+    public void exportMembers(MemberSearchCondition condition,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+        HttpServletResponse response, WebRequest webRequest) throws IOException {
+        if (webRequest.checkNotModified(dataVersions.etag(condition, accept))) {
+            return;
+        }
+        MediaType mediaType = memberExportWriter.negotiate(accept);
+        response.setContentType(mediaType.toString());
+
+        try (JsonGenerator generator = memberExportWriter.createGenerator(mediaType, response.getOutputStream())) {
+            generator.writeStartArray();
+            memberJpaRepository.searchStream(condition, dto -> memberExportWriter.write(generator, dto));
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * id 목록(ids) 또는 이름 목록(usernames) 하나로 조회한다. 결과는 요청한 순서대로 (MemberKeyRepository)
+     * 키가 max-keys 개를 넘으면 400, IN 배치 fan-out 이 가득 차 있으면 503 + Retry-After.
+     */
+    @PostMapping("/v1/members/lookup")
+    public ResponseEntity<List<MemberTeamDto>> lookupMembers(@RequestBody MemberLookupRequest request) {
+        if ((request.getIds() == null) == (request.getUsernames() == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Exactly one of ids or usernames is required");
+        }
+        int keys = request.getIds() != null ? request.getIds().size() : request.getUsernames().size();
+        if (keys > maxLookupKeys) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "At most " + maxLookupKeys + " keys are allowed, got " + keys);
+        }
+        try {
+            return ResponseEntity.ok(request.getIds() != null
+                ? memberKeyRepository.searchByIds(request.getIds())
+                : memberKeyRepository.searchByUsernames(request.getUsernames()));
+        } catch (TransientDataAccessResourceException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+        }
+    }
+
+    private static List<MemberField> parseFields(String fields) {
+        try {
+            return MemberField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * 동시에 들어온 가입 요청을 모아 한 트랜잭션으로 저장하고(MemberWriteBehind), 커밋되면 201 + id 로 응답한다.
+     * 쓰기 큐가 가득 차면 503 + Retry-After, 없는 팀이면 400.
+     */
+    @PostMapping("/v1/members")
+    public CompletableFuture<ResponseEntity<MemberCreateResponse>> createMember(
+        @RequestBody MemberCreateRequest request) {
+        if (!StringUtils.hasText(request.getUsername())) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        CompletableFuture<Long> id;
+        try {
+            id = memberWriteBehind.create(request);
+        } catch (TransientDataAccessResourceException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build());
+        }
+        return id.handle((memberId, ex) -> {
+            if (ex == null) {
+                return ResponseEntity.status(HttpStatus.CREATED).body(new MemberCreateResponse(memberId));
+            }
+            Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+            if (cause instanceof EntityNotFoundException) {
+                return ResponseEntity.badRequest().build();
+            }
+            throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+        });
+    }
 }
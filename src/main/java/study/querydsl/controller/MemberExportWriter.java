@@ -0,0 +1,83 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 조회 결과를 한 건씩 바로 출력 스트림에 쓴다.
+ * ObjectMapper(리플렉션)를 거치지 않고 JsonGenerator로 필드를 직접 쓰기 때문에 행마다 생기는 할당이 적다.
+ */
+@Component
+public class MemberExportWriter {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final SmileFactory smileFactory = new SmileFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+
+    /**
+     * Accept 헤더에서 지원하는 포맷을 고른다. 없으면 JSON
+     */
+    public MediaType negotiate(String accept) {
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.isCompatibleWith(APPLICATION_SMILE) && !mediaType.isWildcardSubtype()) {
+                return APPLICATION_SMILE;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR) && !mediaType.isWildcardSubtype()) {
+                return MediaType.APPLICATION_CBOR;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    public JsonGenerator createGenerator(MediaType mediaType, OutputStream out) throws IOException {
+        if (APPLICATION_SMILE.equals(mediaType)) {
+            return smileFactory.createGenerator(out);
+        }
+        if (MediaType.APPLICATION_CBOR.equals(mediaType)) {
+            return cborFactory.createGenerator(out);
+        }
+        return jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+    }
+
+    public void write(JsonGenerator generator, MemberTeamDto dto) {
+        try {
+            generator.writeStartObject();
+            writeLong(generator, "memberId", dto.getMemberId());
+            generator.writeStringField("username", dto.getUsername());
+            generator.writeNumberField("age", dto.getAge());
+            writeLong(generator, "teamId", dto.getTeamId());
+            generator.writeStringField("teamName", dto.getTeamName());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeLong(JsonGenerator generator, String name, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value);
+        }
+    }
+}
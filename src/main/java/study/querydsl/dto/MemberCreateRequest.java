@@ -0,0 +1,19 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberCreateRequest {
+
+    private String username;
+    private int age;
+    private Long teamId;
+}
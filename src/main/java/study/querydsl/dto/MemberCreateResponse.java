@@ -0,0 +1,15 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberCreateResponse {
+
+    private Long id;
+}
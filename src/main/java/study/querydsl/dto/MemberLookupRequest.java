@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * id 목록이나 이름 목록 중 하나로 회원을 조회한다. 목록이 길 수 있으므로 toString 은 만들지 않는다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberLookupRequest {
+
+    private List<Long> ids;
+    private List<String> usernames;
+}
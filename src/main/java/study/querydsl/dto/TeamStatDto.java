@@ -0,0 +1,19 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class TeamStatDto {
+
+    private String teamName;
+    private long memberCount;
+    private Double ageAvg;
+
+    @QueryProjection
+    public TeamStatDto(String teamName, long memberCount, Double ageAvg) {
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageAvg = ageAvg;
+    }
+}
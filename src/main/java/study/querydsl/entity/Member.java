@@ -1,20 +1,32 @@
 package study.querydsl.entity;
 
 import static javax.persistence.FetchType.LAZY;
+import static lombok.AccessLevel.NONE;
 import static lombok.AccessLevel.PROTECTED;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import study.querydsl.outbox.ChangeEventListener;
+import study.querydsl.repository.MemberUsernameListener;
+import study.querydsl.version.MemberVersionListener;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_member_username_lower", columnList = "username_lower"),
+    @Index(name = "idx_member_age_bucket", columnList = "age_bucket")
+})
+@EntityListeners({MemberVersionListener.class, ChangeEventListener.class, MemberUsernameListener.class})
 @Getter
 @Setter
 @NoArgsConstructor(access = PROTECTED)
@@ -28,6 +40,23 @@ public class Member {
     private String username;
     private int age;
 
+    /**
+     * DB가 계산해서 저장하는 컬럼. JPA는 쓰지 않고 조회 조건/프로젝션에만 쓴다.
+     * 식을 바꾸면 MemberComputedColumns, schema.sql 도 같이 맞춘다.
+     */
+    @Getter(NONE)
+    @Setter(NONE)
+    @Column(name = "username_lower", insertable = false, updatable = false,
+        columnDefinition = "varchar(255) as lower(username)")
+    private String usernameLower;
+
+    @Getter(NONE)
+    @Setter(NONE)
+    @Column(name = "age_bucket", insertable = false, updatable = false,
+        columnDefinition = "varchar(16) as case when age between 0 and 20 then '0~20살'"
+            + " when age between 21 and 30 then '21~30살' else '기타' end")
+    private String ageBucket;
+
     @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
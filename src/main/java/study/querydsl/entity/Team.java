@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
@@ -13,8 +14,12 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+import study.querydsl.outbox.ChangeEventListener;
 
 @Entity
+@EntityListeners(ChangeEventListener.class)
 @Getter
 @Setter
 @NoArgsConstructor(access = PROTECTED)
@@ -27,7 +32,14 @@ public class Team {
     private Long id;
     private String name;
 
+    /**
+     * 회원 수가 많을 수 있으므로 전체를 읽지 않는다.
+     * - size(), contains()는 컬렉션을 초기화하지 않고 count/exists 쿼리로 답한다. (EXTRA)
+     * - 연관관계 주인이 아닌(mappedBy) bag이므로 add()는 초기화 없이 큐에 쌓였다가 flush 후 버려진다.
+     * 회원 목록이 필요하면 MemberRepository.findByTeam(team, pageable)로 페이지 단위로 조회한다.
+     */
     @OneToMany(mappedBy = "team")
+    @LazyCollection(LazyCollectionOption.EXTRA)
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
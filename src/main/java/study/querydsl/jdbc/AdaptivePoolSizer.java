@@ -0,0 +1,133 @@
+package study.querydsl.jdbc;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 커넥션 대기 시간과 쿼리 지연 시간을 보고 Hikari 풀의 최대 크기를 조정한다.
+ *
+ * - 커넥션을 기다리는 스레드가 있거나 평균 대기 시간이 기준을 넘으면 풀을 키운다.
+ *   단 쿼리 지연 시간이 평소보다 크게 늘었다면 DB가 느린 것이므로 키우지 않는다. (커넥션을 늘리면 더 느려진다.)
+ * - 대기가 없고 유휴 커넥션이 절반 이상인 상태가 연속되면 하나씩 줄인다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.jdbc.pool.adaptive.enabled", havingValue = "true")
+public class AdaptivePoolSizer {
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final JdbcStatistics statistics;
+    private final int minSize;
+    private final int maxSize;
+    private final int step;
+    private final double waitThresholdMillis;
+    private final double latencyTolerance;
+    private final int shrinkAfter;
+
+    private long lastAcquireCount;
+    private double lastAcquireMillis;
+    private long lastExecutions;
+    private long lastExecutionNanos;
+    private double baselineLatencyMillis;
+    private int quietIntervals;
+
+    public AdaptivePoolSizer(DataSource dataSource, MeterRegistry meterRegistry, JdbcStatistics statistics,
+        @Value("${querydsl.jdbc.pool.adaptive.min-size:5}") int minSize,
+        @Value("${querydsl.jdbc.pool.adaptive.max-size:30}") int maxSize,
+        @Value("${querydsl.jdbc.pool.adaptive.step:2}") int step,
+        @Value("${querydsl.jdbc.pool.adaptive.wait-threshold-millis:10}") double waitThresholdMillis,
+        @Value("${querydsl.jdbc.pool.adaptive.latency-tolerance:1.5}") double latencyTolerance,
+        @Value("${querydsl.jdbc.pool.adaptive.shrink-after:3}") int shrinkAfter) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.statistics = statistics;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.step = step;
+        this.waitThresholdMillis = waitThresholdMillis;
+        this.latencyTolerance = latencyTolerance;
+        this.shrinkAfter = shrinkAfter;
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.jdbc.pool.adaptive.interval-millis:5000}")
+    public synchronized void adjust() {
+        HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        if (hikari == null || hikari.getHikariPoolMXBean() == null) {
+            return;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+
+        int size = config.getMaximumPoolSize();
+        int target = decide(size, pool.getThreadsAwaitingConnection(), pool.getIdleConnections(),
+            intervalAcquireWaitMillis(), intervalQueryLatencyMillis());
+        if (target != size) {
+            if (config.getMinimumIdle() > target) {
+                config.setMinimumIdle(target);
+            }
+            config.setMaximumPoolSize(target);
+            log.info("connection pool resized {} -> {}", size, target);
+        }
+    }
+
+    int decide(int size, int pending, int idle, double waitMillis, double latencyMillis) {
+        boolean saturated = pending > 0 || waitMillis > waitThresholdMillis;
+        boolean measured = !Double.isNaN(latencyMillis);
+        boolean databaseHealthy = !measured || baselineLatencyMillis == 0
+            || latencyMillis <= baselineLatencyMillis * latencyTolerance;
+
+        if (!saturated && measured) {
+            baselineLatencyMillis = baselineLatencyMillis == 0
+                ? latencyMillis : baselineLatencyMillis * 0.8 + latencyMillis * 0.2;
+        }
+
+        if (saturated) {
+            quietIntervals = 0;
+            return databaseHealthy ? Math.min(maxSize, size + step) : size;
+        }
+        if (idle * 2 >= size && ++quietIntervals >= shrinkAfter) {
+            quietIntervals = 0;
+            return Math.max(minSize, size - 1);
+        }
+        if (idle * 2 < size) {
+            quietIntervals = 0;
+        }
+        return size;
+    }
+
+    private double intervalAcquireWaitMillis() {
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").timer();
+        if (acquire == null) {
+            return 0;
+        }
+        long count = acquire.count();
+        double total = acquire.totalTime(TimeUnit.MILLISECONDS);
+        long deltaCount = count - lastAcquireCount;
+        double deltaMillis = total - lastAcquireMillis;
+        lastAcquireCount = count;
+        lastAcquireMillis = total;
+        return deltaCount == 0 ? 0 : deltaMillis / deltaCount;
+    }
+
+    private double intervalQueryLatencyMillis() {
+        long executions = statistics.getExecutions();
+        long nanos = statistics.getExecutionNanos();
+        long deltaExecutions = executions - lastExecutions;
+        long deltaNanos = nanos - lastExecutionNanos;
+        lastExecutions = executions;
+        lastExecutionNanos = nanos;
+        return deltaExecutions == 0 ? Double.NaN : deltaNanos / 1_000_000.0 / deltaExecutions;
+    }
+}
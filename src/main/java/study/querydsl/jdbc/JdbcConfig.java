@@ -0,0 +1,50 @@
+package study.querydsl.jdbc;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.TimeUnit;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * statement 캐시, JDBC 메트릭 설정
+ * 커넥션 풀 메트릭(hikaricp.connections.active/idle/pending/acquire)은 스프링 부트가 Hikari에 등록한다.
+ */
+@Configuration
+@EnableScheduling
+public class JdbcConfig {
+
+    @Bean
+    public static StatementCacheBeanPostProcessor statementCacheBeanPostProcessor(Environment environment) {
+        return new StatementCacheBeanPostProcessor(
+            environment.getProperty("querydsl.jdbc.statement-cache-size", Integer.class, 64));
+    }
+
+    @Bean
+    public JdbcStatistics jdbcStatistics(StatementCacheBeanPostProcessor statementCacheBeanPostProcessor) {
+        return statementCacheBeanPostProcessor.getStatistics();
+    }
+
+    @Bean
+    public MeterBinder jdbcStatisticsMetrics(JdbcStatistics statistics) {
+        return registry -> {
+            FunctionCounter.builder("jdbc.statement.cache", statistics, JdbcStatistics::getCacheHits)
+                .tag("result", "hit")
+                .register(registry);
+            FunctionCounter.builder("jdbc.statement.cache", statistics, JdbcStatistics::getCacheMisses)
+                .tag("result", "miss")
+                .register(registry);
+            FunctionCounter.builder("jdbc.statement.cache.evictions", statistics, JdbcStatistics::getCacheEvictions)
+                .register(registry);
+            Gauge.builder("jdbc.statement.cache.hit.ratio", statistics, JdbcStatistics::getCacheHitRatio)
+                .register(registry);
+            FunctionTimer.builder("jdbc.statement.execute", statistics,
+                JdbcStatistics::getExecutions, JdbcStatistics::getExecutionNanos, TimeUnit.NANOSECONDS)
+                .register(registry);
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.jdbc;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * statement 캐시와 실행 시간 누적 값
+ */
+public class JdbcStatistics {
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder cacheEvictions = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder executionNanos = new LongAdder();
+
+    void hit() {
+        cacheHits.increment();
+    }
+
+    void miss() {
+        cacheMisses.increment();
+    }
+
+    void eviction() {
+        cacheEvictions.increment();
+    }
+
+    void executed(long nanos) {
+        executions.increment();
+        executionNanos.add(nanos);
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    public long getCacheEvictions() {
+        return cacheEvictions.sum();
+    }
+
+    public double getCacheHitRatio() {
+        long hits = getCacheHits();
+        long total = hits + getCacheMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public long getExecutionNanos() {
+        return executionNanos.sum();
+    }
+}
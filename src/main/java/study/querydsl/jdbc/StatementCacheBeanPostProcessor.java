@@ -0,0 +1,37 @@
+package study.querydsl.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.util.DriverDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Hikari가 물리 커넥션을 만들 때 {@link StatementCachingDataSource}를 거치도록 한다.
+ * 풀이 시작되기 전(첫 getConnection 전)에 설정해야 하므로 빈 초기화 전에 적용한다.
+ */
+public class StatementCacheBeanPostProcessor implements BeanPostProcessor {
+
+    private final int cacheSize;
+    private final JdbcStatistics statistics = new JdbcStatistics();
+
+    public StatementCacheBeanPostProcessor(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public JdbcStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (cacheSize > 0 && bean instanceof HikariDataSource) {
+            HikariDataSource hikari = (HikariDataSource) bean;
+            if (hikari.getDataSource() == null && hikari.getJdbcUrl() != null) {
+                DriverDataSource driverDataSource = new DriverDataSource(hikari.getJdbcUrl(),
+                    hikari.getDriverClassName(), hikari.getDataSourceProperties(),
+                    hikari.getUsername(), hikari.getPassword());
+                hikari.setDataSource(new StatementCachingDataSource(driverDataSource, cacheSize, statistics));
+            }
+        }
+        return bean;
+    }
+}
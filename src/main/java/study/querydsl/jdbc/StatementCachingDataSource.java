@@ -0,0 +1,214 @@
+package study.querydsl.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * 물리 커넥션마다 PreparedStatement를 캐시한다.
+ *
+ * 커넥션 풀(Hikari) 아래에 두어야 한다. 풀은 커넥션을 반납할 때 열린 statement를 닫는데,
+ * 여기서 close()는 실제로 닫지 않고 캐시에 돌려놓는다. 캐시는 LRU이고 넘치는 statement만 실제로 닫는다.
+ *
+ * 같은 SQL을 동시에 두 번 준비하는 경우(결과를 순회하면서 같은 쿼리를 실행)에는 두 번째는 새로 만든다.
+ */
+public class StatementCachingDataSource extends DelegatingDataSource {
+
+    private final int cacheSize;
+    private final JdbcStatistics statistics;
+
+    public StatementCachingDataSource(DataSource targetDataSource, int cacheSize, JdbcStatistics statistics) {
+        super(targetDataSource);
+        this.cacheSize = cacheSize;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{Connection.class}, new CachingConnection(connection));
+    }
+
+    private class CachingConnection implements InvocationHandler {
+
+        private final Connection target;
+        private final Map<List<Object>, PreparedStatement> idle = new LinkedHashMap<>(16, 0.75f, true);
+        private boolean closed;
+
+        CachingConnection(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return prepareStatement(method, args);
+                case "close":
+                    closeAll();
+                    closed = true;
+                    return invoke(method, args);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    return invoke(method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return invoke(method, args);
+            }
+        }
+
+        private Object prepareStatement(Method method, Object[] args) throws Throwable {
+            List<Object> key = Arrays.asList(args);
+            PreparedStatement statement = idle.remove(key);
+            if (statement != null) {
+                statistics.hit();
+            } else {
+                statistics.miss();
+                statement = (PreparedStatement) invoke(method, args);
+            }
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                new CachedStatement(this, key, statement));
+        }
+
+        /**
+         * 논리적으로 닫힌 statement를 캐시에 돌려놓는다.
+         */
+        synchronized void release(List<Object> key, PreparedStatement statement) throws SQLException {
+            if (closed || idle.containsKey(key)) {
+                statement.close();
+                return;
+            }
+            idle.put(key, statement);
+            if (idle.size() > cacheSize) {
+                Iterator<PreparedStatement> eldest = idle.values().iterator();
+                PreparedStatement evicted = eldest.next();
+                eldest.remove();
+                statistics.eviction();
+                evicted.close();
+            }
+        }
+
+        private void closeAll() {
+            for (PreparedStatement statement : idle.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // 커넥션도 곧 닫히므로 무시한다.
+                }
+            }
+            idle.clear();
+        }
+
+        private Object invoke(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    private class CachedStatement implements InvocationHandler {
+
+        private final CachingConnection connection;
+        private final List<Object> key;
+        private final PreparedStatement target;
+        private final int maxRows;
+        private final int fetchSize;
+        private final int queryTimeout;
+        private boolean closed;
+
+        CachedStatement(CachingConnection connection, List<Object> key, PreparedStatement target) throws SQLException {
+            this.connection = connection;
+            this.key = key;
+            this.target = target;
+            this.maxRows = target.getMaxRows();
+            this.fetchSize = target.getFetchSize();
+            this.queryTimeout = target.getQueryTimeout();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                close();
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return closed || target.isClosed();
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                try {
+                    return invoke(method, args);
+                } finally {
+                    statistics.executed(System.nanoTime() - start);
+                }
+            }
+            return invoke(method, args);
+        }
+
+        private void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                ResultSet resultSet = target.getResultSet();
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                target.clearParameters();
+                target.clearBatch();
+                target.clearWarnings();
+                target.setMaxRows(maxRows);
+                target.setFetchSize(fetchSize);
+                target.setQueryTimeout(queryTimeout);
+            } catch (SQLException e) {
+                target.close();
+                return;
+            }
+            connection.release(key, target);
+        }
+
+        private Object invoke(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
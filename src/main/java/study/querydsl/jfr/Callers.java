@@ -0,0 +1,33 @@
+package study.querydsl.jfr;
+
+import java.util.Optional;
+
+/**
+ * 이벤트를 남긴 애플리케이션 메서드. 이벤트를 커밋할 때만 스택을 본다.
+ */
+final class Callers {
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private Callers() {
+    }
+
+    static String find() {
+        Optional<String> caller = WALKER.walk(frames -> frames
+            .filter(frame -> isApplication(frame.getClassName()))
+            .findFirst()
+            .map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName()));
+        return caller.orElse(null);
+    }
+
+    private static boolean isApplication(String className) {
+        return className.startsWith("study.querydsl.")
+            && !className.startsWith("study.querydsl.jfr.")
+            && !className.startsWith("study.querydsl.repository.support.")
+            && !className.contains("$$");
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 식별자로 엔티티를 읽거나(find, 연관 엔티티), 지연 로딩 프록시/컬렉션을 초기화하는 시간
+ */
+@Name("study.querydsl.EntityLoad")
+@Label("Entity Load")
+@Category({"Querydsl", "Hibernate"})
+@Description("엔티티 로딩과 지연 로딩 초기화")
+public class EntityLoadEvent extends jdk.jfr.Event {
+
+    @Label("Entity")
+    @Description("엔티티 이름, 컬렉션이면 컬렉션 role")
+    String entity;
+
+    @Label("Id")
+    String id;
+
+    @Label("Load Type")
+    @Description("GET(find), IMMEDIATE_LOAD(프록시 초기화), INTERNAL_LOAD_*(연관 엔티티), COLLECTION(컬렉션 초기화)")
+    String loadType;
+
+    @Label("Lazy Initialization")
+    boolean lazy;
+}
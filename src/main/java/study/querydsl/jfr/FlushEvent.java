@@ -0,0 +1,19 @@
+package study.querydsl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("study.querydsl.Flush")
+@Label("Flush")
+@Category({"Querydsl", "Hibernate"})
+public class FlushEvent extends jdk.jfr.Event {
+
+    @Label("Entities")
+    @Description("flush 때 dirty checking 한 엔티티 수")
+    int entities;
+
+    @Label("Collections")
+    int collections;
+}
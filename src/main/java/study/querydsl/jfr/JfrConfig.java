@@ -0,0 +1,31 @@
+package study.querydsl.jfr;
+
+import java.util.List;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 쿼리 실행, 엔티티 로딩을 JFR 이벤트(카테고리 Querydsl)로 남긴다.
+ * 기록하지 않을 때는 이벤트마다 isEnabled() 확인만 하므로 켜 둬도 된다.
+ *
+ * java -XX:StartFlightRecording=filename=querydsl.jfr,settings=profile ... 로 기록하고
+ * JDK Mission Control 이벤트 브라우저에서 Querydsl 카테고리를 본다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.jfr.enabled", havingValue = "true", matchIfMissing = true)
+public class JfrConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer jfrHibernateListeners() {
+        return properties -> {
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JfrSessionEventListener.class.getName());
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(new JfrIntegrator()));
+        };
+    }
+}
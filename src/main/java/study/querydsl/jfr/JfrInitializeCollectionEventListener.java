@@ -0,0 +1,38 @@
+package study.querydsl.jfr;
+
+import java.util.List;
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+
+/**
+ * 기본 InitializeCollectionEventListener 를 감싸서 지연 로딩 컬렉션 초기화 시간을 잰다.
+ */
+class JfrInitializeCollectionEventListener implements InitializeCollectionEventListener {
+
+    private final List<InitializeCollectionEventListener> delegates;
+
+    JfrInitializeCollectionEventListener(List<InitializeCollectionEventListener> delegates) {
+        this.delegates = delegates;
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+        EntityLoadEvent load = new EntityLoadEvent();
+        load.begin();
+        try {
+            for (InitializeCollectionEventListener delegate : delegates) {
+                delegate.onInitializeCollection(event);
+            }
+        } finally {
+            load.end();
+            if (load.shouldCommit()) {
+                load.entity = event.getCollection().getRole();
+                load.id = String.valueOf(event.getCollection().getKey());
+                load.loadType = "COLLECTION";
+                load.lazy = true;
+                load.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.jfr;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerGroup;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * 엔티티 로딩, 컬렉션 초기화 리스너를 JFR 로 감싸고 로딩한 엔티티 수를 센다.
+ */
+public class JfrIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+        SessionFactoryServiceRegistry serviceRegistry) {
+        EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+
+        EventListenerGroup<LoadEventListener> load = registry.getEventListenerGroup(EventType.LOAD);
+        List<LoadEventListener> loadListeners = listeners(load);
+        load.clearListeners();
+        load.appendListener(new JfrLoadEventListener(loadListeners));
+
+        EventListenerGroup<InitializeCollectionEventListener> initCollection =
+            registry.getEventListenerGroup(EventType.INIT_COLLECTION);
+        List<InitializeCollectionEventListener> initCollectionListeners = listeners(initCollection);
+        initCollection.clearListeners();
+        initCollection.appendListener(new JfrInitializeCollectionEventListener(initCollectionListeners));
+
+        registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> {
+            QueryScope scope = QueryScope.current();
+            if (scope != null) {
+                scope.entities++;
+            }
+        });
+    }
+
+    /**
+     * 지금 등록된 리스너를 등록 순서대로 꺼낸다. (리스너마다 호출해 주는 fireEventOnEachListener 로 모은다)
+     */
+    private static <T> List<T> listeners(EventListenerGroup<T> group) {
+        List<T> listeners = new ArrayList<>();
+        group.fireEventOnEachListener(listeners, (listener, collected) -> collected.add(listener));
+        return listeners;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,39 @@
+package study.querydsl.jfr;
+
+import java.util.List;
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+
+/**
+ * 기본 LoadEventListener 를 감싸서 엔티티 로딩 시간을 잰다.
+ * IMMEDIATE_LOAD 는 지연 로딩 프록시 초기화다.
+ */
+class JfrLoadEventListener implements LoadEventListener {
+
+    private final List<LoadEventListener> delegates;
+
+    JfrLoadEventListener(List<LoadEventListener> delegates) {
+        this.delegates = delegates;
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) throws HibernateException {
+        EntityLoadEvent load = new EntityLoadEvent();
+        load.begin();
+        try {
+            for (LoadEventListener delegate : delegates) {
+                delegate.onLoad(event, loadType);
+            }
+        } finally {
+            load.end();
+            if (load.shouldCommit()) {
+                load.entity = event.getEntityClassName();
+                load.id = String.valueOf(event.getEntityId());
+                load.loadType = loadType.getName();
+                load.lazy = loadType == IMMEDIATE_LOAD;
+                load.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.jfr;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * 세션마다 하나씩 생긴다. (hibernate.session.events.auto)
+ * JDBC 실행과 flush 를 이벤트로 남기고, 실행 중인 Querydsl 쿼리(QueryScope)에 SQL 실행 시간을 더한다.
+ */
+public class JfrSessionEventListener extends BaseSessionEventListener {
+
+    private SqlExecuteEvent statement;
+    private long statementStart;
+    private FlushEvent flush;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart(false);
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executeEnd();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executeStart(true);
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executeEnd();
+    }
+
+    private void executeStart(boolean batch) {
+        statementStart = System.nanoTime();
+        SqlExecuteEvent event = new SqlExecuteEvent();
+        if (event.isEnabled()) {
+            event.batch = batch;
+            event.begin();
+            statement = event;
+        }
+    }
+
+    private void executeEnd() {
+        QueryScope scope = QueryScope.current();
+        if (scope != null) {
+            scope.statements++;
+            scope.executionNanos += System.nanoTime() - statementStart;
+        }
+        SqlExecuteEvent event = statement;
+        if (event != null) {
+            statement = null;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void flushStart() {
+        FlushEvent event = new FlushEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            flush = event;
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        FlushEvent event = flush;
+        if (event != null) {
+            flush = null;
+            event.entities = numberOfEntities;
+            event.collections = numberOfCollections;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.jfr;
+
+import com.querydsl.jpa.JPQLSerializer;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("study.querydsl.JpqlRender")
+@Label("JPQL Render")
+@Category({"Querydsl", "Query"})
+@Description("Querydsl 쿼리를 JPQL 문자열로 만드는 시간")
+@StackTrace(false)
+public class JpqlRenderEvent extends jdk.jfr.Event {
+
+    @Label("JPQL")
+    String jpql;
+
+    @Label("Count Query")
+    boolean count;
+
+    private transient long startNanos;
+
+    public static JpqlRenderEvent start() {
+        JpqlRenderEvent event = new JpqlRenderEvent();
+        if (event.isEnabled() || QueryScope.current() != null) {
+            event.startNanos = System.nanoTime();
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * 만든 JPQL 은 실행 중인 QueryFetchEvent 에도 남긴다.
+     */
+    public void finish(JPQLSerializer serializer, boolean count) {
+        QueryScope scope = QueryScope.current();
+        if (scope != null) {
+            scope.renderNanos += System.nanoTime() - startNanos;
+            if (!count || scope.jpql == null) {
+                scope.jpql = serializer.toString();
+            }
+        }
+        end();
+        if (shouldCommit()) {
+            this.jpql = serializer.toString();
+            this.count = count;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JPAQuery 실행 한 번 (fetch, fetchOne, fetchCount, fetchResults).
+ * 시간 = JPQL 생성(render) + SQL 실행(execution) + 나머지(hydration: HQL 해석, 결과 행을 엔티티/DTO 로 만들기)
+ *
+ * <pre>
+ * QueryFetchEvent event = QueryFetchEvent.start();
+ * try {
+ *     List<T> rows = super.fetch();
+ *     event.setRows(rows.size());
+ *     return rows;
+ * } finally {
+ *     event.finish();
+ * }
+ * </pre>
+ */
+@Name("study.querydsl.QueryFetch")
+@Label("Query Fetch")
+@Category({"Querydsl", "Query"})
+@Description("JPAQuery 실행 한 번. SQL 실행 시간과 결과 행을 객체로 만드는 시간을 나눠서 기록한다.")
+@StackTrace(false)
+public class QueryFetchEvent extends jdk.jfr.Event {
+
+    @Label("Caller")
+    @Description("쿼리를 실행한 리포지토리 메서드")
+    String caller;
+
+    @Label("JPQL")
+    String jpql;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Statements")
+    int statements;
+
+    @Label("JPQL Render Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long renderTime;
+
+    @Label("SQL Execution Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long executionTime;
+
+    @Label("Hydration Time")
+    @Description("전체 시간에서 JPQL 생성, SQL 실행을 뺀 시간 (HQL 해석, 결과 읽기, 엔티티/DTO 생성)")
+    @Timespan(Timespan.NANOSECONDS)
+    long hydrationTime;
+
+    @Label("Entities Loaded")
+    int entities;
+
+    private transient QueryScope scope;
+    private transient long startNanos;
+
+    public static QueryFetchEvent start() {
+        QueryFetchEvent event = new QueryFetchEvent();
+        if (event.isEnabled()) {
+            event.scope = QueryScope.open();
+            event.startNanos = System.nanoTime();
+            event.begin();
+        }
+        return event;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public void finish() {
+        if (scope == null) {
+            return;
+        }
+        scope.close();
+        end();
+        if (shouldCommit()) {
+            long total = System.nanoTime() - startNanos;
+            caller = Callers.find();
+            jpql = scope.jpql;
+            statements = scope.statements;
+            renderTime = scope.renderNanos;
+            executionTime = scope.executionNanos;
+            hydrationTime = Math.max(total - scope.renderNanos - scope.executionNanos, 0);
+            entities = scope.entities;
+            commit();
+        }
+    }
+}
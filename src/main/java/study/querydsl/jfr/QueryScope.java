@@ -0,0 +1,39 @@
+package study.querydsl.jfr;
+
+/**
+ * 스레드에서 실행 중인 Querydsl 쿼리 하나. 세션 리스너가 SQL 실행 시간, 로딩한 엔티티 수를 여기에 더한다.
+ * QueryFetchEvent 가 켜져 있을 때만 연다.
+ */
+final class QueryScope {
+
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+
+    private final QueryScope parent;
+    String jpql;
+    int statements;
+    long executionNanos;
+    long renderNanos;
+    int entities;
+
+    private QueryScope(QueryScope parent) {
+        this.parent = parent;
+    }
+
+    static QueryScope open() {
+        QueryScope scope = new QueryScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static QueryScope current() {
+        return CURRENT.get();
+    }
+
+    void close() {
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.jfr;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import java.util.StringJoiner;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * 리포지토리 조회 메서드 한 번. 조건은 값 없이 어떤 필드가 채워졌는지(모양)만 남긴다.
+ *
+ * <pre>
+ * RepositoryCallEvent event = RepositoryCallEvent.start("MemberRepositoryImpl.search", condition);
+ * List<MemberTeamDto> result = ...;
+ * event.finish(result.size());
+ * </pre>
+ */
+@Name("study.querydsl.RepositoryCall")
+@Label("Repository Call")
+@Category({"Querydsl", "Repository"})
+@StackTrace(false)
+public class RepositoryCallEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Condition")
+    @Description("값이 있는 검색 조건 필드 (예: teamName,ageGoe)")
+    String condition;
+
+    @Label("Rows")
+    long rows;
+
+    public static RepositoryCallEvent start(String method, MemberSearchCondition condition) {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (event.isEnabled()) {
+            event.method = method;
+            event.condition = shapeOf(condition);
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * 메서드 이름을 스택에서 찾는다. (Querydsl4RepositorySupport 처럼 호출한 메서드를 모르는 곳)
+     */
+    public static RepositoryCallEvent start() {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (event.isEnabled()) {
+            event.method = Callers.find();
+            event.begin();
+        }
+        return event;
+    }
+
+    public void finish(long rows) {
+        end();
+        if (shouldCommit()) {
+            this.rows = rows;
+            commit();
+        }
+    }
+
+    static String shapeOf(MemberSearchCondition condition) {
+        if (condition == null) {
+            return null;
+        }
+        StringJoiner shape = new StringJoiner(",");
+        if (hasText(condition.getUsername())) {
+            shape.add("username");
+        }
+        if (hasText(condition.getTeamName())) {
+            shape.add("teamName");
+        }
+        if (condition.getAgeGoe() != null) {
+            shape.add("ageGoe");
+        }
+        if (condition.getAgeLoe() != null) {
+            shape.add("ageLoe");
+        }
+        return shape.toString();
+    }
+}
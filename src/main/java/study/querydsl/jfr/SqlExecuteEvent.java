@@ -0,0 +1,16 @@
+package study.querydsl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("study.querydsl.SqlExecute")
+@Label("SQL Execute")
+@Category({"Querydsl", "JDBC"})
+@Description("Hibernate 세션의 JDBC 문장 실행 (배치 포함)")
+public class SqlExecuteEvent extends jdk.jfr.Event {
+
+    @Label("Batch")
+    boolean batch;
+}
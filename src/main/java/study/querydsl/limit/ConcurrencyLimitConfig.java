@@ -0,0 +1,63 @@
+package study.querydsl.limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 회원 조회 API 의 동시 요청 수 제한 (ConcurrencyLimiter)
+ * 페이징 조회(/v2, /v3)와 전체 조회(/v1, export)는 쿼리 비용이 달라서 limit 을 따로 둔다.
+ *
+ * 메트릭: member.search.concurrency.limit, member.search.concurrency.in-flight, member.search.concurrency.rejected
+ * (태그 endpoint=paged|unpaged)
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+    private static final String METRIC = "member.search.concurrency";
+
+    private final ConcurrencyLimiter paged;
+    private final ConcurrencyLimiter unpaged;
+    private final Duration retryAfter;
+
+    public ConcurrencyLimitConfig(MeterRegistry meterRegistry,
+        @Value("${querydsl.concurrency-limit.initial-limit:20}") int initialLimit,
+        @Value("${querydsl.concurrency-limit.min-limit:2}") int minLimit,
+        @Value("${querydsl.concurrency-limit.max-limit:100}") int maxLimit,
+        @Value("${querydsl.concurrency-limit.tolerance:2.0}") double tolerance,
+        @Value("${querydsl.concurrency-limit.smoothing:0.2}") double smoothing,
+        @Value("${querydsl.concurrency-limit.retry-after:1s}") Duration retryAfter) {
+        this.paged = new ConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, smoothing);
+        this.unpaged = new ConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, smoothing);
+        this.retryAfter = retryAfter;
+        bindMetrics(meterRegistry, "paged", paged);
+        bindMetrics(meterRegistry, "unpaged", unpaged);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ConcurrencyLimitInterceptor("paged", paged, retryAfter))
+            .addPathPatterns("/v2/members", "/v3/members");
+        registry.addInterceptor(new ConcurrencyLimitInterceptor("unpaged", unpaged, retryAfter))
+            .addPathPatterns("/v1/members", "/v1/members/export");
+    }
+
+    private static void bindMetrics(MeterRegistry registry, String endpoint, ConcurrencyLimiter limiter) {
+        Gauge.builder(METRIC + ".limit", limiter, ConcurrencyLimiter::getLimit)
+            .tag("endpoint", endpoint)
+            .register(registry);
+        Gauge.builder(METRIC + ".in-flight", limiter, ConcurrencyLimiter::getInFlight)
+            .tag("endpoint", endpoint)
+            .register(registry);
+        FunctionCounter.builder(METRIC + ".rejected", limiter, ConcurrencyLimiter::getRejected)
+            .tag("endpoint", endpoint)
+            .register(registry);
+    }
+}
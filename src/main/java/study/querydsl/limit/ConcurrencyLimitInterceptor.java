@@ -0,0 +1,50 @@
+package study.querydsl.limit;
+
+import java.time.Duration;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * limit 을 넘는 요청은 컨트롤러(쿼리)까지 가지 않고 503 + Retry-After 로 바로 거절한다.
+ * 조회(GET)만 제한한다. 같은 경로의 회원 가입(POST)은 쓰기 큐(MemberWriteBehind)가 따로 막는다.
+ */
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private final ConcurrencyLimiter limiter;
+    private final String startAttribute;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitInterceptor(String name, ConcurrencyLimiter limiter, Duration retryAfter) {
+        this.limiter = limiter;
+        this.startAttribute = ConcurrencyLimitInterceptor.class.getName() + "." + name;
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.getSeconds()));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        if (!limiter.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            return false;
+        }
+        request.setAttribute(startAttribute, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+        Exception ex) {
+        Object start = request.getAttribute(startAttribute);
+        if (start != null) {
+            request.removeAttribute(startAttribute);
+            limiter.release(System.nanoTime() - (Long) start);
+        }
+    }
+}
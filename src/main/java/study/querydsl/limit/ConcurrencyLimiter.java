@@ -0,0 +1,82 @@
+package study.querydsl.limit;
+
+/**
+ * 응답 시간을 보고 동시에 처리할 요청 수(limit)를 조정한다. (gradient 방식)
+ *
+ * - 평소 응답 시간(longRtt, 느린 이동 평균)과 방금 응답 시간(sample)을 비교한다.
+ *   gradient = tolerance * longRtt / sample 을 [0.5, 1] 로 자르고 limit * gradient + sqrt(limit) 를 새 limit 으로 한다.
+ *   DB 가 느려져 sample 이 커지면 limit 이 줄고, 평소 속도면 sqrt(limit) 만큼 늘어난다.
+ * - 요청이 limit 의 절반도 안 차 있으면 늘리지 않는다. (부하가 없어서 빠른 것이므로)
+ * - 느린 상태가 오래 가면 longRtt 가 따라 올라가서 limit 이 다시 회복된다.
+ *   sample 이 longRtt 의 절반 아래로 떨어지면 longRtt 를 빨리 내린다.
+ * - limit 까지 차 있으면 tryAcquire() 가 false 를 돌려준다. (호출한 쪽이 503 으로 거절)
+ */
+public class ConcurrencyLimiter {
+
+    private static final double LONG_RTT_ALPHA = 2.0 / (600 + 1);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private double limit;
+    private int inFlight;
+    private double longRttNanos;
+    private long rejected;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            rejected++;
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * tryAcquire() 로 받은 자리를 돌려준다. rttNanos 는 그 요청의 처리 시간
+     */
+    public synchronized void release(long rttNanos) {
+        int concurrent = inFlight--;
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+            return;
+        }
+        longRttNanos = longRttNanos * (1 - LONG_RTT_ALPHA) + rttNanos * LONG_RTT_ALPHA;
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / rttNanos));
+        double next = limit * gradient + Math.sqrt(limit);
+        if (concurrent < limit / 2 && next > limit) {
+            return;
+        }
+        next = limit * (1 - smoothing) + next * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+}
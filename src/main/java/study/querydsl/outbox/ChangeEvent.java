@@ -0,0 +1,61 @@
+package study.querydsl.outbox;
+
+import static javax.persistence.GenerationType.IDENTITY;
+import static lombok.AccessLevel.PROTECTED;
+
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 변경 이벤트 (outbox)
+ *
+ * 엔티티 변경은 aggregateId에 대상 id를, 벌크 변경은 [rangeStart, rangeEnd]에 영향을 받은 id 범위를 담는다.
+ * 테이블은 JPA로 만들지만 쓰기/읽기는 JdbcTemplate으로 한다. (flush 중에는 엔티티를 persist 할 수 없다.)
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = PROTECTED)
+@ToString
+public class ChangeEvent {
+
+    @Id
+    @GeneratedValue(strategy = IDENTITY)
+    @Column(name = "change_event_id")
+    private Long id;
+    private String aggregateType;
+    private Long aggregateId;
+    @Enumerated(EnumType.STRING)
+    private ChangeType changeType;
+    private Long rangeStart;
+    private Long rangeEnd;
+    private String detail;
+    private LocalDateTime createdAt;
+
+    public ChangeEvent(Long id, String aggregateType, Long aggregateId, ChangeType changeType,
+        Long rangeStart, Long rangeEnd, String detail, LocalDateTime createdAt) {
+        this.id = id;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.changeType = changeType;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.detail = detail;
+        this.createdAt = createdAt;
+    }
+
+    public boolean isBulk() {
+        return changeType == ChangeType.BULK_UPDATED || changeType == ChangeType.BULK_DELETED;
+    }
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED, BULK_UPDATED, BULK_DELETED
+    }
+}
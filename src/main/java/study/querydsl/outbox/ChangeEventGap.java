@@ -0,0 +1,37 @@
+package study.querydsl.outbox;
+
+import static lombok.AccessLevel.PROTECTED;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 구독자가 offset 을 지나쳐 간 빈 이벤트 id. 늦게 커밋된 이벤트가 나타나면 전달하고 지운다.
+ * firstSeenAt 에서 gap-expiry 가 지나도 나타나지 않으면 롤백된 것으로 보고 지운다.
+ */
+@Entity
+@IdClass(ChangeEventGap.Key.class)
+@Getter
+@NoArgsConstructor(access = PROTECTED)
+public class ChangeEventGap {
+
+    @Id
+    private String subscriber;
+    @Id
+    private long changeEventId;
+    private LocalDateTime firstSeenAt;
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+
+        private String subscriber;
+        private long changeEventId;
+    }
+}
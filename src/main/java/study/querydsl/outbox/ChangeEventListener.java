@@ -0,0 +1,44 @@
+package study.querydsl.outbox;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.outbox.ChangeEvent.ChangeType;
+
+/**
+ * Member, Team 변경을 outbox에 기록한다.
+ * 벌크 update/delete는 엔티티 리스너를 거치지 않으므로 Querydsl4RepositorySupport의 bulkUpdate/bulkDelete로 기록한다.
+ */
+public class ChangeEventListener {
+
+    private final ChangeEventWriter changeEventWriter;
+
+    public ChangeEventListener(ChangeEventWriter changeEventWriter) {
+        this.changeEventWriter = changeEventWriter;
+    }
+
+    @PostPersist
+    public void postPersist(Object entity) {
+        write(entity, ChangeType.CREATED);
+    }
+
+    @PostUpdate
+    public void postUpdate(Object entity) {
+        write(entity, ChangeType.UPDATED);
+    }
+
+    @PostRemove
+    public void postRemove(Object entity) {
+        write(entity, ChangeType.DELETED);
+    }
+
+    private void write(Object entity, ChangeType changeType) {
+        if (entity instanceof Member) {
+            changeEventWriter.entityChanged(Member.class.getSimpleName(), ((Member) entity).getId(), changeType);
+        } else if (entity instanceof Team) {
+            changeEventWriter.entityChanged(Team.class.getSimpleName(), ((Team) entity).getId(), changeType);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.outbox;
+
+import static lombok.AccessLevel.PROTECTED;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 구독자별로 마지막으로 처리한 이벤트 id
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = PROTECTED)
+public class ChangeEventOffset {
+
+    @Id
+    private String subscriber;
+    private long lastEventId;
+}
@@ -0,0 +1,246 @@
+package study.querydsl.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.querydsl.outbox.ChangeEvent.ChangeType;
+
+/**
+ * outbox의 변경 이벤트를 구독자에게 배치로 전달한다.
+ *
+ * - 구독자마다 처리한 위치(offset)를 따로 저장하고, 전달이 성공한 뒤에만 offset을 옮긴다. (at-least-once)
+ * - 한 스레드(스케줄러)에서 id 순서대로 전달하므로 구독자는 보통 이벤트를 순서대로 받는다.
+ * - id는 insert 순서로 매겨지지만 커밋 순서는 다를 수 있다. 그래서 id 사이가 비어 있으면
+ *   아직 커밋되지 않은 트랜잭션일 수 있으므로 gap-timeout 동안은 그 앞에서 멈춘다.
+ *   그 시간이 지나면 빈 id를 구독자별 대기 목록(change_event_gap)에 남기고 지나간다.
+ *   대기 중인 id는 매번 다시 조회해서 나타나면(늦게 커밋됨) 순서와 상관없이 전달하고,
+ *   gap-expiry(가장 긴 트랜잭션보다 넉넉히 길게) 동안 나타나지 않으면 롤백된 것으로 보고 버린다.
+ * - 모든 구독자가 처리했고 대기 중인 id보다 앞선 이벤트는 지운다.
+ */
+@Slf4j
+@Component
+public class ChangeEventRelay {
+
+    private static final RowMapper<ChangeEvent> EVENT_MAPPER = (rs, rowNum) -> new ChangeEvent(
+        rs.getLong("change_event_id"),
+        rs.getString("aggregate_type"),
+        (Long) rs.getObject("aggregate_id"),
+        ChangeType.valueOf(rs.getString("change_type")),
+        (Long) rs.getObject("range_start"),
+        (Long) rs.getObject("range_end"),
+        rs.getString("detail"),
+        rs.getTimestamp("created_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final List<ChangeEventSubscriber> subscribers;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration gapExpiry;
+    private final Counter delivered;
+    private final Counter failures;
+    private final Counter expired;
+
+    public ChangeEventRelay(JdbcTemplate jdbcTemplate, List<ChangeEventSubscriber> subscribers,
+        MeterRegistry meterRegistry,
+        @Value("${querydsl.outbox.batch-size:500}") int batchSize,
+        @Value("${querydsl.outbox.gap-timeout:5s}") Duration gapTimeout,
+        @Value("${querydsl.outbox.gap-expiry:10m}") Duration gapExpiry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.subscribers = subscribers;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+        this.gapExpiry = gapExpiry;
+        this.delivered = meterRegistry.counter("outbox.relay.events", "result", "delivered");
+        this.failures = meterRegistry.counter("outbox.relay.events", "result", "failed");
+        this.expired = meterRegistry.counter("outbox.relay.gaps", "result", "expired");
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.outbox.relay-interval-millis:200}")
+    public synchronized void relay() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (ChangeEventSubscriber subscriber : subscribers) {
+            if (!deliverGaps(subscriber)) {
+                continue;
+            }
+            int count;
+            do {
+                count = deliver(subscriber);
+            } while (count == batchSize);
+        }
+        purge();
+    }
+
+    /**
+     * 대기 중인 빈 id 중 이제 보이는 이벤트를 전달한다. 전달에 실패하면 false.
+     */
+    private boolean deliverGaps(ChangeEventSubscriber subscriber) {
+        Map<Long, LocalDateTime> gaps = gapsOf(subscriber.getName());
+        if (gaps.isEmpty()) {
+            return true;
+        }
+        List<ChangeEvent> late = namedJdbcTemplate.query(
+            "select * from change_event where change_event_id in (:ids) order by change_event_id",
+            new MapSqlParameterSource("ids", gaps.keySet()), EVENT_MAPPER);
+        if (!late.isEmpty()) {
+            if (!send(subscriber, late, -1)) {
+                return false;
+            }
+            late.forEach(event -> gaps.remove(event.getId()));
+            deleteGaps(subscriber.getName(), late.stream().map(ChangeEvent::getId).collect(Collectors.toList()));
+        }
+
+        LocalDateTime expiry = LocalDateTime.now().minus(gapExpiry);
+        List<Long> rolledBack = gaps.entrySet().stream()
+            .filter(gap -> gap.getValue().isBefore(expiry))
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+        if (!rolledBack.isEmpty()) {
+            log.warn("change event ids not committed within {}, treating as rolled back. subscriber={}, ids={}",
+                gapExpiry, subscriber.getName(), rolledBack);
+            expired.increment(rolledBack.size());
+            deleteGaps(subscriber.getName(), rolledBack);
+        }
+        return true;
+    }
+
+    private int deliver(ChangeEventSubscriber subscriber) {
+        long offset = offsetOf(subscriber.getName());
+        Batch batch = deliverable(offset, jdbcTemplate.query(
+            "select * from change_event where change_event_id > ? order by change_event_id limit ?",
+            EVENT_MAPPER, offset, batchSize), LocalDateTime.now().minus(gapTimeout));
+        if (batch.events.isEmpty()) {
+            return 0;
+        }
+
+        // offset 을 옮기기 전에 남긴다. 전달이 실패해서 다시 오더라도 이미 있는 id는 건너뛴다.
+        addGaps(subscriber.getName(), batch.gaps);
+        if (!send(subscriber, batch.events, offset)) {
+            return 0;
+        }
+        saveOffset(subscriber.getName(), batch.events.get(batch.events.size() - 1).getId());
+        return batch.events.size();
+    }
+
+    private boolean send(ChangeEventSubscriber subscriber, List<ChangeEvent> events, long offset) {
+        try {
+            subscriber.onEvents(events);
+        } catch (RuntimeException e) {
+            failures.increment(events.size());
+            log.warn("change event delivery failed. subscriber={}, offset={}", subscriber.getName(), offset, e);
+            return false;
+        }
+        delivered.increment(events.size());
+        return true;
+    }
+
+    /**
+     * offset 바로 다음부터 전달할 이벤트와 그 사이의 빈 id.
+     * 빈 id 뒤의 이벤트가 gapDeadline 이후에 만들어졌다면 빈 id가 곧 커밋될 수 있으므로 거기서 멈춘다.
+     * 그보다 오래되었으면 빈 id를 gaps 로 돌려주고 계속 간다. (건너뛴 것이 아니라 나중에 다시 확인한다)
+     */
+    static Batch deliverable(long offset, List<ChangeEvent> events, LocalDateTime gapDeadline) {
+        Batch batch = new Batch(events.size());
+        long previous = offset;
+        for (ChangeEvent event : events) {
+            if (event.getId() != previous + 1) {
+                if (event.getCreatedAt().isAfter(gapDeadline)) {
+                    break;
+                }
+                for (long id = previous + 1; id < event.getId(); id++) {
+                    batch.gaps.add(id);
+                }
+            }
+            batch.events.add(event);
+            previous = event.getId();
+        }
+        return batch;
+    }
+
+    private long offsetOf(String subscriber) {
+        List<Long> offsets = jdbcTemplate.queryForList(
+            "select last_event_id from change_event_offset where subscriber = ?", Long.class, subscriber);
+        return offsets.isEmpty() ? 0 : offsets.get(0);
+    }
+
+    /** H2 의 merge ... key 대신 update 후 없으면 insert 한다. (relay 는 한 스레드에서만 돈다) */
+    private void saveOffset(String subscriber, long lastEventId) {
+        if (jdbcTemplate.update("update change_event_offset set last_event_id = ? where subscriber = ?",
+            lastEventId, subscriber) == 0) {
+            jdbcTemplate.update("insert into change_event_offset (subscriber, last_event_id) values (?, ?)",
+                subscriber, lastEventId);
+        }
+    }
+
+    private Map<Long, LocalDateTime> gapsOf(String subscriber) {
+        Map<Long, LocalDateTime> gaps = new LinkedHashMap<>();
+        jdbcTemplate.query("select change_event_id, first_seen_at from change_event_gap where subscriber = ?"
+                + " order by change_event_id",
+            rs -> {
+                gaps.put(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime());
+            }, subscriber);
+        return gaps;
+    }
+
+    private void addGaps(String subscriber, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> known = gapsOf(subscriber).keySet();
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = ids.stream()
+            .filter(id -> !known.contains(id))
+            .map(id -> new Object[]{subscriber, id, now})
+            .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(
+            "insert into change_event_gap (subscriber, change_event_id, first_seen_at) values (?, ?, ?)", rows);
+    }
+
+    private void deleteGaps(String subscriber, List<Long> ids) {
+        namedJdbcTemplate.update("delete from change_event_gap where subscriber = :subscriber and change_event_id in (:ids)",
+            new MapSqlParameterSource("subscriber", subscriber).addValue("ids", ids));
+    }
+
+    /** 늦게 커밋될 수 있는 대기 중인 id 부터는 남겨 둔다. */
+    private void purge() {
+        long min = Long.MAX_VALUE;
+        for (ChangeEventSubscriber subscriber : subscribers) {
+            min = Math.min(min, offsetOf(subscriber.getName()));
+        }
+        Long firstGap = jdbcTemplate.queryForObject("select min(change_event_id) from change_event_gap", Long.class);
+        if (firstGap != null) {
+            min = Math.min(min, firstGap - 1);
+        }
+        if (min > 0) {
+            jdbcTemplate.update("delete from change_event where change_event_id <= ?", min);
+        }
+    }
+
+    static class Batch {
+
+        final List<ChangeEvent> events;
+        final List<Long> gaps = new ArrayList<>();
+
+        private Batch(int size) {
+            this.events = new ArrayList<>(size);
+        }
+    }
+}
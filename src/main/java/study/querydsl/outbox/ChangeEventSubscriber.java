@@ -0,0 +1,19 @@
+package study.querydsl.outbox;
+
+import java.util.List;
+
+/**
+ * 변경 이벤트 구독자
+ *
+ * 이벤트는 id 순서대로 배치로 전달된다. 예외를 던지면 같은 배치를 다음에 다시 받는다. (at-least-once)
+ * 같은 이벤트를 두 번 받아도 결과가 같도록 처리해야 한다.
+ */
+public interface ChangeEventSubscriber {
+
+    /**
+     * 처리 위치(offset)를 저장하는 키. 바꾸면 처음부터 다시 받는다.
+     */
+    String getName();
+
+    void onEvents(List<ChangeEvent> events);
+}
@@ -0,0 +1,92 @@
+package study.querydsl.outbox;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.time.LocalDateTime;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.outbox.ChangeEvent.ChangeType;
+import study.querydsl.repository.support.BulkWriteListener;
+
+/**
+ * 변경 이벤트를 현재 트랜잭션의 커넥션으로 기록한다.
+ * 데이터 변경과 같이 커밋되고 같이 롤백된다.
+ *
+ * 스프링 트랜잭션 밖의 쓰기는 원자적으로 기록할 수 없으므로 남기지 않는다.
+ * (샤드 쓰기는 스프링 트랜잭션 안에서 하면 샤드 트랜잭션이 그 트랜잭션에 묶이므로 기록된다. Shard 참고)
+ *
+ * ComputedColumnQueryFactory 의 update/delete 는 실행 직전에 beforeBulkWrite 로 조건에 맞는 id 범위를 남긴다.
+ * (queryFactory.update/delete 를 직접 써도 빠지지 않는다)
+ */
+@Component
+public class ChangeEventWriter implements BulkWriteListener {
+
+    private static final int DETAIL_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    /** Hibernate 리스너(ChangeEventListener)가 이 빈을 쓰므로 EntityManagerFactory 는 나중에 꺼낸다. */
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public ChangeEventWriter(JdbcTemplate jdbcTemplate, ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void entityChanged(String aggregateType, Long aggregateId, ChangeType changeType) {
+        insert(aggregateType, aggregateId, changeType, null, null, null);
+    }
+
+    /**
+     * 벌크 변경. 영향을 받은 행이 없으면(rangeStart == null) 기록하지 않는다.
+     */
+    public void rangeChanged(String aggregateType, ChangeType changeType, Long rangeStart, Long rangeEnd,
+        String detail) {
+        if (rangeStart == null) {
+            return;
+        }
+        insert(aggregateType, null, changeType, rangeStart, rangeEnd, detail);
+    }
+
+    /**
+     * 벌크 update/delete 실행 전에 조건에 맞는 id 범위를 구해서 BULK_UPDATED/BULK_DELETED 로 남긴다.
+     */
+    @Override
+    public void beforeBulkWrite(JPAQueryFactory queryFactory, EntityPath<?> entity, ChangeType changeType,
+        Predicate where) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        EntityType<?> entityType = entityManagerFactory.getObject().getMetamodel().entity(entity.getType());
+        String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+        NumberPath<Long> id = new PathBuilder<>(entity.getType(), entity.getMetadata()).getNumber(idName, Long.class);
+        Tuple range = queryFactory
+            .select(id.min(), id.max())
+            .from(entity)
+            .where(where)
+            .fetchOne();
+        rangeChanged(entityType.getJavaType().getSimpleName(), changeType, range.get(id.min()), range.get(id.max()),
+            where == null ? null : where.toString());
+    }
+
+    private void insert(String aggregateType, Long aggregateId, ChangeType changeType, Long rangeStart,
+        Long rangeEnd, String detail) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        if (detail != null && detail.length() > DETAIL_LENGTH) {
+            detail = detail.substring(0, DETAIL_LENGTH);
+        }
+        jdbcTemplate.update("insert into change_event"
+                + " (aggregate_type, aggregate_id, change_type, range_start, range_end, detail, created_at)"
+                + " values (?, ?, ?, ?, ?, ?, ?)",
+            aggregateType, aggregateId, changeType.name(), rangeStart, rangeEnd, detail, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,39 @@
+package study.querydsl.readmodel;
+
+import static lombok.AccessLevel.PROTECTED;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 회원 검색용 읽기 모델 (member + team 을 펼쳐둔 테이블)
+ * {@link MemberTeamReadModelUpdater}가 변경 이벤트로 갱신한다. 애플리케이션에서 직접 수정하지 않는다.
+ */
+@Entity
+@Table(name = "member_team_read", indexes = {
+    @Index(name = "idx_member_team_read_username", columnList = "username"),
+    @Index(name = "idx_member_team_read_team_name_age", columnList = "team_name, age"),
+    @Index(name = "idx_member_team_read_age", columnList = "age"),
+    @Index(name = "idx_member_team_read_team_id", columnList = "team_id")
+})
+@Getter
+@NoArgsConstructor(access = PROTECTED)
+@ToString
+public class MemberTeamRead {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+    private String username;
+    private int age;
+    @Column(name = "team_id")
+    private Long teamId;
+    @Column(name = "team_name")
+    private String teamName;
+}
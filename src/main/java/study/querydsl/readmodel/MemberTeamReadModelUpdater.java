@@ -0,0 +1,184 @@
+package study.querydsl.readmodel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.outbox.ChangeEvent;
+import study.querydsl.outbox.ChangeEventSubscriber;
+import study.querydsl.version.DataVersions;
+
+/**
+ * 변경 이벤트로 member_team_read 를 갱신한다. (querydsl.read-model.enabled=true)
+ *
+ * 이벤트의 내용을 적용하지 않고, 이벤트가 가리키는 행을 원본(member left join team)에서 다시 읽어 덮어쓴다.
+ * 그래서 같은 이벤트를 다시 받거나 배치 안의 순서가 바뀌어도 결과가 같다.
+ * - 회원 변경: 해당 id, 벌크 변경: id 범위를 다시 읽는다.
+ * - 팀 변경(이름 변경 포함): 그 팀에 속한 행의 팀 이름을 다시 읽는다. 벌크 변경은 팀 id 범위로 다시 읽는다.
+ *
+ * 릴레이를 거치므로 원본보다 조금 늦게 반영된다. 반영한 뒤에 바뀐 행의 팀(바뀌기 전/후 이름) 버전을 올려서
+ * 그 사이에 읽기 모델로 만든 응답이 ETag로 계속 재사용되지 않게 한다. 다른 팀의 ETag는 그대로 둔다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.read-model.enabled", havingValue = "true")
+public class MemberTeamReadModelUpdater implements ChangeEventSubscriber {
+
+    private static final int IN_CHUNK = 1000;
+
+    private static final String SELECT_SOURCE = "select m.member_id, m.username, m.age, t.team_id, t.name"
+        + " from member m left join team t on t.team_id = m.team_id";
+    private static final String INSERT = "insert into member_team_read (member_id, username, age, team_id, team_name) ";
+    private static final String TEAM_NAMES = "select distinct team_name from member_team_read where ";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataVersions dataVersions;
+    private final boolean rebuildOnStartup;
+
+    public MemberTeamReadModelUpdater(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+        DataVersions dataVersions,
+        @Value("${querydsl.read-model.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dataVersions = dataVersions;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @Override
+    public String getName() {
+        return "member-team-read-model";
+    }
+
+    /**
+     * 이벤트 없이 들어온 데이터(SQL 스크립트, 외부 적재)가 있을 수 있으므로 기동할 때 한 번 전체를 다시 만든다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAfterStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.getJdbcTemplate().update("delete from member_team_read");
+            int rows = jdbcTemplate.getJdbcTemplate().update(INSERT + SELECT_SOURCE);
+            log.info("member_team_read rebuilt. rows={}", rows);
+        });
+        dataVersions.bumpAll();
+    }
+
+    @Override
+    public void onEvents(List<ChangeEvent> events) {
+        Set<Long> memberIds = new LinkedHashSet<>();
+        Set<Long> teamIds = new LinkedHashSet<>();
+        List<long[]> ranges = new ArrayList<>();
+        List<long[]> teamRanges = new ArrayList<>();
+        for (ChangeEvent event : events) {
+            if (Member.class.getSimpleName().equals(event.getAggregateType())) {
+                if (event.isBulk()) {
+                    ranges.add(new long[]{event.getRangeStart(), event.getRangeEnd()});
+                } else {
+                    memberIds.add(event.getAggregateId());
+                }
+            } else if (Team.class.getSimpleName().equals(event.getAggregateType())) {
+                if (event.isBulk()) {
+                    teamRanges.add(new long[]{event.getRangeStart(), event.getRangeEnd()});
+                } else {
+                    teamIds.add(event.getAggregateId());
+                }
+            }
+        }
+        if (memberIds.isEmpty() && teamIds.isEmpty() && ranges.isEmpty() && teamRanges.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> teamNames = new HashSet<>();
+            for (List<Long> chunk : chunks(memberIds)) {
+                refresh("member_id in (:ids)", new MapSqlParameterSource("ids", chunk), teamNames);
+            }
+            for (long[] range : ranges) {
+                refresh("member_id between :start and :end",
+                    new MapSqlParameterSource("start", range[0]).addValue("end", range[1]), teamNames);
+            }
+            for (List<Long> chunk : chunks(teamIds)) {
+                refreshTeamNames("team_id in (:ids)", new MapSqlParameterSource("ids", chunk), teamNames);
+            }
+            for (long[] range : teamRanges) {
+                refreshTeamNames("team_id between :start and :end",
+                    new MapSqlParameterSource("start", range[0]).addValue("end", range[1]), teamNames);
+            }
+            bumpVersions(teamNames);
+        });
+    }
+
+    /**
+     * 조건에 맞는 행을 지우고 원본에서 다시 넣는다. 원본에서 지워진 회원은 다시 들어가지 않는다.
+     * 지우기 전과 다시 넣은 뒤의 팀 이름을 teamNames 에 모은다.
+     */
+    private void refresh(String where, MapSqlParameterSource parameters, Set<String> teamNames) {
+        collectTeamNames(where, parameters, teamNames);
+        jdbcTemplate.update("delete from member_team_read where " + where, parameters);
+        jdbcTemplate.update(INSERT + SELECT_SOURCE + " where m." + where, parameters);
+        collectTeamNames(where, parameters, teamNames);
+    }
+
+    /**
+     * 조건에 맞는 팀에 속한 행의 팀 이름을 원본에서 다시 읽는다. (지워진 팀은 null)
+     */
+    private void refreshTeamNames(String where, MapSqlParameterSource parameters, Set<String> teamNames) {
+        collectTeamNames(where, parameters, teamNames);
+        jdbcTemplate.update("update member_team_read r"
+                + " set team_name = (select t.name from team t where t.team_id = r.team_id)"
+                + " where r." + where,
+            parameters);
+        collectTeamNames(where, parameters, teamNames);
+    }
+
+    private void collectTeamNames(String where, MapSqlParameterSource parameters, Set<String> teamNames) {
+        teamNames.addAll(jdbcTemplate.queryForList(TEAM_NAMES + where, parameters, String.class));
+    }
+
+    /**
+     * 커밋된 뒤에 올라간다. 팀 없는 회원만 바뀌었으면 전역 버전만 올린다.
+     */
+    private void bumpVersions(Set<String> teamNames) {
+        teamNames.remove(null);
+        if (teamNames.isEmpty()) {
+            dataVersions.bumpGlobal();
+            return;
+        }
+        teamNames.forEach(dataVersions::bumpTeam);
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        List<Long> chunk = new ArrayList<>(Math.min(ids.size(), IN_CHUNK));
+        for (Long id : ids) {
+            chunk.add(id);
+            if (chunk.size() == IN_CHUNK) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(IN_CHUNK);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.readmodel;
+
+import javax.persistence.EntityManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * querydsl.read-model.search-enabled=true 이면 MemberRepositoryCustom 검색을 읽기 모델로 보낸다.
+ * 읽기 모델 갱신(querydsl.read-model.enabled)도 같이 켜야 한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.read-model.search-enabled", havingValue = "true")
+public class ReadModelConfig {
+
+    @Bean
+    public ReadModelMemberRepository readModelMemberRepository(EntityManager em) {
+        return new ReadModelMemberRepository(em);
+    }
+}
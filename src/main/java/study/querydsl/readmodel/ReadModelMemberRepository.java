@@ -0,0 +1,127 @@
+package study.querydsl.readmodel;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.readmodel.QMemberTeamRead.memberTeamRead;
+
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberField;
+import study.querydsl.repository.MemberRepositoryCustom;
+
+/**
+ * 읽기 모델(member_team_read)로 검색한다. team 조인이 없다.
+ * 변경 이벤트가 반영될 때까지(릴레이 주기) 원본보다 늦을 수 있다.
+ */
+public class ReadModelMemberRepository implements MemberRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    public ReadModelMemberRepository(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return contentQuery(condition)
+            .fetch();
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        QueryResults<MemberTeamDto> results = contentQuery(condition)
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetchResults();
+
+        return new PageImpl<>(results.getResults(), pageable, results.getTotal());
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = contentQuery(condition)
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+
+        JPAQuery<Long> countQuery = queryFactory
+            .select(memberTeamRead.memberId)
+            .from(memberTeamRead)
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            );
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+    }
+
+    /**
+     * 전체 필드를 조회한 뒤 요청한 필드만 남긴다. (읽기 모델은 조인이 없다)
+     */
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberField> fields,
+        Pageable pageable) {
+        return searchPageComplex(condition, pageable).map(dto -> MemberField.toMap(dto, fields));
+    }
+
+    @Override
+    public boolean existsByCondition(MemberSearchCondition condition) {
+        return queryFactory
+            .selectOne()
+            .from(memberTeamRead)
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            )
+            .fetchFirst() != null;
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        return queryFactory
+            .select(new QMemberTeamDto(
+                memberTeamRead.memberId,
+                memberTeamRead.username,
+                memberTeamRead.age,
+                memberTeamRead.teamId,
+                memberTeamRead.teamName
+            ))
+            .from(memberTeamRead)
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            );
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? memberTeamRead.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? memberTeamRead.teamName.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? memberTeamRead.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? memberTeamRead.age.loe(ageLoe) : null;
+    }
+}
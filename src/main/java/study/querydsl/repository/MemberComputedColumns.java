@@ -0,0 +1,29 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringExpression;
+import study.querydsl.repository.support.ComputedColumns;
+
+/**
+ * Member 계산 컬럼(username_lower, age_bucket)과 같은 값을 내는 Querydsl 식.
+ * Member 의 columnDefinition 과 같이 맞춘다.
+ */
+public final class MemberComputedColumns {
+
+    /** 나이 구간. age_bucket 컬럼과 같은 식 */
+    public static final StringExpression AGE_BUCKET = new CaseBuilder()
+        .when(member.age.between(0, 20)).then("0~20살")
+        .when(member.age.between(21, 30)).then("21~30살")
+        .otherwise("기타");
+
+    public static final ComputedColumns COLUMNS = new ComputedColumns()
+        .add(member.username.lower(), member.usernameLower)
+        .add(Expressions.stringTemplate("function('lower', {0})", member.username), member.usernameLower)
+        .add(AGE_BUCKET, member.ageBucket);
+
+    private MemberComputedColumns() {
+    }
+}
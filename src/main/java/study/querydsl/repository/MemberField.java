@@ -0,0 +1,115 @@
+package study.querydsl.repository;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 회원 조회 API 의 fields 파라미터(sparse fieldset). 이름은 MemberTeamDto 의 필드와 같다.
+ * 요청한 필드만 select 하고, 팀 이름이 필요 없으면 team 을 조인하지 않는다.
+ * (teamId 는 member.team_id 외래키 컬럼으로 읽는다)
+ */
+public enum MemberField {
+
+    MEMBER_ID("memberId", member.id, false),
+    USERNAME("username", member.username, false),
+    AGE("age", member.age, false),
+    TEAM_ID("teamId", member.team.id, false),
+    TEAM_NAME("teamName", team.name, true);
+
+    private final String fieldName;
+    private final Expression<?> expression;
+    private final boolean needsTeam;
+
+    MemberField(String fieldName, Expression<?> expression, boolean needsTeam) {
+        this.fieldName = fieldName;
+        this.expression = expression;
+        this.needsTeam = needsTeam;
+    }
+
+    /**
+     * "username,teamName" -> [USERNAME, TEAM_NAME]. 순서는 요청 순서, 중복은 한 번만.
+     * 비어 있으면 null (전체 필드). 모르는 필드면 IllegalArgumentException.
+     */
+    public static List<MemberField> parse(String fields) {
+        if (!hasText(fields)) {
+            return null;
+        }
+        Set<MemberField> parsed = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            if (hasText(name)) {
+                parsed.add(of(name.trim()));
+            }
+        }
+        return parsed.isEmpty() ? null : new ArrayList<>(parsed);
+    }
+
+    private static MemberField of(String fieldName) {
+        for (MemberField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown member field: " + fieldName);
+    }
+
+    public static Expression<?>[] projection(List<MemberField> fields) {
+        Expression<?>[] expressions = new Expression<?>[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            expressions[i] = fields.get(i).expression;
+        }
+        return expressions;
+    }
+
+    /**
+     * 필드나 팀 이름 조건이 team 을 참조할 때만 조인한다.
+     */
+    public static boolean needsTeam(List<MemberField> fields, MemberSearchCondition condition) {
+        return hasText(condition.getTeamName()) || fields.stream().anyMatch(field -> field.needsTeam);
+    }
+
+    public static Map<String, Object> toMap(Tuple tuple, List<MemberField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            row.put(fields.get(i).fieldName, tuple.get(i, Object.class));
+        }
+        return row;
+    }
+
+    /**
+     * 전체 필드를 조회한 결과에서 요청한 필드만 남긴다. (동적 projection 을 지원하지 않는 조회용)
+     */
+    public static Map<String, Object> toMap(MemberTeamDto dto, List<MemberField> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (MemberField field : fields) {
+            row.put(field.fieldName, field.valueOf(dto));
+        }
+        return row;
+    }
+
+    private Object valueOf(MemberTeamDto dto) {
+        switch (this) {
+            case MEMBER_ID:
+                return dto.getMemberId();
+            case USERNAME:
+                return dto.getUsername();
+            case AGE:
+                return dto.getAge();
+            case TEAM_ID:
+                return dto.getTeamId();
+            default:
+                return dto.getTeamName();
+        }
+    }
+}
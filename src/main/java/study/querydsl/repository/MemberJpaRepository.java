@@ -5,14 +5,23 @@ import static org.springframework.util.StringUtils.isEmpty;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -20,19 +29,35 @@ import study.querydsl.dto.QMemberDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QTeam;
+import study.querydsl.jfr.RepositoryCallEvent;
+import study.querydsl.outbox.ChangeEventWriter;
+import study.querydsl.repository.support.ComputedColumnQueryFactory;
+import study.querydsl.shard.ShardedMemberRepository;
 
 @Repository
 public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final UsernameFilter usernameFilter;
+    private final ShardedMemberRepository sharded;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, UsernameFilter usernameFilter, ChangeEventWriter changeEventWriter,
+        ObjectProvider<ShardedMemberRepository> sharded) {
         this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
+        this.queryFactory = new ComputedColumnQueryFactory(em, MemberComputedColumns.COLUMNS, changeEventWriter);
+        this.usernameFilter = usernameFilter;
+        this.sharded = sharded.getIfAvailable();
     }
 
+    /**
+     * 샤드 환경이면 팀의 샤드에 저장한다.
+     */
     public void save(Member member) {
+        if (sharded != null) {
+            sharded.save(member);
+            return;
+        }
         em.persist(member);
     }
 
@@ -56,7 +81,13 @@ public class MemberJpaRepository {
             .getResultList();
     }
 
+    /**
+     * UsernameFilter 에 없는 username 은 쿼리 없이 빈 리스트를 돌려준다.
+     */
     public List<Member> findByUsername_querydsl(String username) {
+        if (!usernameFilter.mightExist(em, username)) {
+            return new ArrayList<>();
+        }
         return queryFactory
             .selectFrom(member)
             .where(member.username.eq(username))
@@ -64,6 +95,7 @@ public class MemberJpaRepository {
     }
 
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
+        RepositoryCallEvent event = RepositoryCallEvent.start("MemberJpaRepository.searchByBuilder", condition);
 
         BooleanBuilder builder = new BooleanBuilder();
         if (hasText(condition.getUsername())) {
@@ -79,7 +111,7 @@ public class MemberJpaRepository {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
 
-        return queryFactory
+        List<MemberTeamDto> result = queryFactory
             .select(new QMemberTeamDto(
                 member.id.as("memberId"),
                 member.username,
@@ -91,11 +123,14 @@ public class MemberJpaRepository {
             .leftJoin(member.team, team)
             .where(builder)
             .fetch();
+        event.finish(result.size());
+        return result;
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        RepositoryCallEvent event = RepositoryCallEvent.start("MemberJpaRepository.search", condition);
 
-        return queryFactory
+        List<MemberTeamDto> result = queryFactory
             .select(new QMemberTeamDto(
                 member.id.as("memberId"),
                 member.username,
@@ -112,6 +147,63 @@ public class MemberJpaRepository {
                 ageLoe(condition.getAgeLoe())
             )
             .fetch();
+        event.finish(result.size());
+        return result;
+    }
+
+    /**
+     * fields 로 지정한 필드만 조회한다. 팀 이름(필드, 조건)이 없으면 team 을 조인하지 않는다.
+     */
+    public List<Map<String, Object>> search(MemberSearchCondition condition, List<MemberField> fields) {
+        RepositoryCallEvent event = RepositoryCallEvent.start("MemberJpaRepository.searchFields", condition);
+
+        JPAQuery<Tuple> query = queryFactory
+            .select(MemberField.projection(fields))
+            .from(member);
+        if (MemberField.needsTeam(fields, condition)) {
+            query.leftJoin(member.team, team);
+        }
+        List<Map<String, Object>> result = query
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            )
+            .fetch().stream()
+            .map(tuple -> MemberField.toMap(tuple, fields))
+            .collect(Collectors.toList());
+        event.finish(result.size());
+        return result;
+    }
+
+    /**
+     * 결과를 리스트에 모으지 않고 한 건씩 consumer로 넘긴다. (대량 export 용)
+     * iterate()는 하이버네이트의 scroll을 사용하므로 순회가 끝날 때까지 커넥션을 잡고 있다.
+     */
+    @Transactional(readOnly = true)
+    public void searchStream(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) {
+        try (CloseableIterator<MemberTeamDto> iterator = queryFactory
+            .select(new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+            ))
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            )
+            .iterate()) {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+            }
+        }
     }
 
     private BooleanExpression usernameEq(String username) {
@@ -0,0 +1,89 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.KeyBatches;
+import study.querydsl.repository.support.Querydsl4RepositorySupport;
+import study.querydsl.sql.MemberKeyTable;
+
+/**
+ * 회원 id / 이름 목록(수만 개까지)으로 조회한다. 결과는 넘긴 키 순서대로, 중복 키는 처음 나온 자리에 한 번만.
+ *
+ * - temp-table-threshold 개 이하: batch-size 개씩 padding 한 IN 배치로 나눠 조회한다. (KeyBatches)
+ *   트랜잭션 밖이면 배치들을 parallelism 개씩 fan-out 으로 동시에 실행한다.
+ * - 그보다 많으면: 세션 임시 테이블에 키를 넣고 조인한다. (MemberKeyTable, 트랜잭션이 없으면 연다)
+ */
+@Repository
+public class MemberKeyRepository extends Querydsl4RepositorySupport {
+
+    private final MemberKeyTable memberKeyTable;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int parallelism;
+    private final int tempTableThreshold;
+
+    public MemberKeyRepository(MemberKeyTable memberKeyTable, TransactionTemplate transactionTemplate,
+        @Value("${querydsl.key-search.batch-size:512}") int batchSize,
+        @Value("${querydsl.key-search.parallelism:4}") int parallelism,
+        @Value("${querydsl.key-search.temp-table-threshold:4096}") int tempTableThreshold) {
+        super(Member.class, MemberComputedColumns.COLUMNS);
+        this.memberKeyTable = memberKeyTable;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.tempTableThreshold = tempTableThreshold;
+    }
+
+    public List<MemberTeamDto> searchByIds(Collection<Long> ids) {
+        return search(KeyBatches.distinct(ids), MemberTeamDto::getMemberId,
+            (query, batch) -> contentQuery(query).where(member.id.in(batch)),
+            memberKeyTable::searchByIds);
+    }
+
+    /**
+     * 같은 이름의 회원이 여럿이면 member_id 순
+     */
+    public List<MemberTeamDto> searchByUsernames(Collection<String> usernames) {
+        return search(KeyBatches.distinct(usernames), MemberTeamDto::getUsername,
+            (query, batch) -> contentQuery(query).where(member.username.in(batch)).orderBy(member.id.asc()),
+            memberKeyTable::searchByUsernames);
+    }
+
+    private <K> List<MemberTeamDto> search(List<K> keys, Function<MemberTeamDto, K> keyOf,
+        BiFunction<JPAQueryFactory, List<K>, JPAQuery<MemberTeamDto>> inQuery,
+        Function<List<K>, List<MemberTeamDto>> tempTableQuery) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        if (keys.size() > tempTableThreshold) {
+            return transactionTemplate.execute(status -> tempTableQuery.apply(keys));
+        }
+        return KeyBatches.orderBy(keys, fetchByKeys(keys, batchSize, parallelism, inQuery), keyOf);
+    }
+
+    private static JPAQuery<MemberTeamDto> contentQuery(JPAQueryFactory query) {
+        return query
+            .select(new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+            ))
+            .from(member)
+            .leftJoin(member.team, team);
+    }
+}
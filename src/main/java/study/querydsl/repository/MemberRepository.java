@@ -1,10 +1,17 @@
 package study.querydsl.repository;
 
 import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
 
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom,
+    MemberUsernameRepository {
 
-    List<Member> findByUsername(String username);
+    /**
+     * 팀의 회원을 페이지 단위로 조회한다. (Team.members 컬렉션을 초기화하지 않는다.)
+     */
+    Page<Member> findByTeam(Team team, Pageable pageable);
 }
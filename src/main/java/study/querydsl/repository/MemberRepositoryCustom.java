@@ -1,6 +1,7 @@
 package study.querydsl.repository;
 
 import java.util.List;
+import java.util.Map;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import study.querydsl.dto.MemberSearchCondition;
@@ -11,4 +12,15 @@ public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    /**
+     * fields 로 지정한 필드만 조회한다. (sparse fieldset, 건수 쿼리는 searchPageComplex 처럼 필요할 때만)
+     */
+    Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberField> fields,
+        Pageable pageable);
+
+    /**
+     * 조건에 맞는 회원이 있는지만 본다. (select 1 ... limit 1, count 하지 않는다)
+     */
+    boolean existsByCondition(MemberSearchCondition condition);
 }
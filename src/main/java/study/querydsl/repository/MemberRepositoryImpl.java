@@ -5,12 +5,23 @@ import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -20,17 +31,142 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.jfr.RepositoryCallEvent;
+import study.querydsl.outbox.ChangeEventWriter;
+import study.querydsl.readmodel.ReadModelMemberRepository;
+import study.querydsl.repository.support.ComputedColumnQueryFactory;
+import study.querydsl.repository.support.SingleFlight;
+import study.querydsl.shard.ShardedMemberRepository;
+import study.querydsl.sql.SqlMemberRepository;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final String SINGLE_FLIGHT_METRIC = "member.search.single-flight";
+
     private final JPAQueryFactory queryFactory;
+    private final SingleFlight<List<Object>, List<MemberTeamDto>> searchFlight;
+    private final SingleFlight<List<Object>, Page<MemberTeamDto>> pageFlight;
+    private final SingleFlight<List<Object>, Page<Map<String, Object>>> fieldsFlight;
+    private final MemberRepositoryCustom delegate;
+    private final EntityManager entityManager;
+    private final UsernameFilter usernameFilter;
 
-    public MemberRepositoryImpl(EntityManager entityManager) {
-        this.queryFactory = new JPAQueryFactory(entityManager);
+    /**
+     * 샤딩(querydsl.shard.enabled)을 켜면 조회는 샤드로,
+     * 읽기 모델 검색(querydsl.read-model.search-enabled)을 켜면 member_team_read로,
+     * SQL 검색(querydsl.sql.search-enabled)을 켜면 querydsl-sql로 보낸다.
+     */
+    public MemberRepositoryImpl(EntityManager entityManager, MeterRegistry meterRegistry,
+        @Value("${querydsl.single-flight.max-wait:2s}") Duration maxWait,
+        ObjectProvider<ShardedMemberRepository> shardedMemberRepository,
+        ObjectProvider<ReadModelMemberRepository> readModelMemberRepository,
+        ObjectProvider<SqlMemberRepository> sqlMemberRepository,
+        UsernameFilter usernameFilter, ChangeEventWriter changeEventWriter) {
+        this.entityManager = entityManager;
+        this.usernameFilter = usernameFilter;
+        this.queryFactory = new ComputedColumnQueryFactory(entityManager, MemberComputedColumns.COLUMNS, changeEventWriter);
+        MemberRepositoryCustom sharded = shardedMemberRepository.getIfAvailable();
+        MemberRepositoryCustom readModel = readModelMemberRepository.getIfAvailable();
+        this.delegate = sharded != null ? sharded
+            : readModel != null ? readModel
+            : sqlMemberRepository.getIfAvailable();
+        this.searchFlight = new SingleFlight<>(SINGLE_FLIGHT_METRIC, Tags.of("query", "search"), maxWait, meterRegistry);
+        this.pageFlight = new SingleFlight<>(SINGLE_FLIGHT_METRIC, Tags.of("query", "page"), maxWait, meterRegistry);
+        this.fieldsFlight = new SingleFlight<>(SINGLE_FLIGHT_METRIC, Tags.of("query", "fields"), maxWait, meterRegistry);
     }
 
+    /**
+     * 동시에 들어온 같은 조건의 조회는 쿼리 한 번으로 합친다. 결과는 공유되므로 수정할 수 없는 리스트로 반환한다.
+     * 호출마다 RepositoryCallEvent 를 남긴다. (합쳐진 호출은 기다린 시간이 기록된다)
+     */
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        RepositoryCallEvent event = RepositoryCallEvent.start("MemberRepositoryImpl.search", condition);
+        List<MemberTeamDto> result = searchFlight.execute(searchKey("search", condition, null),
+            () -> Collections.unmodifiableList(searchInternal(condition)));
+        event.finish(result.size());
+        return result;
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        RepositoryCallEvent event = RepositoryCallEvent.start("MemberRepositoryImpl.searchPageSimple", condition);
+        Page<MemberTeamDto> result = pageFlight.execute(searchKey("searchPageSimple", condition, pageable),
+            () -> searchPageSimpleInternal(condition, pageable));
+        event.finish(result.getNumberOfElements());
+        return result;
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        RepositoryCallEvent event = RepositoryCallEvent.start("MemberRepositoryImpl.searchPageComplex", condition);
+        Page<MemberTeamDto> result = pageFlight.execute(searchKey("searchPageComplex", condition, pageable),
+            () -> searchPageComplexInternal(condition, pageable));
+        event.finish(result.getNumberOfElements());
+        return result;
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberField> fields,
+        Pageable pageable) {
+        RepositoryCallEvent event = RepositoryCallEvent.start("MemberRepositoryImpl.searchPageFields", condition);
+        List<Object> key = searchKey("searchPageFields", condition, pageable);
+        key.add(fields);
+        Page<Map<String, Object>> result = fieldsFlight.execute(key,
+            () -> searchPageFieldsInternal(condition, fields, pageable));
+        event.finish(result.getNumberOfElements());
+        return result;
+    }
+
+    /**
+     * username 만 있는 조건은 UsernameFilter 로 먼저 걸러낸다. (가입 시 중복 확인)
+     * 팀 이름 조건이 없으면 team 을 조인하지 않는다. (left join 이라 결과가 같다)
+     */
+    @Override
+    public boolean existsByCondition(MemberSearchCondition condition) {
+        if (delegate != null) {
+            return delegate.existsByCondition(condition);
+        }
+        if (isUsernameOnly(condition) && !usernameFilter.mightExist(entityManager, condition.getUsername())) {
+            return false;
+        }
+        JPAQuery<Integer> query = queryFactory
+            .selectOne()
+            .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        }
+        return query
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            )
+            .fetchFirst() != null;
+    }
+
+    private static boolean isUsernameOnly(MemberSearchCondition condition) {
+        return hasText(condition.getUsername()) && !hasText(condition.getTeamName())
+            && condition.getAgeGoe() == null && condition.getAgeLoe() == null;
+    }
+
+    /**
+     * 빈 문자열 조건은 조건이 없는 것과 같으므로 null로 맞춰서 키를 만든다.
+     */
+    private List<Object> searchKey(String query, MemberSearchCondition condition, Pageable pageable) {
+        return new ArrayList<>(Arrays.asList(query,
+            hasText(condition.getUsername()) ? condition.getUsername() : null,
+            hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+            condition.getAgeGoe(),
+            condition.getAgeLoe(),
+            pageable));
+    }
+
+    private List<MemberTeamDto> searchInternal(MemberSearchCondition condition) {
+        if (delegate != null) {
+            return delegate.search(condition);
+        }
         return queryFactory
             .select(new QMemberTeamDto(
                 member.id.as("memberId"),
@@ -50,8 +186,10 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
             .fetch();
     }
 
-    @Override
-    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+    private Page<MemberTeamDto> searchPageSimpleInternal(MemberSearchCondition condition, Pageable pageable) {
+        if (delegate != null) {
+            return delegate.searchPageSimple(condition, pageable);
+        }
         QueryResults<MemberTeamDto> results = queryFactory
             .select(new QMemberTeamDto(
                 member.id.as("memberId"),
@@ -78,8 +216,10 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         return new PageImpl<>(content, pageable, total);
     }
 
-    @Override
-    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+    private Page<MemberTeamDto> searchPageComplexInternal(MemberSearchCondition condition, Pageable pageable) {
+        if (delegate != null) {
+            return delegate.searchPageComplex(condition, pageable);
+        }
         List<MemberTeamDto> content = queryFactory
             .select(new QMemberTeamDto(
                 member.id.as("memberId"),
@@ -116,6 +256,41 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
     }
 
+    /**
+     * 요청한 필드만 select 하고, 팀 이름(필드, 조건)이 없으면 team 을 조인하지 않는다. 건수 쿼리도 같다.
+     */
+    private Page<Map<String, Object>> searchPageFieldsInternal(MemberSearchCondition condition,
+        List<MemberField> fields, Pageable pageable) {
+        if (delegate != null) {
+            return delegate.searchPageFields(condition, fields, pageable);
+        }
+        JPAQuery<Tuple> contentQuery = queryFactory
+            .select(MemberField.projection(fields))
+            .from(member);
+        JPAQuery<Long> countQuery = queryFactory
+            .select(member.count())
+            .from(member);
+        if (MemberField.needsTeam(fields, condition)) {
+            contentQuery.leftJoin(member.team, team);
+            countQuery.leftJoin(member.team, team);
+        }
+        BooleanExpression[] where = {
+            usernameEq(condition.getUsername()),
+            teamNameEq(condition.getTeamName()),
+            ageGoe(condition.getAgeGoe()),
+            ageLoe(condition.getAgeLoe())
+        };
+        List<Map<String, Object>> content = contentQuery
+            .where(where)
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch().stream()
+            .map(tuple -> MemberField.toMap(tuple, fields))
+            .collect(Collectors.toList());
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.where(where).fetchOne());
+    }
+
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
@@ -4,23 +4,33 @@ import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import java.util.List;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.QTeamStatDto;
+import study.querydsl.dto.TeamStatDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QTeam;
+import study.querydsl.repository.support.QueryFanOut;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
-    public MemberTestRepository() {
-        super(Member.class);
+    private final UsernameFilter usernameFilter;
+
+    public MemberTestRepository(UsernameFilter usernameFilter) {
+        super(Member.class, MemberComputedColumns.COLUMNS);
+        this.usernameFilter = usernameFilter;
     }
 
     public List<Member> basicSelect() {
@@ -80,6 +90,104 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    /**
+     * 대시보드: 회원 페이지, 팀별 통계, 전체 건수를 동시에 조회한다. (fan-out)
+     */
+    public QueryFanOut.Result3<MemberTeamDto, TeamStatDto, Long> dashboard(MemberSearchCondition condition,
+        Pageable pageable) {
+        return fanOut(query -> query
+                .select(new QMemberTeamDto(
+                    member.id.as("memberId"),
+                    member.username,
+                    member.age,
+                    team.id.as("teamId"),
+                    team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                    teamNameEq(condition.getTeamName()),
+                    ageGoe(condition.getAgeGoe()),
+                    ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize()),
+            query -> query
+                .select(new QTeamStatDto(team.name, member.count(), member.age.avg()))
+                .from(member)
+                .join(member.team, team)
+                .where(ageGoe(condition.getAgeGoe()), ageLoe(condition.getAgeLoe()))
+                .groupBy(team.name)
+                .orderBy(team.name.asc()),
+            query -> query
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                    teamNameEq(condition.getTeamName()),
+                    ageGoe(condition.getAgeGoe()),
+                    ageLoe(condition.getAgeLoe())
+                ));
+    }
+
+    public long bulkAddAge(Integer ageGoe, Integer ageLoe, int amount) {
+        return bulkUpdate(ExpressionUtils.allOf(ageGoe(ageGoe), ageLoe(ageLoe)),
+            update -> update.set(member.age, member.age.add(amount)));
+    }
+
+    public long bulkDeleteByAgeLoe(int ageLoe) {
+        return bulkDelete(ageLoe(ageLoe));
+    }
+
+    /**
+     * 리포트용 전체 스캔 (StatelessSession)
+     */
+    public long scanMemberTeam(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) {
+        return scan(query -> query
+            .select(new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+            ))
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            ), consumer);
+    }
+
+    public long scanMembers(Integer ageGoe, Consumer<Member> consumer) {
+        return scan(query -> query
+            .select(member)
+            .from(member)
+            .where(ageGoe(ageGoe)), consumer);
+    }
+
+    /**
+     * StatelessSession 은 엔티티 리스너를 부르지 않으므로 UsernameFilter 에 직접 추가한다.
+     */
+    public long insertAll(Iterable<Member> members) {
+        members.forEach(member -> usernameFilter.add(member.getUsername()));
+        return statelessInsert(members);
+    }
+
+    public long updateAll(Iterable<Member> members) {
+        return statelessUpdate(members);
+    }
+
+    /**
+     * 바뀐 username 을 알 수 없으므로 트랜잭션이 끝나고 다시 스캔할 때까지 UsernameFilter 를 쓰지 않는다.
+     */
+    @Override
+    protected void beforeUnmanagedUpdate() {
+        usernameFilter.invalidate();
+    }
+
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
@@ -0,0 +1,24 @@
+package study.querydsl.repository;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostUpdate;
+import study.querydsl.entity.Member;
+
+/**
+ * 저장/수정된 회원의 username 을 UsernameFilter 에 추가한다.
+ * SQL 이 실행된 뒤(flush)에 추가하므로 커밋 전에도 필터가 먼저 알고 있다.
+ */
+public class MemberUsernameListener {
+
+    private final UsernameFilter usernameFilter;
+
+    public MemberUsernameListener(UsernameFilter usernameFilter) {
+        this.usernameFilter = usernameFilter;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void postWrite(Member member) {
+        usernameFilter.add(member.getUsername());
+    }
+}
@@ -0,0 +1,12 @@
+package study.querydsl.repository;
+
+import java.util.List;
+import study.querydsl.entity.Member;
+
+public interface MemberUsernameRepository {
+
+    /**
+     * UsernameFilter 에 없는 username 은 쿼리 없이 빈 리스트를 돌려준다.
+     */
+    List<Member> findByUsername(String username);
+}
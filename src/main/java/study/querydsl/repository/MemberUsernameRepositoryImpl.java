@@ -0,0 +1,35 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import study.querydsl.entity.Member;
+import study.querydsl.outbox.ChangeEventWriter;
+import study.querydsl.repository.support.ComputedColumnQueryFactory;
+
+public class MemberUsernameRepositoryImpl implements MemberUsernameRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final UsernameFilter usernameFilter;
+
+    public MemberUsernameRepositoryImpl(EntityManager em, UsernameFilter usernameFilter, ChangeEventWriter changeEventWriter) {
+        this.em = em;
+        this.queryFactory = new ComputedColumnQueryFactory(em, MemberComputedColumns.COLUMNS, changeEventWriter);
+        this.usernameFilter = usernameFilter;
+    }
+
+    @Override
+    public List<Member> findByUsername(String username) {
+        if (!usernameFilter.mightExist(em, username)) {
+            return new ArrayList<>();
+        }
+        return queryFactory
+            .selectFrom(member)
+            .where(member.username.eq(username))
+            .fetch();
+    }
+}
@@ -0,0 +1,132 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberCreateRequest;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.WriteBehindQueue;
+
+/**
+ * 회원 가입을 요청마다 트랜잭션 하나로 쓰지 않고, 동시에 들어온 요청을 모아 한 트랜잭션에서 JDBC batch insert 로 쓴다.
+ *
+ * persist 로 저장하므로 엔티티 리스너(버전, 변경 이벤트, UsernameFilter)는 그대로 동작한다.
+ * 돌려주는 future 는 커밋된 뒤에 회원 id 로 완료된다. 큐가 가득 차면 TransientDataAccessResourceException.
+ *
+ * 메트릭: member.write-behind.batch(배치 쓰기 시간), member.write-behind.batch.size,
+ * member.write-behind.queue, member.write-behind.rejected
+ */
+@Component
+public class MemberWriteBehind {
+
+    private static final String METRIC = "member.write-behind";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final WriteBehindQueue<MemberCreateRequest, Long> queue;
+
+    public MemberWriteBehind(EntityManager em, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+        @Value("${querydsl.write-behind.capacity:1000}") int capacity,
+        @Value("${querydsl.write-behind.batch-size:100}") int batchSize,
+        @Value("${querydsl.write-behind.max-delay:5ms}") Duration maxDelay,
+        @Value("${querydsl.write-behind.offer-timeout:50ms}") Duration offerTimeout) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+
+        Timer batchTimer = Timer.builder(METRIC + ".batch").register(meterRegistry);
+        DistributionSummary batchSizes = DistributionSummary.builder(METRIC + ".batch.size").register(meterRegistry);
+        Counter rejected = meterRegistry.counter(METRIC + ".rejected");
+        this.queue = new WriteBehindQueue<>("member-write-behind", capacity, batchSize, maxDelay, offerTimeout,
+            this::insert, new WriteBehindQueue.BatchListener() {
+                @Override
+                public void written(int size, long elapsedNanos) {
+                    batchTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+                    batchSizes.record(size);
+                }
+
+                @Override
+                public void rejected() {
+                    rejected.increment();
+                }
+            });
+        Gauge.builder(METRIC + ".queue", queue, WriteBehindQueue::size).register(meterRegistry);
+    }
+
+    public CompletableFuture<Long> create(MemberCreateRequest request) {
+        return queue.submit(request);
+    }
+
+    /**
+     * 요청의 팀은 한 번의 IN 조회로 가져온다. (팀마다 프록시를 초기화하는 SELECT 가 나가지 않는다)
+     * 없는 팀이 있으면 아무것도 쓰기 전에 EntityNotFoundException -> 하나씩 다시 쓸 때 그 요청만 실패한다.
+     */
+    private List<Long> insert(List<MemberCreateRequest> requests) {
+        return transactionTemplate.execute(status -> {
+            em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            Map<Long, Team> teams = findTeams(requests);
+            List<Member> members = new ArrayList<>(requests.size());
+            for (MemberCreateRequest request : requests) {
+                Team team = request.getTeamId() == null ? null : teams.get(request.getTeamId());
+                Member member = new Member(request.getUsername(), request.getAge(), team);
+                em.persist(member);
+                members.add(member);
+            }
+            em.flush();
+            List<Long> ids = new ArrayList<>(members.size());
+            members.forEach(member -> ids.add(member.getId()));
+            return ids;
+        });
+    }
+
+    private Map<Long, Team> findTeams(List<MemberCreateRequest> requests) {
+        Set<Long> teamIds = requests.stream()
+            .map(MemberCreateRequest::getTeamId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (teamIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Team> teams = queryFactory
+            .selectFrom(team)
+            .where(team.id.in(teamIds))
+            .fetch().stream()
+            .collect(Collectors.toMap(Team::getId, Function.identity()));
+        teamIds.removeAll(teams.keySet());
+        if (!teamIds.isEmpty()) {
+            throw new EntityNotFoundException("Unable to find Team with id " + teamIds);
+        }
+        return teams;
+    }
+
+    @PreDestroy
+    public void close() {
+        queue.close();
+    }
+}
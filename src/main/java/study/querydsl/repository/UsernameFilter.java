@@ -0,0 +1,138 @@
+package study.querydsl.repository;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.repository.support.BloomFilter;
+
+/**
+ * Member.username 의 Bloom filter. 없는 username 조회(가입 시 중복 확인)는 DB 까지 가지 않는다.
+ *
+ * - 시작할 때 member 테이블을 스캔해서 채운다. 스캔이 끝나기 전에는 항상 "있을 수 있음"이다.
+ * - 엔티티 저장/수정은 MemberUsernameListener 가 바로 추가한다.
+ * - 벌크 update, StatelessSession update 는 바뀐 username 을 알 수 없으므로 리포지토리가 실행 전에 invalidate() 를 부른다.
+ *   그 트랜잭션이 끝나고 다시 스캔할 때까지 필터를 쓰지 않는다. (엔티티 수정은 필터를 끄지 않는다)
+ * - JDBC 나 JPAQueryFactory 로 직접 바꾼 회원은 알 수 없으므로 invalidate() 나 rescan() 을 호출한다.
+ */
+@Slf4j
+@Component
+public class UsernameFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BloomFilter filter;
+    private final ExecutorService rescanExecutor =
+        Executors.newSingleThreadExecutor(new CustomizableThreadFactory("username-filter-"));
+    private final AtomicBoolean rescanQueued = new AtomicBoolean();
+    private final AtomicLong invalidated = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private volatile long rescannedThrough = -1;
+
+    public UsernameFilter(JdbcTemplate jdbcTemplate,
+        @Value("${querydsl.username-filter.expected-insertions:10000}") int expectedInsertions,
+        @Value("${querydsl.username-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    /**
+     * false 면 그 username 의 회원은 없다.
+     * 트랜잭션 안에서 아직 flush 하지 않은 변경이 있으면 쿼리의 AUTO flush 결과를 알 수 없으므로 true 다.
+     */
+    public boolean mightExist(EntityManager em, String username) {
+        if (!isUsable()) {
+            return true;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive() && em.unwrap(Session.class).isDirty()) {
+            return true;
+        }
+        return filter.mightContain(username);
+    }
+
+    public boolean isUsable() {
+        return rescannedThrough == invalidated.get();
+    }
+
+    public void add(String username) {
+        if (username != null) {
+            filter.put(username);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescan() {
+        long target = completed.get();
+        jdbcTemplate.query("select username from member", rs -> {
+            add(rs.getString(1));
+        });
+        synchronized (this) {
+            rescannedThrough = Math.max(rescannedThrough, target);
+        }
+        log.debug("username filter rescanned: ~{} usernames, {} segments", filter.approximateCount(),
+            filter.segmentCount());
+    }
+
+    /**
+     * 트랜잭션 안이면 그 트랜잭션이 끝난 뒤에 다시 스캔한다. 그때까지 필터를 쓰지 않는다.
+     */
+    public void invalidate() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidated.incrementAndGet();
+            complete(1);
+            return;
+        }
+        PendingRescan pending = (PendingRescan) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingRescan();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        invalidated.incrementAndGet();
+        pending.count++;
+    }
+
+    private void complete(long count) {
+        completed.addAndGet(count);
+        if (rescanQueued.compareAndSet(false, true)) {
+            rescanExecutor.execute(() -> {
+                rescanQueued.set(false);
+                try {
+                    rescan();
+                } catch (RuntimeException e) {
+                    log.warn("username filter rescan failed", e);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        rescanExecutor.shutdownNow();
+    }
+
+    /**
+     * 커밋(또는 롤백)된 뒤에 스캔해야 바뀐 username 이 보인다.
+     */
+    private class PendingRescan implements TransactionSynchronization {
+
+        private long count;
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(UsernameFilter.this);
+            complete(count);
+        }
+    }
+}
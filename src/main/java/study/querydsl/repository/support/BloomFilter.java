@@ -0,0 +1,134 @@
+package study.querydsl.repository.support;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 문자열 Bloom filter. false 면 확실히 없고, true 면 있을 수도 있다.
+ *
+ * - 처음 용량(expectedInsertions)을 넘으면 두 배 크기의 segment 를 뒤에 붙여서 늘어난다. (scalable bloom filter)
+ *   segment 마다 오탐률을 절반씩 줄여서 전체 오탐률이 falsePositiveRate 를 넘지 않는다.
+ * - 지울 수는 없다. 삭제/이름 변경된 값은 오탐으로 남는다.
+ * - 조회는 락 없이, 추가는 synchronized 로 한다.
+ */
+public class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private volatile Segment[] segments;
+    private long count;
+
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        this.segments = new Segment[]{new Segment(expectedInsertions, falsePositiveRate / 2)};
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        for (Segment segment : segments) {
+            if (segment.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void put(String value) {
+        long hash = hash(value);
+        Segment[] current = segments;
+        for (Segment segment : current) {
+            if (segment.mightContain(hash)) {
+                return;
+            }
+        }
+        Segment last = current[current.length - 1];
+        if (last.count >= last.capacity) {
+            last = new Segment(last.capacity * 2, last.falsePositiveRate / 2);
+            Segment[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = last;
+            segments = grown;
+        }
+        last.put(hash);
+        count++;
+    }
+
+    public synchronized long approximateCount() {
+        return count;
+    }
+
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    public long bitSize() {
+        long bits = 0;
+        for (Segment segment : segments) {
+            bits += segment.numBits;
+        }
+        return bits;
+    }
+
+    /**
+     * FNV-1a 64 + murmur3 fmix64
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static class Segment {
+
+        private final int capacity;
+        private final double falsePositiveRate;
+        private final long numBits;
+        private final int numHashes;
+        private final AtomicLongArray bits;
+        private int count;
+
+        private Segment(int capacity, double falsePositiveRate) {
+            this.capacity = Math.max(capacity, 1);
+            this.falsePositiveRate = falsePositiveRate;
+            this.numBits = Math.max(64, (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (LN2 * LN2)));
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / this.capacity * LN2));
+            this.bits = new AtomicLongArray((int) ((numBits + 63) / 64));
+        }
+
+        /**
+         * 해시 두 개로 k 개를 만든다. (Kirsch-Mitzenmacher)
+         */
+        private boolean mightContain(long hash) {
+            int hash1 = (int) hash;
+            int hash2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashes; i++) {
+                long bit = Math.floorMod(hash1 + (long) i * hash2, numBits);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long hash) {
+            int hash1 = (int) hash;
+            int hash2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashes; i++) {
+                long bit = Math.floorMod(hash1 + (long) i * hash2, numBits);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = bits.get(index);
+                } while ((word & mask) == 0 && !bits.compareAndSet(index, word, word | mask));
+            }
+            count++;
+        }
+    }
+}
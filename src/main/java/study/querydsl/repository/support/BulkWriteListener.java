@@ -0,0 +1,18 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.outbox.ChangeEvent.ChangeType;
+
+/**
+ * ComputedColumnQueryFactory 로 만든 벌크 update/delete 가 실행되기 직전에 불린다.
+ * 같은 트랜잭션에서 조건에 맞는 행을 아직 조회할 수 있다.
+ */
+public interface BulkWriteListener {
+
+    BulkWriteListener NONE = (queryFactory, entity, changeType, where) -> {
+    };
+
+    void beforeBulkWrite(JPAQueryFactory queryFactory, EntityPath<?> entity, ChangeType changeType, Predicate where);
+}
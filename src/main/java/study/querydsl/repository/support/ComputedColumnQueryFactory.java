@@ -0,0 +1,203 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import java.util.List;
+import javax.persistence.EntityManager;
+import study.querydsl.jfr.JpqlRenderEvent;
+import study.querydsl.jfr.QueryFetchEvent;
+import study.querydsl.outbox.ChangeEvent.ChangeType;
+
+/**
+ * JPQL 을 만들 때 ComputedColumns 에 등록한 식을 계산 컬럼으로 바꿔 쓰는 JPAQueryFactory.
+ * 예) lower(member.username) = ?1  ->  member.usernameLower = ?1 (인덱스를 탄다)
+ * 조회 쿼리(select, 서브쿼리 포함)만 바꾼다. update/delete 절은 그대로다.
+ * 쿼리 실행과 JPQL 생성은 JFR 이벤트(QueryFetchEvent, JpqlRenderEvent)로 남긴다.
+ * update/delete 는 실행 직전에 BulkWriteListener 를 부른다. (변경 이벤트 기록)
+ */
+public class ComputedColumnQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final ComputedColumns columns;
+    private final BulkWriteListener bulkWriteListener;
+
+    public ComputedColumnQueryFactory(EntityManager em, ComputedColumns columns) {
+        this(em, columns, BulkWriteListener.NONE);
+    }
+
+    public ComputedColumnQueryFactory(EntityManager em, ComputedColumns columns, BulkWriteListener bulkWriteListener) {
+        super(em);
+        this.em = em;
+        this.columns = columns;
+        this.bulkWriteListener = bulkWriteListener;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new Query<Void>(em, JPAProvider.getTemplates(em), columns);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new JPAUpdateClause(em, path, JPAProvider.getTemplates(em)) {
+
+            private Predicate where;
+
+            @Override
+            public JPAUpdateClause where(Predicate... o) {
+                where = ExpressionUtils.allOf(where, ExpressionUtils.allOf(o));
+                return super.where(o);
+            }
+
+            @Override
+            public long execute() {
+                bulkWriteListener.beforeBulkWrite(ComputedColumnQueryFactory.this, path, ChangeType.BULK_UPDATED, where);
+                return super.execute();
+            }
+        };
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new JPADeleteClause(em, path, JPAProvider.getTemplates(em)) {
+
+            private Predicate where;
+
+            @Override
+            public JPADeleteClause where(Predicate... o) {
+                where = ExpressionUtils.allOf(where, ExpressionUtils.allOf(o));
+                return super.where(o);
+            }
+
+            @Override
+            public long execute() {
+                bulkWriteListener.beforeBulkWrite(ComputedColumnQueryFactory.this, path, ChangeType.BULK_DELETED, where);
+                return super.execute();
+            }
+        };
+    }
+
+    private static class Query<T> extends JPAQuery<T> {
+
+        private final ComputedColumns columns;
+
+        private Query(EntityManager em, JPQLTemplates templates, ComputedColumns columns) {
+            super(em, templates);
+            this.columns = columns;
+        }
+
+        private Query(EntityManager em, JPQLTemplates templates, QueryMetadata metadata, ComputedColumns columns) {
+            super(em, templates, metadata);
+            this.columns = columns;
+        }
+
+        @Override
+        protected JPQLSerializer createSerializer() {
+            return new Serializer(getTemplates(), entityManager, columns);
+        }
+
+        @Override
+        protected JPQLSerializer serialize(boolean forCount) {
+            JpqlRenderEvent event = JpqlRenderEvent.start();
+            JPQLSerializer serializer = super.serialize(forCount);
+            event.finish(serializer, forCount);
+            return serializer;
+        }
+
+        @Override
+        public List<T> fetch() {
+            QueryFetchEvent event = QueryFetchEvent.start();
+            try {
+                List<T> rows = super.fetch();
+                event.setRows(rows.size());
+                return rows;
+            } finally {
+                event.finish();
+            }
+        }
+
+        @Override
+        public T fetchOne() throws NonUniqueResultException {
+            QueryFetchEvent event = QueryFetchEvent.start();
+            try {
+                T row = super.fetchOne();
+                event.setRows(row != null ? 1 : 0);
+                return row;
+            } finally {
+                event.finish();
+            }
+        }
+
+        @Override
+        public long fetchCount() {
+            QueryFetchEvent event = QueryFetchEvent.start();
+            try {
+                long count = super.fetchCount();
+                event.setRows(1);
+                return count;
+            } finally {
+                event.finish();
+            }
+        }
+
+        @Override
+        public QueryResults<T> fetchResults() {
+            QueryFetchEvent event = QueryFetchEvent.start();
+            try {
+                QueryResults<T> results = super.fetchResults();
+                event.setRows(results.getResults().size());
+                return results;
+            } finally {
+                event.finish();
+            }
+        }
+
+        @Override
+        public Query<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+            Query<T> query = new Query<>(entityManager, templates, getMetadata().clone(), columns);
+            query.clone(this);
+            return query;
+        }
+
+        @Override
+        public Query<T> clone(EntityManager entityManager) {
+            return clone(entityManager, JPAProvider.getTemplates(entityManager));
+        }
+    }
+
+    private static class Serializer extends JPQLSerializer {
+
+        private final ComputedColumns columns;
+
+        private Serializer(JPQLTemplates templates, EntityManager em, ComputedColumns columns) {
+            super(templates, em);
+            this.columns = columns;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Void context) {
+            Path<?> column = columns.columnFor(expr);
+            return column != null ? column.accept(this, context) : super.visit(expr, context);
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Void context) {
+            Path<?> column = columns.columnFor(expr);
+            return column != null ? column.accept(this, context) : super.visit(expr, context);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.TemplateExpression;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 식 -> DB 계산 컬럼 목록.
+ * 쿼리의 식이 등록한 식과 같으면(별칭은 달라도 된다) 그 자리에 컬럼 경로를 쓴다.
+ * 등록한 식과 컬럼 정의(columnDefinition)가 같은 값을 내는지는 등록하는 쪽이 맞춘다.
+ */
+public class ComputedColumns {
+
+    /** 연산자(Operator) 또는 템플릿(Template) 별로 나눠 두고 비교할 후보를 줄인다. */
+    private final Map<Object, List<Definition>> definitions = new HashMap<>();
+
+    public ComputedColumns add(Expression<?> expression, Path<?> column) {
+        Path<?> root = singleRoot(expression);
+        if (root == null || !column.getRoot().equals(root)) {
+            throw new IllegalArgumentException("식과 컬럼은 같은 엔티티 경로 하나만 참조해야 합니다: " + expression);
+        }
+        definitions.computeIfAbsent(keyOf(expression), k -> new ArrayList<>())
+            .add(new Definition(expression, column, root));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return definitions.isEmpty();
+    }
+
+    /**
+     * 식과 같은 계산 컬럼이 있으면 식이 참조하는 별칭 기준의 컬럼 경로, 없으면 null
+     */
+    public Path<?> columnFor(Expression<?> expression) {
+        List<Definition> candidates = definitions.get(keyOf(expression));
+        if (candidates == null) {
+            return null;
+        }
+        Path<?> root = singleRoot(expression);
+        if (root == null) {
+            return null;
+        }
+        for (Definition definition : candidates) {
+            if (definition.root.getType().equals(root.getType())
+                && rebase(expression, root, definition.root).equals(definition.expression)) {
+                return (Path<?>) rebase(definition.column, definition.root, root);
+            }
+        }
+        return null;
+    }
+
+    private static Object keyOf(Expression<?> expression) {
+        if (expression instanceof Operation) {
+            return ((Operation<?>) expression).getOperator();
+        } else if (expression instanceof TemplateExpression) {
+            return ((TemplateExpression<?>) expression).getTemplate();
+        }
+        return expression;
+    }
+
+    /**
+     * 식이 참조하는 루트 경로가 하나면 그 경로, 아니면 null
+     */
+    private static Path<?> singleRoot(Expression<?> expression) {
+        List<Path<?>> roots = new ArrayList<>();
+        if (!collectRoots(expression, roots) || roots.size() != 1) {
+            return null;
+        }
+        return roots.get(0);
+    }
+
+    private static boolean collectRoots(Object expression, List<Path<?>> roots) {
+        if (expression instanceof Path) {
+            Path<?> root = ((Path<?>) expression).getRoot();
+            if (!roots.contains(root)) {
+                roots.add(root);
+            }
+            return true;
+        } else if (expression instanceof Operation) {
+            return ((Operation<?>) expression).getArgs().stream().allMatch(arg -> collectRoots(arg, roots));
+        } else if (expression instanceof TemplateExpression) {
+            return ((TemplateExpression<?>) expression).getArgs().stream().allMatch(arg -> collectRoots(arg, roots));
+        }
+        // 상수, 템플릿의 문자열 인자 외(서브쿼리 등)는 비교하지 않는다.
+        return expression instanceof Constant || !(expression instanceof Expression);
+    }
+
+    private static Expression<?> rebase(Expression<?> expression, Path<?> from, Path<?> to) {
+        if (from.equals(to)) {
+            return expression;
+        }
+        if (expression instanceof Path) {
+            return rebasePath((Path<?>) expression, from, to);
+        } else if (expression instanceof Operation) {
+            Operation<?> operation = (Operation<?>) expression;
+            List<Expression<?>> args = new ArrayList<>();
+            operation.getArgs().forEach(arg -> args.add(rebase(arg, from, to)));
+            return ExpressionUtils.operation(operation.getType(), operation.getOperator(), args.toArray(new Expression<?>[0]));
+        } else if (expression instanceof TemplateExpression) {
+            TemplateExpression<?> template = (TemplateExpression<?>) expression;
+            List<Object> args = new ArrayList<>();
+            template.getArgs().forEach(arg -> args.add(arg instanceof Expression ? rebase((Expression<?>) arg, from, to) : arg));
+            return ExpressionUtils.template(template.getType(), template.getTemplate(), args.toArray());
+        }
+        return expression;
+    }
+
+    private static Path<?> rebasePath(Path<?> path, Path<?> from, Path<?> to) {
+        if (path.equals(from)) {
+            return to;
+        }
+        PathMetadata metadata = path.getMetadata();
+        if (metadata.getParent() == null) {
+            return path;
+        }
+        Path<?> parent = rebasePath(metadata.getParent(), from, to);
+        return ExpressionUtils.path(path.getType(), new PathMetadata(parent, metadata.getElement(), metadata.getPathType()));
+    }
+
+    private static class Definition {
+
+        private final Expression<?> expression;
+        private final Path<?> column;
+        private final Path<?> root;
+
+        private Definition(Expression<?> expression, Path<?> column, Path<?> root) {
+            this.expression = expression;
+            this.column = column;
+            this.root = root;
+        }
+    }
+}
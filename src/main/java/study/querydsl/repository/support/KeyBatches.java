@@ -0,0 +1,71 @@
+package study.querydsl.repository.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.springframework.util.Assert;
+
+/**
+ * 키 목록으로 IN 조회할 때 쓰는 도구
+ *
+ * - partition: 키를 max-size 개씩 나누고 배치마다 크기를 2의 거듭제곱으로 맞춘다. (마지막 키를 반복해서 채운다)
+ *   IN 파라미터 개수가 1, 2, 4, ... max-size 중 하나가 되므로 SQL 모양이 몇 개로 고정되어 쿼리 플랜/statement 캐시에 남는다.
+ * - orderBy: 결과를 호출한 쪽이 준 키 순서대로 다시 줄 세운다.
+ */
+public final class KeyBatches {
+
+    private KeyBatches() {
+    }
+
+    /**
+     * null 과 중복을 뺀다. 순서는 처음 나온 순서
+     */
+    public static <K> List<K> distinct(Collection<K> keys) {
+        Set<K> distinct = new LinkedHashSet<>(keys);
+        distinct.remove(null);
+        return new ArrayList<>(distinct);
+    }
+
+    public static <K> List<List<K>> partition(List<K> keys, int maxSize) {
+        Assert.isTrue(maxSize > 0 && Integer.bitCount(maxSize) == 1, "maxSize must be a power of two");
+        List<List<K>> batches = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += maxSize) {
+            List<K> batch = new ArrayList<>(keys.subList(from, Math.min(from + maxSize, keys.size())));
+            K last = batch.get(batch.size() - 1);
+            int padded = padded(batch.size());
+            while (batch.size() < padded) {
+                batch.add(last);
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /** size 이상인 가장 작은 2의 거듭제곱 */
+    static int padded(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * rows 를 keys 순서로 정렬한다. 키 하나에 여러 행이면 rows 에 있던 순서를 유지하고, 없는 키는 건너뛴다.
+     */
+    public static <K, T> List<T> orderBy(List<K> keys, Collection<T> rows, Function<T, K> keyOf) {
+        Map<K, List<T>> byKey = new LinkedHashMap<>();
+        for (T row : rows) {
+            byKey.computeIfAbsent(keyOf.apply(row), key -> new ArrayList<>(1)).add(row);
+        }
+        List<T> ordered = new ArrayList<>(rows.size());
+        for (K key : keys) {
+            List<T> matched = byKey.remove(key);
+            if (matched != null) {
+                ordered.addAll(matched);
+            }
+        }
+        return ordered;
+    }
+}
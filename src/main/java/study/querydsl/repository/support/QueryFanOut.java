@@ -0,0 +1,215 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * 서로 독립인 조회 여러 개를 동시에 실행한다. (대시보드처럼 페이지 + 통계 + 건수를 한 번에 보여줄 때)
+ *
+ * - 쿼리마다 EntityManager(커넥션)를 따로 열고 닫는다. 호출한 쪽 트랜잭션에는 참여하지 않으므로
+ *   아직 flush/커밋하지 않은 변경은 보이지 않는다. 결과 엔티티는 준영속이라 지연 로딩이 안 된다. (DTO 로 조회한다)
+ * - 동시에 받을 수 있는 쿼리 수(pool-size + queue-size)가 정해져 있다. 넘으면 TransientDataAccessResourceException 으로
+ *   바로 실패한다. 쿼리들은 한꺼번에 받거나 한꺼번에 거절한다.
+ * - 전체 쿼리가 하나의 마감 시간(timeout)을 같이 쓴다. 넘거나 하나라도 실패하면 나머지는 취소하고
+ *   실행 중인 쿼리는 Session.cancelQuery() 로 멈춘다. 마감을 넘기면 QueryTimeoutException.
+ *   취소한 쿼리도 실제로 끝날 때까지는 자리(스레드, 커넥션)를 차지한 것으로 센다.
+ *
+ * 쿼리 하나가 커넥션 하나를 쓰므로 pool-size 는 커넥션 풀 크기보다 넉넉히 작게 잡는다.
+ */
+@Component
+public class QueryFanOut {
+
+    private static final String TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore permits;
+    private final Duration timeout;
+
+    public QueryFanOut(EntityManagerFactory entityManagerFactory,
+        @Value("${querydsl.fan-out.pool-size:4}") int poolSize,
+        @Value("${querydsl.fan-out.queue-size:64}") int queueSize,
+        @Value("${querydsl.fan-out.timeout:2s}") Duration timeout) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.timeout = timeout;
+        // 받을 수 있는 쿼리 수는 permits 로 제한한다. 큐 용량을 queue-size 로 잡으면 쉬고 있는 스레드가 아직 작업을
+        // 가져가지 않은 순간에도 거절되므로 permits 와 같은 크기로 잡는다. (permits 를 넘어서 쌓이지는 않는다)
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(poolSize + queueSize), new CustomizableThreadFactory("query-fan-out-"),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.permits = new Semaphore(poolSize + queueSize);
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 쿼리들을 동시에 실행하고 같은 순서로 fetch() 결과를 돌려준다.
+     */
+    public List<List<?>> fetch(ComputedColumns columns, Duration timeout,
+        List<Function<JPAQueryFactory, ? extends JPAQuery<?>>> queries) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<Task> tasks = new ArrayList<>();
+        List<Future<List<?>>> futures = new ArrayList<>();
+        if (!permits.tryAcquire(queries.size())) {
+            throw new TransientDataAccessResourceException("Query fan-out executor is saturated");
+        }
+        try {
+            for (Function<JPAQueryFactory, ? extends JPAQuery<?>> query : queries) {
+                Task task = new Task(columns, query, deadline);
+                FutureTask<List<?>> future = new FutureTask<>(task);
+                tasks.add(task);
+                futures.add(future);
+                executor.execute(future);
+            }
+        } catch (RejectedExecutionException e) {
+            permits.release(queries.size() - futures.size());
+            cancel(tasks, futures);
+            throw new TransientDataAccessResourceException("Query fan-out executor is shut down", e);
+        }
+
+        List<List<?>> results = new ArrayList<>();
+        try {
+            for (Future<List<?>> future : futures) {
+                results.add(future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            cancel(tasks, futures);
+            throw new QueryTimeoutException("Query fan-out exceeded " + timeout.toMillis() + "ms", e);
+        } catch (ExecutionException e) {
+            cancel(tasks, futures);
+            throw e.getCause() instanceof RuntimeException
+                ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            cancel(tasks, futures);
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Query fan-out interrupted", e);
+        }
+    }
+
+    private void cancel(List<Task> tasks, List<Future<List<?>>> futures) {
+        futures.forEach(future -> future.cancel(true));
+        tasks.forEach(Task::cancel);
+        // 취소된 작업이 큐 자리를 차지하지 않도록 바로 뺀다.
+        executor.purge();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private class Task implements Callable<List<?>> {
+
+        private final ComputedColumns columns;
+        private final Function<JPAQueryFactory, ? extends JPAQuery<?>> query;
+        private final long deadline;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private volatile Session session;
+
+        private Task(ComputedColumns columns, Function<JPAQueryFactory, ? extends JPAQuery<?>> query, long deadline) {
+            this.columns = columns;
+            this.query = query;
+            this.deadline = deadline;
+        }
+
+        /**
+         * permit 은 실행을 시작한 쪽(call)이 쿼리가 끝난 뒤에 돌려준다. 시작하기 전에 취소되면 cancel() 이 돌려준다.
+         * future 가 취소되어도 실행 중인 쿼리는 cancelQuery() 가 먹힐 때까지 커넥션을 쥐고 있으므로 그때 돌려주면 안 된다.
+         */
+        @Override
+        public List<?> call() {
+            if (!claimed.compareAndSet(false, true)) {
+                throw new QueryTimeoutException("Query fan-out task was cancelled before execution");
+            }
+            try {
+                return execute();
+            } finally {
+                permits.release();
+            }
+        }
+
+        private List<?> execute() {
+            EntityManager em = entityManagerFactory.createEntityManager();
+            try {
+                session = em.unwrap(Session.class);
+                session.setDefaultReadOnly(true);
+                JPAQuery<?> jpaQuery = query.apply(new ComputedColumnQueryFactory(em, columns));
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (cancelled || remaining <= 0) {
+                    throw new QueryTimeoutException("Query fan-out deadline passed before execution");
+                }
+                // 드라이버 타임아웃은 초 단위라 1초 아래로는 내려가지 않는다. 그보다 짧은 마감은 cancel() 이 맡는다.
+                return jpaQuery.setHint(TIMEOUT_HINT, (int) Math.max(remaining, 1000)).fetch();
+            } finally {
+                session = null;
+                em.close();
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            if (claimed.compareAndSet(false, true)) {
+                permits.release();
+                return;
+            }
+            Session running = session;
+            if (running != null) {
+                try {
+                    running.cancelQuery();
+                } catch (RuntimeException ignored) {
+                    // 이미 끝났거나 실행 중인 쿼리가 없다.
+                }
+            }
+        }
+    }
+
+    /** 쿼리 두 개의 결과 */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Result2<A, B> {
+
+        private final List<A> first;
+        private final List<B> second;
+    }
+
+    /** 쿼리 세 개의 결과 */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Result3<A, B, C> {
+
+        private final List<A> first;
+        private final List<B> second;
+        private final List<C> third;
+    }
+}
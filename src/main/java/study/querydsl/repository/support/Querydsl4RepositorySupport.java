@@ -1,15 +1,28 @@
 package study.querydsl.repository.support;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.hibernate.HibernateQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
@@ -17,19 +30,36 @@ import org.springframework.data.jpa.repository.support.JpaEntityInformationSuppo
 import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
+import study.querydsl.jfr.RepositoryCallEvent;
+import study.querydsl.outbox.ChangeEvent.ChangeType;
+import study.querydsl.outbox.ChangeEventWriter;
 
 public class Querydsl4RepositorySupport {
 
     private final Class domainClass;
+    private final ComputedColumns computedColumns;
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
-
+    private PathBuilder<?> builder;
+    private ChangeEventWriter changeEventWriter;
+    private SessionFactory sessionFactory;
+    private int scanFetchSize = 1000;
+    private QueryFanOut queryFanOut;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
+        this(domainClass, new ComputedColumns());
+    }
+
+    /**
+     * computedColumns 에 등록한 식은 조회 쿼리에서 계산 컬럼으로 바꿔 쓴다. (ComputedColumnQueryFactory)
+     */
+    public Querydsl4RepositorySupport(Class<?> domainClass, ComputedColumns computedColumns) {
         Assert.notNull(domainClass, "Domain class must not be null!");
         this.domainClass = domainClass;
+        this.computedColumns = computedColumns;
     }
 
     @Autowired
@@ -40,9 +70,30 @@ public class Querydsl4RepositorySupport {
         SimpleEntityPathResolver resolver = SimpleEntityPathResolver.INSTANCE;
         EntityPath path = resolver.createPath(entityInformation.getJavaType());
         this.entityManager = entityManager;
-        this.querydsl = new Querydsl(entityManager, new
-            PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.builder = new PathBuilder<>(path.getType(), path.getMetadata());
+        this.querydsl = new Querydsl(entityManager, builder);
+        this.queryFactory = new ComputedColumnQueryFactory(entityManager, computedColumns,
+            (factory, entity, changeType, where) -> {
+                if (changeEventWriter != null) {
+                    changeEventWriter.beforeBulkWrite(factory, entity, changeType, where);
+                }
+            });
+        this.sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+    }
+
+    @Autowired(required = false)
+    public void setChangeEventWriter(ChangeEventWriter changeEventWriter) {
+        this.changeEventWriter = changeEventWriter;
+    }
+
+    @Autowired(required = false)
+    public void setQueryFanOut(QueryFanOut queryFanOut) {
+        this.queryFanOut = queryFanOut;
+    }
+
+    @Value("${querydsl.stateless.fetch-size:1000}")
+    public void setScanFetchSize(int scanFetchSize) {
+        this.scanFetchSize = scanFetchSize;
     }
 
     @PostConstruct
@@ -74,21 +125,175 @@ public class Querydsl4RepositorySupport {
 
     protected <T> Page<T> applyPagination(Pageable pageable,
         Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        RepositoryCallEvent event = RepositoryCallEvent.start();
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable,
             jpaQuery).fetch();
-        return PageableExecutionUtils.getPage(content, pageable,
+        Page<T> page = PageableExecutionUtils.getPage(content, pageable,
             jpaQuery::fetchCount);
+        event.finish(content.size());
+        return page;
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable,
         Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
         JPAQuery> countQuery) {
+        RepositoryCallEvent event = RepositoryCallEvent.start();
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable,
             jpaContentQuery).fetch();
         JPAQuery countResult = countQuery.apply(getQueryFactory());
-        return PageableExecutionUtils.getPage(content, pageable,
+        Page<T> page = PageableExecutionUtils.getPage(content, pageable,
             countResult::fetchCount);
+        event.finish(content.size());
+        return page;
+    }
+
+    /**
+     * 서로 독립인 조회를 동시에 실행한다. 쿼리마다 EntityManager(커넥션)를 따로 쓰고 마감 시간을 같이 쓴다.
+     * 지연 시간이 쿼리 시간의 합이 아니라 가장 느린 쿼리에 가까워진다. 제약은 QueryFanOut 참고
+     */
+    protected <A, B> QueryFanOut.Result2<A, B> fanOut(Function<JPAQueryFactory, JPAQuery<A>> first,
+        Function<JPAQueryFactory, JPAQuery<B>> second) {
+        List<List<?>> results = fanOut(List.of(first, second));
+        return new QueryFanOut.Result2<>(cast(results.get(0)), cast(results.get(1)));
+    }
+
+    protected <A, B, C> QueryFanOut.Result3<A, B, C> fanOut(Function<JPAQueryFactory, JPAQuery<A>> first,
+        Function<JPAQueryFactory, JPAQuery<B>> second, Function<JPAQueryFactory, JPAQuery<C>> third) {
+        List<List<?>> results = fanOut(List.of(first, second, third));
+        return new QueryFanOut.Result3<>(cast(results.get(0)), cast(results.get(1)), cast(results.get(2)));
+    }
+
+    private List<List<?>> fanOut(List<Function<JPAQueryFactory, ? extends JPAQuery<?>>> queries) {
+        Assert.state(queryFanOut != null, "QueryFanOut must not be null!");
+        return queryFanOut.fetch(computedColumns, queryFanOut.getTimeout(), queries);
+    }
+
+    /**
+     * 키 목록을 IN 배치(KeyBatches.partition)로 나눠 조회하고 결과를 이어 붙인다. 순서는 보장하지 않는다.
+     * 트랜잭션 밖이고 배치가 여러 개면 parallelism 개씩 fan-out 으로 동시에 실행한다.
+     * 트랜잭션 안에서는 아직 커밋하지 않은 변경이 보이도록 호출한 쪽 EntityManager 로 차례로 실행한다.
+     */
+    protected <K, T> List<T> fetchByKeys(List<K> keys, int batchSize, int parallelism,
+        BiFunction<JPAQueryFactory, List<K>, JPAQuery<T>> query) {
+        List<List<K>> batches = KeyBatches.partition(keys, batchSize);
+        List<T> rows = new ArrayList<>(keys.size());
+        if (batches.size() == 1 || queryFanOut == null
+            || TransactionSynchronizationManager.isActualTransactionActive()) {
+            for (List<K> batch : batches) {
+                rows.addAll(query.apply(getQueryFactory(), batch).fetch());
+            }
+            return rows;
+        }
+        for (int from = 0; from < batches.size(); from += parallelism) {
+            List<Function<JPAQueryFactory, ? extends JPAQuery<?>>> wave = new ArrayList<>();
+            for (List<K> batch : batches.subList(from, Math.min(from + parallelism, batches.size()))) {
+                wave.add(factory -> query.apply(factory, batch));
+            }
+            for (List<?> result : fanOut(wave)) {
+                rows.addAll(cast(result));
+            }
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> cast(List<?> result) {
+        return (List<T>) result;
+    }
+
+    /**
+     * 벌크 update. 실행 전에 조건에 맞는 id 범위를 구해서 변경 이벤트(BULK_UPDATED)로 남긴다. (ChangeEventWriter)
+     * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 필요하면 호출한 쪽에서 flush/clear 한다.
+     */
+    protected long bulkUpdate(Predicate where, Function<JPAUpdateClause, JPAUpdateClause> set) {
+        beforeUnmanagedUpdate();
+        return set.apply(getQueryFactory().update(builder).where(where)).execute();
+    }
+
+    protected long bulkDelete(Predicate where) {
+        return getQueryFactory().delete(builder).where(where).execute();
+    }
+
+    /**
+     * 벌크 update, StatelessSession update 직전에 불린다. 엔티티 리스너를 거치지 않는 변경을 알아야 하면 재정의한다.
+     */
+    protected void beforeUnmanagedUpdate() {
+    }
+
+    /**
+     * StatelessSession 으로 조회 결과를 한 건씩 consumer 에 넘긴다. (리포트/배치용 전체 스캔)
+     * 영속성 컨텍스트에 쌓지 않으므로 메모리가 행 수와 상관없이 일정하다.
+     * 지연 로딩은 되지 않으므로 연관 엔티티가 필요하면 fetch join 하거나 DTO 로 조회한다.
+     * 트랜잭션 안이면 그 커넥션을 쓴다. (아직 flush 하지 않은 변경은 보이지 않는다)
+     */
+    protected <T> long scan(Function<HibernateQuery<?>, HibernateQuery<T>> query, Consumer<? super T> consumer) {
+        RepositoryCallEvent event = RepositoryCallEvent.start();
+        long rows = withStatelessSession(session -> {
+            long count = 0;
+            try (CloseableIterator<T> iterator = query.apply(new HibernateQuery<>(session))
+                .setFetchSize(scanFetchSize)
+                .setReadOnly(true)
+                .iterate()) {
+                while (iterator.hasNext()) {
+                    consumer.accept(iterator.next());
+                    count++;
+                }
+            }
+            return count;
+        });
+        event.finish(rows);
+        return rows;
+    }
+
+    /**
+     * StatelessSession 대량 쓰기. 엔티티마다 바로 insert/update/delete 를 실행한다.
+     * dirty checking, cascade, 엔티티 리스너가 없으므로 변경 이벤트는 여기서 직접 기록한다.
+     * 변경 이벤트와 원자적으로 커밋되도록 스프링 트랜잭션 안에서만 호출할 수 있다.
+     */
+    protected long statelessInsert(Iterable<?> entities) {
+        return statelessWrite(entities, ChangeType.CREATED, StatelessSession::insert);
+    }
+
+    protected long statelessUpdate(Iterable<?> entities) {
+        return statelessWrite(entities, ChangeType.UPDATED, StatelessSession::update);
+    }
+
+    protected long statelessDelete(Iterable<?> entities) {
+        return statelessWrite(entities, ChangeType.DELETED, StatelessSession::delete);
+    }
+
+    private long statelessWrite(Iterable<?> entities, ChangeType changeType, BiConsumer<StatelessSession, Object> write) {
+        Assert.state(TransactionSynchronizationManager.isActualTransactionActive(),
+            "Stateless writes require an active transaction");
+        if (changeType == ChangeType.UPDATED) {
+            beforeUnmanagedUpdate();
+        }
+        return withStatelessSession(session -> {
+            long count = 0;
+            for (Object entity : entities) {
+                write.accept(session, entity);
+                if (changeEventWriter != null) {
+                    changeEventWriter.entityChanged(Hibernate.getClass(entity).getSimpleName(),
+                        (Long) sessionFactory.getPersistenceUnitUtil().getIdentifier(entity), changeType);
+                }
+                count++;
+            }
+            return count;
+        });
+    }
+
+    private <R> R withStatelessSession(Function<StatelessSession, R> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+                try (StatelessSession session = sessionFactory.openStatelessSession(connection)) {
+                    return work.apply(session);
+                }
+            });
+        }
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return work.apply(session);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 같은 키로 동시에 들어온 조회를 하나로 합친다. (single-flight)
+ *
+ * - 먼저 들어온 요청(leader)이 쿼리를 실행하고, 나머지(follower)는 그 결과를 같이 받는다.
+ * - follower는 maxWait 까지만 기다리고, 넘으면 직접 쿼리를 실행한다.
+ * - 기다리는 중에 인터럽트되면 CancellationException으로 대기를 취소한다.
+ * - 트랜잭션 안에서의 호출은 합치지 않는다. (커밋 전 데이터가 다른 요청에 공유되지 않도록)
+ *
+ * 결과 객체는 여러 요청이 공유하므로 호출하는 쪽에서 수정하면 안 된다.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration maxWait;
+    private final Counter executed;
+    private final Counter coalesced;
+    private final Counter timedOut;
+    private final Counter bypassed;
+
+    public SingleFlight(String name, Tags tags, Duration maxWait, MeterRegistry meterRegistry) {
+        this.maxWait = maxWait;
+        this.executed = counter(meterRegistry, name, tags, "executed");
+        this.coalesced = counter(meterRegistry, name, tags, "coalesced");
+        this.timedOut = counter(meterRegistry, name, tags, "timeout");
+        this.bypassed = counter(meterRegistry, name, tags, "bypassed");
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            bypassed.increment();
+            return loader.get();
+        }
+
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing == null) {
+            return lead(key, flight, loader);
+        }
+
+        coalesced.increment();
+        try {
+            return existing.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            CancellationException cancelled = new CancellationException("single-flight wait cancelled: " + key);
+            cancelled.initCause(e);
+            throw cancelled;
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V lead(K key, CompletableFuture<V> flight, Supplier<V> loader) {
+        executed.increment();
+        try {
+            V result = loader.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, Tags tags, String result) {
+        return Counter.builder(name)
+            .tags(tags)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,282 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.dsl.CaseForEqBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+
+/**
+ * 집계 서브쿼리(max, min, avg, sum, count)를 실행 전에 풀어서 바깥 쿼리를 서브쿼리 없이 실행한다.
+ *
+ * - 상관 없는 서브쿼리: 먼저 한 번 실행하고 결과 값을 바깥 쿼리에 넣는다. (2단계 실행)
+ * - sub.key = outer.key 로만 상관된 서브쿼리: key 별로 group by 한 집계를 먼저 구하고,
+ *   바깥 쿼리에는 case outer.key when k1 then v1 ... end 로 넣는다. (행마다 서브쿼리를 실행하지 않는다)
+ *   그룹 수가 maxGroups 를 넘으면 바꾸지 않는다.
+ *
+ * where 절과 select 절만 본다. 그 밖의 모양(join, group by, 다른 상관 조건 등)은 그대로 둔다.
+ * 집계 값은 재작성 시점에 고정되므로 반환된 쿼리는 바로 실행한다.
+ */
+public class SubqueryRewriter {
+
+    private static final Set<Ops.AggOps> AGGREGATES = EnumSet.of(
+        Ops.AggOps.MAX_AGG, Ops.AggOps.MIN_AGG, Ops.AggOps.AVG_AGG, Ops.AggOps.SUM_AGG, Ops.AggOps.COUNT_AGG);
+
+    private final EntityManager em;
+    private final int maxGroups;
+
+    public SubqueryRewriter(EntityManager em) {
+        this(em, 1000);
+    }
+
+    public SubqueryRewriter(EntityManager em, int maxGroups) {
+        this.em = em;
+        this.maxGroups = maxGroups;
+    }
+
+    public <T> JPAQuery<T> rewrite(JPAQuery<T> query) {
+        QueryMetadata metadata = query.getMetadata().clone();
+        Visitor visitor = new Visitor();
+
+        Predicate where = metadata.getWhere();
+        if (where != null) {
+            metadata.clearWhere();
+            metadata.addWhere((Predicate) where.accept(visitor, Position.WHERE));
+        }
+        Expression<?> projection = metadata.getProjection();
+        if (projection != null) {
+            metadata.setProjection(projection.accept(visitor, Position.SELECT));
+        }
+        return new JPAQuery<>(em, metadata);
+    }
+
+    /**
+     * select 절에는 파라미터를 둘 수 없으므로(Hibernate) 숫자 리터럴로 넣는다.
+     */
+    private enum Position {
+        WHERE, SELECT
+    }
+
+    private class Visitor extends ReplaceVisitor<Position> {
+
+        @Override
+        public Expression<?> visit(SubQueryExpression<?> expr, Position position) {
+            Expression<?> rewritten = rewriteAggregate(expr, position);
+            return rewritten != null ? rewritten : super.visit(expr, position);
+        }
+    }
+
+    private Expression<?> rewriteAggregate(SubQueryExpression<?> subQuery, Position position) {
+        QueryMetadata metadata = subQuery.getMetadata();
+        Expression<?> projection = unwrap(metadata.getProjection());
+        if (metadata.getJoins().size() != 1 || !metadata.getGroupBy().isEmpty() || metadata.getHaving() != null
+            || metadata.getModifiers().isRestricting() || !isAggregate(projection)) {
+            return null;
+        }
+        Path<?> root = metadata.getJoins().get(0).getTarget() instanceof Path
+            ? ((Path<?>) metadata.getJoins().get(0).getTarget()).getRoot() : null;
+        if (root == null || !rootsOf(projection).equals(Set.of(root))) {
+            return null;
+        }
+
+        List<Predicate> local = new ArrayList<>();
+        Operation<?> correlation = null;
+        for (Predicate predicate : conjuncts(metadata.getWhere())) {
+            Set<Path<?>> roots = rootsOf(predicate);
+            if (roots.equals(Set.of(root)) || roots.isEmpty()) {
+                local.add(predicate);
+            } else if (correlation == null && isCorrelation(predicate, root)) {
+                correlation = (Operation<?>) predicate;
+            } else {
+                return null;
+            }
+        }
+
+        Class<?> type = subQuery.getType();
+        boolean count = ((Operation<?>) projection).getOperator() == Ops.AggOps.COUNT_AGG;
+        if (correlation == null) {
+            QueryMetadata aggregate = metadata.clone();
+            Object value = new JPAQuery<>(em, aggregate).fetchOne();
+            return value(value, type, position);
+        }
+
+        Path<?> left = (Path<?>) correlation.getArg(0);
+        Path<?> right = (Path<?>) correlation.getArg(1);
+        Path<?> innerKey = left.getRoot().equals(root) ? left : right;
+        Path<?> outerKey = innerKey == left ? right : left;
+        innerKey = keyOf(innerKey);
+        outerKey = keyOf(outerKey);
+
+        QueryMetadata grouped = new DefaultQueryMetadata();
+        grouped.addJoin(JoinType.DEFAULT, metadata.getJoins().get(0).getTarget());
+        local.forEach(grouped::addWhere);
+        grouped.addGroupBy(innerKey);
+        grouped.setProjection(Projections.tuple(innerKey, projection));
+        grouped.setLimit((long) maxGroups + 1);
+        @SuppressWarnings("unchecked")
+        List<Tuple> rows = (List<Tuple>) (List<?>) new JPAQuery<>(em, grouped).fetch();
+        if (rows.size() > maxGroups) {
+            return null;
+        }
+        return lookup(outerKey, rows, type, count, position);
+    }
+
+    /**
+     * case outer.key when k1 then v1 ... else (count 면 0, 아니면 null) end
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Expression<?> lookup(Path<?> outerKey, List<Tuple> rows, Class<?> type, boolean count, Position position) {
+        Expression<?> otherwise = count ? value(0L, type, position) : Expressions.nullExpression(type);
+        if (otherwise == null) {
+            return null;
+        }
+        CaseForEqBuilder.Cases cases = null;
+        for (Tuple row : rows) {
+            Object key = row.get(0, Object.class);
+            Expression<?> value = value(row.get(1, Object.class), type, position);
+            if (key == null) {
+                continue;
+            }
+            if (value == null) {
+                return null;
+            }
+            Expression keyExpression = value(key, key.getClass(), position);
+            if (keyExpression == null) {
+                return null;
+            }
+            cases = cases == null
+                ? new CaseForEqBuilder(outerKey, keyExpression).then(value)
+                : cases.when(keyExpression).then(value);
+        }
+        return cases == null ? otherwise : (Expression<?>) cases.otherwise(otherwise);
+    }
+
+    private Expression<?> value(Object value, Class<?> type, Position position) {
+        if (value == null) {
+            return Expressions.nullExpression(type);
+        }
+        if (position == Position.WHERE) {
+            return Expressions.constant(value);
+        }
+        String literal = numberLiteral(value);
+        return literal != null ? Expressions.template(value.getClass(), literal) : null;
+    }
+
+    private static String numberLiteral(Object value) {
+        if (value instanceof Integer) {
+            return value.toString();
+        } else if (value instanceof Long) {
+            return value + "L";
+        } else if (value instanceof Double) {
+            return value + "D";
+        }
+        return null;
+    }
+
+    /**
+     * 엔티티 경로면 식별자 경로로 바꾼다. (sub.team = member.team -> sub.team.id, member.team.id)
+     */
+    private Path<?> keyOf(Path<?> path) {
+        EntityType<?> entityType;
+        try {
+            entityType = em.getMetamodel().entity(path.getType());
+        } catch (IllegalArgumentException e) {
+            return path;
+        }
+        Class<?> idType = entityType.getIdType().getJavaType();
+        String idName = entityType.getId(idType).getName();
+        return Expressions.path(idType, PathMetadataFactory.forProperty(path, idName));
+    }
+
+    /**
+     * 숫자 서브쿼리의 projection 은 NumberConversion(FactoryExpression)으로 감싸져 있다.
+     */
+    private static Expression<?> unwrap(Expression<?> projection) {
+        if (projection instanceof FactoryExpression && ((FactoryExpression<?>) projection).getArgs().size() == 1) {
+            return ((FactoryExpression<?>) projection).getArgs().get(0);
+        }
+        return projection;
+    }
+
+    private static boolean isAggregate(Expression<?> projection) {
+        return projection instanceof Operation
+            && ((Operation<?>) projection).getOperator() instanceof Ops.AggOps
+            && AGGREGATES.contains(((Operation<?>) projection).getOperator());
+    }
+
+    private static boolean isCorrelation(Predicate predicate, Path<?> root) {
+        if (!(predicate instanceof Operation) || ((Operation<?>) predicate).getOperator() != Ops.EQ) {
+            return false;
+        }
+        Operation<?> operation = (Operation<?>) predicate;
+        if (!(operation.getArg(0) instanceof Path) || !(operation.getArg(1) instanceof Path)) {
+            return false;
+        }
+        boolean leftInner = ((Path<?>) operation.getArg(0)).getRoot().equals(root);
+        boolean rightInner = ((Path<?>) operation.getArg(1)).getRoot().equals(root);
+        return leftInner != rightInner;
+    }
+
+    private static List<Predicate> conjuncts(Predicate predicate) {
+        if (predicate == null) {
+            return List.of();
+        }
+        if (predicate instanceof Operation && ((Operation<?>) predicate).getOperator() == Ops.AND) {
+            List<Predicate> result = new ArrayList<>();
+            for (Expression<?> arg : ((Operation<?>) predicate).getArgs()) {
+                result.addAll(conjuncts((Predicate) arg));
+            }
+            return result;
+        }
+        return List.of(predicate);
+    }
+
+    private static Set<Path<?>> rootsOf(Expression<?> expression) {
+        Set<Path<?>> roots = new HashSet<>();
+        collectRoots(expression, roots);
+        return roots;
+    }
+
+    private static void collectRoots(Expression<?> expression, Set<Path<?>> roots) {
+        if (expression instanceof Path) {
+            roots.add(((Path<?>) expression).getRoot());
+        } else if (expression instanceof Operation) {
+            ((Operation<?>) expression).getArgs().forEach(arg -> collectRoots(arg, roots));
+        } else if (expression instanceof TemplateExpression) {
+            for (Object arg : ((TemplateExpression<?>) expression).getArgs()) {
+                if (arg instanceof Expression) {
+                    collectRoots((Expression<?>) arg, roots);
+                }
+            }
+        } else if (expression instanceof FactoryExpression) {
+            ((FactoryExpression<?>) expression).getArgs().forEach(arg -> collectRoots(arg, roots));
+        } else if (expression instanceof SubQueryExpression) {
+            // 중첩 서브쿼리는 바깥 경로를 참조하는지 따로 따지지 않고 바꾸지 않는다.
+            roots.add(ExpressionUtils.path(Object.class, "nested"));
+        } else if (!(expression instanceof Constant) && expression != null) {
+            roots.add(ExpressionUtils.path(Object.class, "unknown"));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package study.querydsl.repository.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * 쓰기 요청을 메모리 큐에 모았다가 한 번에 쓴다. (write-behind)
+ *
+ * - 쓰기 스레드 하나가 큐에서 꺼내 batch-size 개가 모이거나 첫 요청 후 max-delay 가 지나면 writer 를 호출한다.
+ *   부하가 클수록 한 번에 쓰는 개수가 커진다.
+ * - writer 는 받은 요청을 한 트랜잭션으로 쓰고 같은 순서로 결과를 돌려준다.
+ *   실패하면 요청을 하나씩 다시 써서 실패한 요청만 실패시킨다.
+ * - 큐가 가득 차면 offer-timeout 동안 기다리고, 그래도 자리가 없으면 TransientDataAccessResourceException.
+ * - close() 는 새 요청을 받지 않고 큐에 남은 요청까지 쓴 뒤에 끝난다.
+ */
+@Slf4j
+public class WriteBehindQueue<T, R> implements AutoCloseable {
+
+    private final BlockingQueue<Pending<T, R>> queue;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final long offerTimeoutNanos;
+    private final Function<List<T>, List<R>> writer;
+    private final BatchListener listener;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    public WriteBehindQueue(String name, int capacity, int batchSize, Duration maxDelay, Duration offerTimeout,
+        Function<List<T>, List<R>> writer, BatchListener listener) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.writer = writer;
+        this.listener = listener;
+        this.thread = new CustomizableThreadFactory(name + "-").newThread(this::run);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public CompletableFuture<R> submit(T item) {
+        if (closed) {
+            throw new TransientDataAccessResourceException("Write-behind queue is closed");
+        }
+        Pending<T, R> pending = new Pending<>(item);
+        boolean offered;
+        try {
+            offered = queue.offer(pending, offerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientDataAccessResourceException("Interrupted while waiting for write-behind queue", e);
+        }
+        if (!offered) {
+            listener.rejected();
+            throw new TransientDataAccessResourceException("Write-behind queue is full");
+        }
+        return pending.future;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<Pending<T, R>> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending<T, R> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    // 이미 쌓여 있는 요청은 기다리지 않고 가져간다.
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Pending<T, R> next = remaining > 0 && !closed ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 남은 요청은 마저 쓰고 끝낸다.
+                closed = true;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending<T, R>> batch) {
+        List<T> items = new ArrayList<>(batch.size());
+        batch.forEach(pending -> items.add(pending.item));
+        long start = System.nanoTime();
+        try {
+            List<R> results = writer.apply(items);
+            listener.written(batch.size(), System.nanoTime() - start);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            log.debug("Write-behind batch of {} failed, retrying one by one", batch.size(), e);
+            for (Pending<T, R> pending : batch) {
+                write(List.of(pending));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // 쓰는 중인 트랜잭션을 깨지 않도록 interrupt 하지 않는다. poll 이 짧게 끝나므로 곧 루프를 빠져나온다.
+        closed = true;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending<T, R> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(
+                new TransientDataAccessResourceException("Write-behind queue is closed"));
+        }
+    }
+
+    /** 메트릭용 콜백 */
+    public interface BatchListener {
+
+        void written(int size, long elapsedNanos);
+
+        void rejected();
+    }
+
+    private static class Pending<T, R> {
+
+        private final T item;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        private Pending(T item) {
+            this.item = item;
+        }
+    }
+}
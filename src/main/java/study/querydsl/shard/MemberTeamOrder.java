@@ -0,0 +1,82 @@
+package study.querydsl.shard;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * MemberTeamDto의 정렬을 SQL(order by)과 메모리(Comparator) 양쪽에 같은 의미로 만든다.
+ *
+ * 샤드별로 정렬한 결과를 합칠 때 두 정렬이 어긋나면 페이지가 틀려지므로
+ * null은 항상 마지막에 두고, 마지막에 memberId로 순서를 고정한다.
+ */
+enum MemberTeamOrder {
+
+    MEMBER_ID("memberId", member.id, MemberTeamDto::getMemberId),
+    USERNAME("username", member.username, MemberTeamDto::getUsername),
+    AGE("age", member.age, MemberTeamDto::getAge),
+    TEAM_ID("teamId", team.id, MemberTeamDto::getTeamId),
+    TEAM_NAME("teamName", team.name, MemberTeamDto::getTeamName);
+
+    private final String property;
+    private final ComparableExpressionBase<?> path;
+    private final Function<MemberTeamDto, ? extends Comparable<?>> getter;
+
+    MemberTeamOrder(String property, ComparableExpressionBase<?> path,
+        Function<MemberTeamDto, ? extends Comparable<?>> getter) {
+        this.property = property;
+        this.path = path;
+        this.getter = getter;
+    }
+
+    static OrderSpecifier<?>[] orderSpecifiers(Sort sort) {
+        List<OrderSpecifier<?>> specifiers = new ArrayList<>();
+        for (Sort.Order order : withTieBreaker(sort)) {
+            MemberTeamOrder column = of(order.getProperty());
+            specifiers.add(new OrderSpecifier<>(order.isAscending() ? Order.ASC : Order.DESC, column.path)
+                .nullsLast());
+        }
+        return specifiers.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    static Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> comparator = null;
+        for (Sort.Order order : withTieBreaker(sort)) {
+            Comparator<MemberTeamDto> next = of(order.getProperty()).comparator(order.isAscending());
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparator<MemberTeamDto> comparator(boolean ascending) {
+        Comparator<Comparable> values = ascending ? Comparator.naturalOrder() : Comparator.reverseOrder();
+        return Comparator.comparing((Function) getter, Comparator.nullsLast(values));
+    }
+
+    private static List<Sort.Order> withTieBreaker(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>(sort.toList());
+        if (orders.stream().noneMatch(order -> order.getProperty().equals(MEMBER_ID.property))) {
+            orders.add(Sort.Order.asc(MEMBER_ID.property));
+        }
+        return orders;
+    }
+
+    private static MemberTeamOrder of(String property) {
+        for (MemberTeamOrder column : values()) {
+            if (column.property.equals(property)) {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort property: " + property);
+    }
+}
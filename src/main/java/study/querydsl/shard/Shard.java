@@ -0,0 +1,127 @@
+package study.querydsl.shard;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.repository.MemberComputedColumns;
+import study.querydsl.repository.support.ComputedColumnQueryFactory;
+
+/**
+ * 샤드 하나 (데이터소스 + EntityManagerFactory)
+ *
+ * 스프링 트랜잭션(기본 데이터소스) 안에서 쓰면 샤드의 로컬 트랜잭션을 그 트랜잭션에 묶는다.
+ * - 같은 스프링 트랜잭션 안의 쓰기와 조회는 샤드마다 EntityManager 하나를 같이 쓴다.
+ * - 쓰기는 바로 flush 한다. 엔티티 리스너가 남기는 변경 이벤트(outbox)와 버전 증가는 기본 데이터소스의 트랜잭션에 들어간다.
+ * - 샤드는 기본 데이터소스가 커밋하기 직전(beforeCommit)에 커밋한다. 샤드 커밋이 실패하면 기본 데이터소스도 롤백되고,
+ *   기본 데이터소스가 롤백되면 샤드도 롤백된다. 버전은 둘 다 커밋된 뒤에 올라간다. (DataVersions)
+ *   XA 가 아니므로 샤드가 커밋된 뒤 기본 데이터소스 커밋이 실패하는 경우는 남는다.
+ * 스프링 트랜잭션 밖에서는 호출마다 EntityManager를 열고 닫는다.
+ */
+public class Shard {
+
+    private final int index;
+    private final HikariDataSource dataSource;
+    private final LocalContainerEntityManagerFactoryBean factoryBean;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public Shard(int index, HikariDataSource dataSource, LocalContainerEntityManagerFactoryBean factoryBean) {
+        this.index = index;
+        this.dataSource = dataSource;
+        this.factoryBean = factoryBean;
+        this.entityManagerFactory = factoryBean.getObject();
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    public <T> T query(Function<JPAQueryFactory, T> query) {
+        ShardTransaction transaction = (ShardTransaction) TransactionSynchronizationManager.getResource(this);
+        if (transaction != null) {
+            return query.apply(new ComputedColumnQueryFactory(transaction.em, MemberComputedColumns.COLUMNS));
+        }
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return query.apply(new ComputedColumnQueryFactory(em, MemberComputedColumns.COLUMNS));
+        } finally {
+            em.close();
+        }
+    }
+
+    public void inTransaction(Consumer<EntityManager> work) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            ShardTransaction transaction = (ShardTransaction) TransactionSynchronizationManager.getResource(this);
+            if (transaction == null) {
+                transaction = new ShardTransaction(entityManagerFactory.createEntityManager());
+                TransactionSynchronizationManager.bindResource(this, transaction);
+                TransactionSynchronizationManager.registerSynchronization(transaction);
+            }
+            work.accept(transaction.em);
+            transaction.em.flush();
+            return;
+        }
+        EntityManager em = entityManagerFactory.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            work.accept(em);
+            tx.commit();
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    public void close() {
+        factoryBean.destroy();
+        dataSource.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Shard(" + index + ", " + dataSource.getJdbcUrl() + ")";
+    }
+
+    private class ShardTransaction implements TransactionSynchronization {
+
+        private final EntityManager em;
+
+        ShardTransaction(EntityManager em) {
+            this.em = em;
+            em.getTransaction().begin();
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            em.getTransaction().commit();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(Shard.this);
+            try {
+                EntityTransaction tx = em.getTransaction();
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+            } finally {
+                em.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package study.querydsl.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * 샤드 설정 (querydsl.shard.enabled=true 일 때만)
+ *
+ * querydsl.shard.urls 에 나열한 DB마다 데이터소스와 EntityManagerFactory를 만든다.
+ * 스키마를 새로 만드는 경우(ddl-auto: create) 샤드 i의 시퀀스를 "i부터 샤드 수만큼 증가"로 바꿔서
+ * 샤드에서 만든 id가 항상 id % 샤드 수 == i 가 되게 한다. 이미 있는 DB를 쓸 때는 시퀀스를 같은 규칙으로 만들어 두어야 한다.
+ * MemberRepository 에는 ShardedMemberRepositoryInterceptor 를 붙인다. (샤딩을 끄면 SimpleJpaRepository 그대로)
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.shard.enabled", havingValue = "true")
+public class ShardConfig {
+
+    /**
+     * 리포지토리 프록시는 팩토리 빈의 afterPropertiesSet 에서 만들어지므로 그 전에 인터셉터를 등록한다.
+     * 트랜잭션 인터셉터보다 안쪽에 붙는다.
+     */
+    @Bean
+    public static BeanPostProcessor shardedMemberRepositoryPostProcessor(
+        ObjectProvider<ShardedMemberRepository> shardedMemberRepository) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport
+                    && ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).getObjectType() == MemberRepository.class) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory -> factory
+                        .addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> proxyFactory
+                            .addAdvice(new ShardedMemberRepositoryInterceptor(shardedMemberRepository))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ShardedMemberRepository shardedMemberRepository(ConfigurableListableBeanFactory beanFactory,
+        ObjectProvider<HibernatePropertiesCustomizer> hibernateCustomizers,
+        @Value("${querydsl.shard.urls}") String[] urls,
+        @Value("${querydsl.shard.username:sa}") String username,
+        @Value("${querydsl.shard.password:}") String password,
+        @Value("${querydsl.shard.pool-size:5}") int poolSize,
+        @Value("${querydsl.shard.ddl-auto:create}") String ddlAuto) {
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < urls.length; i++) {
+            Shard shard = createShard(beanFactory, hibernateCustomizers, i, urls[i].trim(), username, password, poolSize, ddlAuto);
+            if (ddlAuto.startsWith("create")) {
+                int start = i == 0 ? urls.length : i;
+                new JdbcTemplate(shard.getDataSource()).execute(
+                    "alter sequence hibernate_sequence restart with " + start + " increment by " + urls.length);
+            }
+            shards.add(shard);
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(urls.length, urls.length * 2, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1000), new CustomizableThreadFactory("shard-query-"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        return new ShardedMemberRepository(shards, ShardDirectory.scan(shards), executor);
+    }
+
+    private Shard createShard(ConfigurableListableBeanFactory beanFactory,
+        ObjectProvider<HibernatePropertiesCustomizer> hibernateCustomizers, int index, String url,
+        String username, String password, int poolSize, String ddlAuto) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("shard-" + index);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(poolSize);
+
+        // 엔티티 리스너를 스프링 빈으로 만들고, 테이블/컬럼 이름은 기본 데이터소스와 같은 규칙을 쓴다.
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AvailableSettings.HBM2DDL_AUTO, ddlAuto);
+        properties.put(AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beanFactory));
+        properties.put(AvailableSettings.PHYSICAL_NAMING_STRATEGY, SpringPhysicalNamingStrategy.class.getName());
+        properties.put(AvailableSettings.IMPLICIT_NAMING_STRATEGY, SpringImplicitNamingStrategy.class.getName());
+        // 기본 데이터소스와 같은 StatementInspector(DataVersions 등), JFR 리스너
+        hibernateCustomizers.orderedStream().forEach(customizer -> customizer.customize(properties));
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setPersistenceUnitName("shard-" + index);
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(Member.class.getPackage().getName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(properties);
+        factoryBean.afterPropertiesSet();
+        return new Shard(index, dataSource, factoryBean);
+    }
+}
@@ -0,0 +1,54 @@
+package study.querydsl.shard;
+
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 팀 이름 -> 샤드 디렉터리
+ *
+ * 같은 이름의 팀이 여러 샤드에 있을 수 있으므로 샤드 집합을 가진다.
+ * 이름이 바뀐 팀의 예전 항목은 지우지 않는다. 조회 조건에 팀 이름이 들어가므로
+ * 남은 항목은 샤드 하나를 더 조회하게 할 뿐 결과를 틀리게 하지는 않는다.
+ */
+public class ShardDirectory {
+
+    private final ConcurrentMap<String, Set<Integer>> teamShards = new ConcurrentHashMap<>();
+
+    /**
+     * 모든 샤드의 팀 이름을 읽어서 디렉터리를 만든다.
+     */
+    public static ShardDirectory scan(List<Shard> shards) {
+        ShardDirectory directory = new ShardDirectory();
+        for (Shard shard : shards) {
+            List<String> names = shard.query(queryFactory -> queryFactory
+                .select(team.name)
+                .from(team)
+                .fetch());
+            names.forEach(name -> directory.register(name, shard.getIndex()));
+        }
+        return directory;
+    }
+
+    public void register(String teamName, int shardIndex) {
+        if (teamName != null) {
+            teamShards.computeIfAbsent(teamName, key -> Collections.synchronizedSet(new TreeSet<>()))
+                .add(shardIndex);
+        }
+    }
+
+    public Set<Integer> shardsOf(String teamName) {
+        Set<Integer> shards = teamShards.get(teamName);
+        if (shards == null) {
+            return Collections.emptySet();
+        }
+        synchronized (shards) {
+            return new TreeSet<>(shards);
+        }
+    }
+}
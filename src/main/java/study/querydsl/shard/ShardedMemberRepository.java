@@ -0,0 +1,388 @@
+package study.querydsl.shard;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberField;
+import study.querydsl.repository.MemberRepositoryCustom;
+
+/**
+ * team_id로 샤딩한 회원 저장소
+ *
+ * - 팀과 그 팀의 회원은 같은 샤드(team_id % 샤드 수)에 저장한다. 팀이 없는 회원은 0번 샤드에 저장한다.
+ * - 조건에 팀 이름이 있으면 디렉터리로 찾은 샤드만 조회하고, 없거나 디렉터리에 없는 이름이면 모든 샤드를 병렬로 조회한다.
+ *   (다른 인스턴스가 방금 만든 팀은 디렉터리에 아직 없을 수 있다)
+ * - MemberRepository 의 save/saveAll/delete, findById/findByUsername/findByTeam, MemberJpaRepository.save 도 이곳으로 온다.
+ *   (ShardedMemberRepositoryInterceptor) 스프링 트랜잭션 안에서 부르면 샤드 쓰기가 그 트랜잭션에 묶인다. (Shard)
+ * - 페이지 조회는 샤드마다 offset + size 건을 같은 정렬로 가져와서 병합 정렬한 뒤 전역 offset을 적용한다.
+ *   (페이지가 깊어질수록 샤드마다 읽는 양이 늘어난다.)
+ * - 전체 개수는 샤드별 count의 합이다. 모든 샤드의 결과가 한 페이지 안에 다 들어오면 count 쿼리를 생략한다.
+ */
+public class ShardedMemberRepository implements MemberRepositoryCustom {
+
+    private final List<Shard> shards;
+    private final ShardDirectory directory;
+    private final ExecutorService executor;
+    private final AtomicInteger nextTeamShard = new AtomicInteger();
+
+    public ShardedMemberRepository(List<Shard> shards, ShardDirectory directory, ExecutorService executor) {
+        this.shards = shards;
+        this.directory = directory;
+        this.executor = executor;
+    }
+
+    /**
+     * 새 팀은 샤드에 돌아가며 배정한다. 샤드의 시퀀스가 샤드 번호와 같은 나머지의 id만 만들기 때문에
+     * 저장된 팀의 id로 다시 같은 샤드를 찾을 수 있다.
+     */
+    public Team save(Team team) {
+        Shard shard = team.getId() == null
+            ? shards.get(Math.floorMod(nextTeamShard.getAndIncrement(), shards.size()))
+            : shardOf(team.getId());
+        if (team.getId() == null) {
+            shard.inTransaction(em -> em.persist(team));
+        } else {
+            shard.inTransaction(em -> em.merge(team));
+        }
+        directory.register(team.getName(), shard.getIndex());
+        return team;
+    }
+
+    public <S extends Member> S save(S member) {
+        Shard shard = shardOf(member);
+        if (member.getId() == null) {
+            shard.inTransaction(em -> em.persist(member));
+        } else {
+            shard.inTransaction(em -> em.merge(member));
+        }
+        return member;
+    }
+
+    public void delete(Member member) {
+        if (member.getId() == null) {
+            return;
+        }
+        shardOf(member).inTransaction(em -> {
+            Member existing = em.find(Member.class, member.getId());
+            if (existing != null) {
+                em.remove(existing);
+            }
+        });
+    }
+
+    /**
+     * 회원 id 도 샤드 번호와 같은 나머지로 만들어지므로 샤드 하나만 본다.
+     * 트랜잭션 밖에서는 조회가 끝나면 EntityManager 를 닫으므로 팀을 같이 읽는다.
+     */
+    public Optional<Member> findById(Long id) {
+        return Optional.ofNullable(shardOf(id).query(queryFactory -> queryFactory
+            .selectFrom(member)
+            .leftJoin(member.team, team).fetchJoin()
+            .where(member.id.eq(id))
+            .fetchOne()));
+    }
+
+    public List<Member> findByUsername(String username) {
+        return scatter(shards, queryFactory -> queryFactory
+            .selectFrom(member)
+            .leftJoin(member.team, team).fetchJoin()
+            .where(member.username.eq(username))
+            .fetch())
+            .stream()
+            .flatMap(List::stream)
+            .sorted(Comparator.comparing(Member::getId))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 팀의 회원은 팀과 같은 샤드에 있다. 팀이 없으면(null) 팀 없는 회원이 있는 0번 샤드를 본다.
+     */
+    public Page<Member> findByTeam(Team memberTeam, Pageable pageable) {
+        Shard shard = memberTeam == null ? shards.get(0) : shardOf(memberTeam.getId());
+        BooleanExpression teamEq = memberTeam == null ? member.team.isNull() : member.team.id.eq(memberTeam.getId());
+        return shard.query(queryFactory -> {
+            JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(teamEq)
+                .orderBy(orderSpecifiers(pageable.getSort()));
+            if (pageable.isPaged()) {
+                query.offset(pageable.getOffset()).limit(pageable.getPageSize());
+            }
+            List<Member> content = query.fetch();
+            return PageableExecutionUtils.getPage(content, pageable, () -> queryFactory
+                .selectFrom(member)
+                .where(teamEq)
+                .fetchCount());
+        });
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        List<List<MemberTeamDto>> results = scatter(route(condition), queryFactory -> contentQuery(queryFactory, condition)
+            .fetch());
+        return results.stream()
+            .flatMap(List::stream)
+            .sorted(MemberTeamOrder.comparator(Sort.unsorted()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 샤드 환경에서는 searchPageComplex와 같은 방식으로 조회한다.
+     */
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return searchPage(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPage(condition, pageable);
+    }
+
+    private Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        List<Shard> targets = route(condition);
+        if (pageable.isUnpaged()) {
+            List<MemberTeamDto> content = search(condition);
+            content.sort(MemberTeamOrder.comparator(pageable.getSort()));
+            return new PageImpl<>(content, pageable, content.size());
+        }
+
+        long window = pageable.getOffset() + pageable.getPageSize();
+        List<List<MemberTeamDto>> results = scatter(targets, queryFactory -> contentQuery(queryFactory, condition)
+            .orderBy(MemberTeamOrder.orderSpecifiers(pageable.getSort()))
+            .limit(window)
+            .fetch());
+
+        List<MemberTeamDto> content = merge(results, MemberTeamOrder.comparator(pageable.getSort()),
+            pageable.getOffset(), pageable.getPageSize());
+        boolean complete = results.stream().allMatch(result -> result.size() < window);
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> complete
+            ? results.stream().mapToLong(List::size).sum()
+            : scatter(targets, queryFactory -> countQuery(queryFactory, condition).fetchCount()).stream()
+                .mapToLong(Long::longValue)
+                .sum());
+    }
+
+    /**
+     * 전체 필드를 조회한 뒤 요청한 필드만 남긴다.
+     */
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberField> fields,
+        Pageable pageable) {
+        return searchPageComplex(condition, pageable).map(dto -> MemberField.toMap(dto, fields));
+    }
+
+    /**
+     * 대상 샤드를 차례로 보고 처음 찾은 샤드에서 멈춘다.
+     */
+    @Override
+    public boolean existsByCondition(MemberSearchCondition condition) {
+        for (Shard shard : route(condition)) {
+            boolean exists = shard.query(queryFactory -> {
+                JPAQuery<Integer> query = queryFactory
+                    .selectOne()
+                    .from(member);
+                if (hasText(condition.getTeamName())) {
+                    query.join(member.team, team);
+                }
+                return query
+                    .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                    )
+                    .fetchFirst() != null;
+            });
+            if (exists) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static OrderSpecifier<?>[] orderSpecifiers(Sort sort) {
+        PathBuilder<Member> path = new PathBuilder<>(Member.class, member.getMetadata());
+        List<OrderSpecifier<?>> specifiers = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            specifiers.add(new OrderSpecifier<>(order.isAscending() ? Order.ASC : Order.DESC,
+                path.getComparable(order.getProperty(), Comparable.class)));
+        }
+        specifiers.add(member.id.asc());
+        return specifiers.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    List<Shard> route(MemberSearchCondition condition) {
+        if (!hasText(condition.getTeamName())) {
+            return shards;
+        }
+        Set<Integer> indexes = directory.shardsOf(condition.getTeamName());
+        if (indexes.isEmpty()) {
+            return shards;
+        }
+        return indexes.stream()
+            .map(shards::get)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 팀 id 와 회원 id 모두 샤드 번호와 같은 나머지를 가진다.
+     */
+    Shard shardOf(Long id) {
+        return shards.get((int) Math.floorMod(id, (long) shards.size()));
+    }
+
+    private Shard shardOf(Member member) {
+        return member.getTeam() == null ? shards.get(0) : shardOf(member.getTeam().getId());
+    }
+
+    public void close() {
+        executor.shutdownNow();
+        shards.forEach(Shard::close);
+    }
+
+    private <T> List<T> scatter(Collection<Shard> targets, Function<JPAQueryFactory, T> query) {
+        if (targets.size() == 1) {
+            return Collections.singletonList(targets.iterator().next().query(query));
+        }
+        List<CompletableFuture<T>> futures = targets.stream()
+            .map(shard -> CompletableFuture.supplyAsync(() -> shard.query(query), executor))
+            .collect(Collectors.toList());
+        try {
+            return futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * 샤드별로 정렬된 결과를 k-way 병합해서 [offset, offset + size) 구간만 남긴다.
+     */
+    private static List<MemberTeamDto> merge(List<List<MemberTeamDto>> sorted, Comparator<MemberTeamDto> comparator,
+        long offset, int size) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> comparator.compare(a.head, b.head));
+        for (List<MemberTeamDto> result : sorted) {
+            Iterator<MemberTeamDto> iterator = result.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Cursor(iterator));
+            }
+        }
+
+        List<MemberTeamDto> content = new ArrayList<>(size);
+        for (long position = 0; !heads.isEmpty() && content.size() < size; position++) {
+            Cursor cursor = heads.poll();
+            if (position >= offset) {
+                content.add(cursor.head);
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return content;
+    }
+
+    private JPAQuery<MemberTeamDto> contentQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        return queryFactory
+            .select(new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+            ))
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            );
+    }
+
+    private JPAQuery<Member> countQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        return queryFactory
+            .select(member)
+            .from(member)
+            .leftJoin(member.team, team)
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            );
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private static class Cursor {
+
+        private final Iterator<MemberTeamDto> iterator;
+        private MemberTeamDto head;
+
+        Cursor(Iterator<MemberTeamDto> iterator) {
+            this.iterator = iterator;
+            this.head = iterator.next();
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            head = iterator.next();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package study.querydsl.shard;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepositoryCustom;
+
+/**
+ * 샤드 환경(querydsl.shard.enabled)에서 MemberRepository 호출을 샤드로 보낸다. (ShardConfig 가 리포지토리 프록시에 붙인다)
+ *
+ * - save/saveAll/delete: 팀의 샤드에 쓴다. 리포지토리의 트랜잭션 안에서 불리므로 샤드 쓰기가 그 트랜잭션에 묶인다.
+ * - findById, findByUsername, findByTeam: ShardedMemberRepository 로 조회한다.
+ * - 검색(MemberRepositoryCustom)은 MemberRepositoryImpl 이 이미 샤드로 보내므로 그대로 둔다.
+ * - 그 밖의 JpaRepository 메서드(findAll, count, deleteById 등)는 기본 데이터소스를 읽고 쓰게 되므로 막는다.
+ */
+class ShardedMemberRepositoryInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<ShardedMemberRepository> sharded;
+
+    ShardedMemberRepositoryInterceptor(ObjectProvider<ShardedMemberRepository> sharded) {
+        this.sharded = sharded;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (method.getDeclaringClass() == Object.class || method.getDeclaringClass() == MemberRepositoryCustom.class) {
+            return invocation.proceed();
+        }
+        ShardedMemberRepository repository = sharded.getObject();
+        Object[] arguments = invocation.getArguments();
+        switch (method.getName()) {
+            case "save":
+                return repository.save((Member) arguments[0]);
+            case "saveAll":
+                List<Member> saved = new ArrayList<>();
+                for (Object member : (Iterable<?>) arguments[0]) {
+                    saved.add(repository.save((Member) member));
+                }
+                return saved;
+            case "delete":
+                repository.delete((Member) arguments[0]);
+                return null;
+            case "findById":
+                return repository.findById((Long) arguments[0]);
+            case "findByUsername":
+                return repository.findByUsername((String) arguments[0]);
+            case "findByTeam":
+                return repository.findByTeam((Team) arguments[0], (Pageable) arguments[1]);
+            default:
+                throw new UnsupportedOperationException(
+                    "MemberRepository." + method.getName() + " is not supported when sharding is enabled");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package study.querydsl.sql;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.SMemberIdKey.memberIdKey;
+import static study.querydsl.sql.SMemberUsernameKey.memberUsernameKey;
+import static study.querydsl.sql.STeam.team;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.sql.RelationalPath;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.dml.SQLInsertClause;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 키가 많을 때 IN 대신 세션 임시 테이블에 키를 넣고 조인한다.
+ *
+ * - 임시 테이블(MEMBER_ID_KEY, MEMBER_USERNAME_KEY)은 커넥션마다 처음 쓸 때 만든다.
+ *   querydsl-sql 메타데이터(SMemberIdKey, SMemberUsernameKey)는 src/main/querydsl-sql/schema.sql 의 같은 구조로 만든다.
+ *   TRANSACTIONAL 이라 만들 때 열린 트랜잭션을 커밋하지 않고, ON COMMIT DELETE ROWS 라 키는 트랜잭션이 끝나면 지워진다.
+ * - 키를 넣고 조인하는 동안 같은 커넥션을 써야 하므로 트랜잭션 안에서만 호출할 수 있다.
+ * - 키는 중복 없이 넘긴다. 결과는 키 순서(ORD)대로다.
+ */
+@Component
+public class MemberKeyTable {
+
+    static final String ID_KEY_DDL = "create local temporary table if not exists MEMBER_ID_KEY"
+        + " (ORD int not null, MEMBER_ID bigint not null primary key) on commit delete rows transactional";
+    static final String USERNAME_KEY_DDL = "create local temporary table if not exists MEMBER_USERNAME_KEY"
+        + " (ORD int not null, USERNAME varchar(255) not null primary key) on commit delete rows transactional";
+
+    private final SQLQueryFactory queryFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager em;
+
+    public MemberKeyTable(SQLQueryFactory queryFactory, JdbcTemplate jdbcTemplate, EntityManager em) {
+        this.queryFactory = queryFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.em = em;
+    }
+
+    public List<MemberTeamDto> searchByIds(List<Long> ids) {
+        prepare(ID_KEY_DDL, memberIdKey);
+        SQLInsertClause insert = queryFactory.insert(memberIdKey);
+        for (int i = 0; i < ids.size(); i++) {
+            insert.set(memberIdKey.ord, i).set(memberIdKey.memberId, ids.get(i)).addBatch();
+        }
+        insert.execute();
+        return select()
+            .from(memberIdKey)
+            .join(member).on(member.memberId.eq(memberIdKey.memberId))
+            .leftJoin(team).on(member.teamId.eq(team.teamId))
+            .orderBy(memberIdKey.ord.asc())
+            .fetch();
+    }
+
+    /**
+     * 같은 이름의 회원이 여럿이면 member_id 순
+     */
+    public List<MemberTeamDto> searchByUsernames(List<String> usernames) {
+        prepare(USERNAME_KEY_DDL, memberUsernameKey);
+        SQLInsertClause insert = queryFactory.insert(memberUsernameKey);
+        for (int i = 0; i < usernames.size(); i++) {
+            insert.set(memberUsernameKey.ord, i).set(memberUsernameKey.username, usernames.get(i)).addBatch();
+        }
+        insert.execute();
+        return select()
+            .from(memberUsernameKey)
+            .join(member).on(member.username.eq(memberUsernameKey.username))
+            .leftJoin(team).on(member.teamId.eq(team.teamId))
+            .orderBy(memberUsernameKey.ord.asc(), member.memberId.asc())
+            .fetch();
+    }
+
+    /**
+     * 임시 테이블을 만들고 같은 트랜잭션에서 앞서 넣은 키를 지운다. 조회 전에 영속성 컨텍스트를 flush 한다.
+     */
+    private void prepare(String ddl, RelationalPath<?> keyTable) {
+        Assert.state(TransactionSynchronizationManager.isActualTransactionActive(),
+            "Key table search requires an active transaction");
+        em.flush();
+        jdbcTemplate.execute(ddl);
+        queryFactory.delete(keyTable).execute();
+    }
+
+    private SQLQuery<MemberTeamDto> select() {
+        return queryFactory
+            .select(Projections.constructor(MemberTeamDto.class,
+                member.memberId,
+                member.username,
+                member.age,
+                team.teamId,
+                team.name
+            ));
+    }
+}
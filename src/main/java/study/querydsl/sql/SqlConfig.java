@@ -0,0 +1,39 @@
+package study.querydsl.sql;
+
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * querydsl-sql 설정
+ * SpringConnectionProvider 는 DataSourceUtils 로 커넥션을 얻으므로 JPA 트랜잭션 안에서는 같은 커넥션을 쓴다.
+ * 트랜잭션 밖에서는 커넥션을 얻지 못하므로(IllegalStateException) 조회는 트랜잭션 안에서 해야 한다.
+ * querydsl.sql.search-enabled=true 이면 MemberRepositoryCustom 검색을 SQL 로 보낸다.
+ */
+@Configuration
+public class SqlConfig {
+
+    @Bean
+    public com.querydsl.sql.Configuration querydslSqlConfiguration() {
+        com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(H2Templates.builder().build());
+        configuration.setExceptionTranslator(new SpringExceptionTranslator());
+        return configuration;
+    }
+
+    @Bean
+    public SQLQueryFactory sqlQueryFactory(com.querydsl.sql.Configuration querydslSqlConfiguration, DataSource dataSource) {
+        return new SQLQueryFactory(querydslSqlConfiguration, new SpringConnectionProvider(dataSource));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "querydsl.sql.search-enabled", havingValue = "true")
+    public SqlMemberRepository sqlMemberRepository(SQLQueryFactory sqlQueryFactory, EntityManager em) {
+        return new SqlMemberRepository(sqlQueryFactory, em);
+    }
+}
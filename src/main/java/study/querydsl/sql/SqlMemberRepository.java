@@ -0,0 +1,196 @@
+package study.querydsl.sql;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberField;
+import study.querydsl.repository.MemberRepositoryCustom;
+
+/**
+ * querydsl-sql 로 검색한다. 엔티티/HQL 변환 없이 DTO 로 바로 읽는다.
+ * 트랜잭션 안에서는 JPA 와 같은 커넥션을 쓰고, 조회 전에 영속성 컨텍스트를 flush 해서
+ * JPQL 의 AUTO flush 와 같은 결과를 보게 한다.
+ * SpringConnectionProvider 는 트랜잭션 밖에서는 커넥션을 주지 않으므로, 트랜잭션이 없으면 읽기 전용 트랜잭션을 연다.
+ */
+@Transactional(readOnly = true)
+public class SqlMemberRepository implements MemberRepositoryCustom {
+
+    private final SQLQueryFactory queryFactory;
+    private final EntityManager em;
+
+    public SqlMemberRepository(SQLQueryFactory queryFactory, EntityManager em) {
+        this.queryFactory = queryFactory;
+        this.em = em;
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        flush();
+        return contentQuery(condition)
+            .fetch();
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        flush();
+        QueryResults<MemberTeamDto> results = contentQuery(condition)
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetchResults();
+
+        return new PageImpl<>(results.getResults(), pageable, results.getTotal());
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        flush();
+        List<MemberTeamDto> content = contentQuery(condition)
+            .offset(pageable.getOffset())
+            .limit(pageable.getPageSize())
+            .fetch();
+
+        SQLQuery<Long> countQuery = queryFactory
+            .select(member.memberId)
+            .from(member)
+            .leftJoin(team).on(member.teamId.eq(team.teamId))
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            );
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+    }
+
+    /**
+     * 전체 필드를 조회한 뒤 요청한 필드만 남긴다.
+     */
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberField> fields,
+        Pageable pageable) {
+        return searchPageComplex(condition, pageable).map(dto -> MemberField.toMap(dto, fields));
+    }
+
+    @Override
+    public boolean existsByCondition(MemberSearchCondition condition) {
+        flush();
+        SQLQuery<Integer> query = queryFactory
+            .selectOne()
+            .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(team).on(member.teamId.eq(team.teamId));
+        }
+        return query
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            )
+            .fetchFirst() != null;
+    }
+
+    /**
+     * 팀별 나이 많은 순 상위 limit 명 (ROW_NUMBER). JPQL 로는 표현할 수 없다.
+     * 같은 나이는 member_id 순. 팀이 없는 회원은 제외한다.
+     */
+    public List<MemberTeamDto> findTopByTeam(MemberSearchCondition condition, int limit) {
+        flush();
+        NumberPath<Long> rowNumber = Expressions.numberPath(Long.class, "rn");
+        SQLQuery<Tuple> ranked = queryFactory
+            .select(member.memberId, member.username, member.age, team.teamId, team.name,
+                SQLExpressions.rowNumber()
+                    .over()
+                    .partitionBy(team.teamId)
+                    .orderBy(member.age.desc(), member.memberId.asc())
+                    .as(rowNumber))
+            .from(member)
+            .join(team).on(member.teamId.eq(team.teamId))
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            );
+
+        // 서브쿼리 컬럼은 "ranked" 별칭으로 읽는다.
+        SMember rankedMember = new SMember("ranked");
+        STeam rankedTeam = new STeam("ranked");
+        NumberPath<Long> rankedRowNumber = Expressions.numberPath(Long.class, rankedMember, "rn");
+        return queryFactory
+            .select(Projections.constructor(MemberTeamDto.class,
+                rankedMember.memberId,
+                rankedMember.username,
+                rankedMember.age,
+                rankedTeam.teamId,
+                rankedTeam.name
+            ))
+            .from(ranked, Expressions.path(Object.class, "ranked"))
+            .where(rankedRowNumber.loe(limit))
+            .orderBy(rankedTeam.teamId.asc(), rankedRowNumber.asc())
+            .fetch();
+    }
+
+    private SQLQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        return queryFactory
+            .select(Projections.constructor(MemberTeamDto.class,
+                member.memberId,
+                member.username,
+                member.age,
+                team.teamId,
+                team.name
+            ))
+            .from(member)
+            .leftJoin(team).on(member.teamId.eq(team.teamId))
+            .where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+            );
+    }
+
+    private void flush() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush();
+        }
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
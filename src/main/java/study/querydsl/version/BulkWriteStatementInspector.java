@@ -0,0 +1,31 @@
+package study.querydsl.version;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * member/team 테이블에 대한 update, delete SQL을 감지해서 전체 버전을 올린다.
+ * queryFactory.update(member) 같은 벌크 연산은 엔티티 리스너를 거치지 않기 때문에 SQL 수준에서 잡는다.
+ */
+public class BulkWriteStatementInspector implements StatementInspector {
+
+    private static final String[] WRITE_PREFIXES = {
+        "update member ", "delete from member ", "update team ", "delete from team "
+    };
+
+    private final DataVersions dataVersions;
+
+    public BulkWriteStatementInspector(DataVersions dataVersions) {
+        this.dataVersions = dataVersions;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        for (String prefix : WRITE_PREFIXES) {
+            if (sql.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                dataVersions.bumpAll();
+                break;
+            }
+        }
+        return sql;
+    }
+}
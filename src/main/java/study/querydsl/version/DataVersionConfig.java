@@ -0,0 +1,31 @@
+package study.querydsl.version;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DataVersionConfig {
+
+    /**
+     * 하이버네이트는 StatementInspector 를 하나만 받으므로 다른 StatementInspector 빈도 이어서 부른다.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer dataVersionStatementInspector(DataVersions dataVersions,
+        ObjectProvider<StatementInspector> statementInspectors) {
+        List<StatementInspector> inspectors = new ArrayList<>();
+        inspectors.add(new BulkWriteStatementInspector(dataVersions));
+        statementInspectors.orderedStream().forEach(inspectors::add);
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+            for (StatementInspector inspector : inspectors) {
+                sql = inspector.inspect(sql);
+            }
+            return sql;
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package study.querydsl.version;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * 회원 데이터의 버전 카운터 (전역 1개 + 팀 이름별 1개)
+ *
+ * - 회원 저장: 해당 팀과 전역 버전을 올린다.
+ * - 회원/팀 수정, 삭제, 벌크 연산: 어떤 팀이 영향을 받는지 알 수 없으므로 전체 버전을 올린다.
+ *
+ * 버전은 트랜잭션이 커밋된 후에 올린다. 조회 쪽에서는 쿼리 전에 버전을 읽으므로
+ * 커밋 전 데이터에 새 버전이 붙는 일은 없다. (버전은 이 JVM 안에서만 유효하다.)
+ */
+@Component
+public class DataVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong global = new AtomicLong();
+    private final AtomicLong teams = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> teamVersions = new ConcurrentHashMap<>();
+
+    /**
+     * 검색 조건이 참조하는 데이터의 버전으로 weak ETag를 만든다.
+     * 팀 이름 조건이 있으면 그 팀의 버전만, 없으면 전역 버전을 사용한다.
+     */
+    public String etag(MemberSearchCondition condition, Object... keys) {
+        String version = hasText(condition.getTeamName())
+            ? "t" + teams.get() + "." + teamVersion(condition.getTeamName())
+            : "g" + global.get();
+        int hash = Objects.hash(condition, Objects.hash(keys));
+        return "W/\"" + epoch + "-" + version + "-" + Integer.toHexString(hash) + "\"";
+    }
+
+    public void bumpTeam(String teamName) {
+        bump(pending -> pending.teamNames.add(teamName));
+    }
+
+    public void bumpGlobal() {
+        bump(pending -> {
+        });
+    }
+
+    public void bumpAll() {
+        bump(pending -> pending.all = true);
+    }
+
+    private void bump(Consumer<PendingBump> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingBump pending = new PendingBump();
+            change.accept(pending);
+            apply(pending);
+            return;
+        }
+        PendingBump pending = (PendingBump) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingBump();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        change.accept(pending);
+    }
+
+    /**
+     * 한 번도 바뀌지 않은 팀은 0. 조회 조건의 팀 이름은 클라이언트가 정하므로 조회로는 항목을 만들지 않는다.
+     */
+    private long teamVersion(String teamName) {
+        AtomicLong version = teamVersions.get(teamName);
+        return version == null ? 0 : version.get();
+    }
+
+    private void apply(PendingBump bump) {
+        if (bump.all) {
+            teams.incrementAndGet();
+        }
+        for (String teamName : bump.teamNames) {
+            teamVersions.computeIfAbsent(teamName, name -> new AtomicLong()).incrementAndGet();
+        }
+        global.incrementAndGet();
+    }
+
+    private class PendingBump implements TransactionSynchronization {
+
+        private final Set<String> teamNames = new HashSet<>();
+        private boolean all;
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DataVersions.this);
+            if (status == STATUS_COMMITTED) {
+                apply(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.version;
+
+import javax.persistence.PostPersist;
+import study.querydsl.entity.Member;
+
+/**
+ * 회원이 저장되면 소속 팀의 버전을 올린다.
+ * 수정/삭제는 이전 팀을 알 수 없으므로 {@link BulkWriteStatementInspector}가 전체 버전을 올린다.
+ */
+public class MemberVersionListener {
+
+    private final DataVersions dataVersions;
+
+    public MemberVersionListener(DataVersions dataVersions) {
+        this.dataVersions = dataVersions;
+    }
+
+    @PostPersist
+    public void postPersist(Member member) {
+        if (member.getTeam() != null) {
+            dataVersions.bumpTeam(member.getTeam().getName());
+        } else {
+            dataVersions.bumpGlobal();
+        }
+    }
+}
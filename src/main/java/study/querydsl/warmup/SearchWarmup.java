@@ -0,0 +1,276 @@
+package study.querydsl.warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberField;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * 기동 직후 회원 조회(/v1~/v3)에서 쓰는 조회 조건 모양들을 저장소에 반복 실행해서
+ * JPQL 파싱, 하이버네이트 쿼리 플랜 캐시, Q 클래스 초기화, JIT(C2) 컴파일을 트래픽 전에 끝낸다.
+ *
+ * - 모든 모양을 자주 쓰는 조건과 같은 where 절이지만 아무 행도 맞지 않는 값으로 돌린다.
+ *   (회원이 많은 DB 에서 라운드마다 v1 목록이나 v2, v3 의 count 쿼리가 테이블 전체를 읽지 않도록. 조건 없는 모양은 돌리지 않는다)
+ * - 한 라운드 = 모든 모양을 한 번씩 실행. 최근 settle-window 라운드의 평균이 그 앞 구간과 settle-tolerance 안으로
+ *   같아지면(그리고 min-rounds 이상) 끝난다. max-duration, max-rounds 를 넘겨도 끝낸다.
+ * - 끝나기 전에는 헬스 searchWarmup 이 OUT_OF_SERVICE 다. readiness 그룹에 넣어 두면 워밍업이 끝나야 트래픽을 받는다.
+ *   조회가 실패하면 DOWN 으로 남는다. (워밍업 조회가 실패하면 실제 조회도 실패하므로 트래픽을 받지 않는다)
+ * - 끝나면 첫 라운드와 안정된 라운드의 시간(모양별 포함)을 로그와 헬스 상세로 남긴다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class SearchWarmup implements HealthIndicator {
+
+    private static final String UNMATCHED = "\u0000warmup";
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final Duration maxDuration;
+    private final int minRounds;
+    private final int maxRounds;
+    private final int settleWindow;
+    private final double settleTolerance;
+    private volatile boolean stopped;
+    private volatile Report report;
+    private volatile RuntimeException failure;
+
+    public SearchWarmup(MemberJpaRepository memberJpaRepository, MemberRepository memberRepository,
+        @Value("${querydsl.warmup.max-duration:30s}") Duration maxDuration,
+        @Value("${querydsl.warmup.min-rounds:20}") int minRounds,
+        @Value("${querydsl.warmup.max-rounds:5000}") int maxRounds,
+        @Value("${querydsl.warmup.settle-window:10}") int settleWindow,
+        @Value("${querydsl.warmup.settle-tolerance:0.1}") double settleTolerance) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.memberRepository = memberRepository;
+        this.maxDuration = maxDuration;
+        this.minRounds = minRounds;
+        this.maxRounds = maxRounds;
+        this.settleWindow = settleWindow;
+        this.settleTolerance = settleTolerance;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread warmup = new Thread(() -> {
+            try {
+                report = run();
+                log.info("search warmup: {}", report);
+            } catch (RuntimeException e) {
+                log.error("search warmup failed", e);
+                failure = e;
+            }
+        }, "search-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+
+    /** 조회 중인 커넥션을 깨지 않도록 interrupt 대신 라운드가 끝날 때 멈춘다. */
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public Health health() {
+        RuntimeException failed = failure;
+        if (failed != null) {
+            return Health.down(failed).build();
+        }
+        Report done = report;
+        if (done == null) {
+            return Health.outOfService().withDetail("state", "warming up").build();
+        }
+        return Health.up()
+            .withDetail("rounds", done.rounds)
+            .withDetail("elapsedMs", done.elapsedMillis)
+            .withDetail("firstRoundMs", done.firstRoundMillis)
+            .withDetail("settledRoundMs", done.settledRoundMillis)
+            .withDetail("shapes", done.shapes)
+            .build();
+    }
+
+    public Report getReport() {
+        return report;
+    }
+
+    Report run() {
+        Map<String, List<Runnable>> shapes = shapes();
+        Map<String, Long> firstNanos = new LinkedHashMap<>();
+        Map<String, Long> windowNanos = new LinkedHashMap<>();
+        List<Long> rounds = new ArrayList<>();
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+
+        while (rounds.size() < maxRounds && System.nanoTime() < deadline && !stopped) {
+            boolean first = rounds.isEmpty();
+            if (rounds.size() % settleWindow == 0) {
+                windowNanos.clear();
+            }
+            long roundStart = System.nanoTime();
+            shapes.forEach((shape, searches) -> searches.forEach(search -> {
+                long shapeStart = System.nanoTime();
+                search.run();
+                long elapsed = System.nanoTime() - shapeStart;
+                if (first) {
+                    firstNanos.merge(shape, elapsed, Long::sum);
+                }
+                windowNanos.merge(shape, elapsed, Long::sum);
+            }));
+            rounds.add(System.nanoTime() - roundStart);
+            if (rounds.size() >= minRounds && settled(rounds)) {
+                break;
+            }
+        }
+
+        int window = Math.min(settleWindow, rounds.size());
+        int windowRounds = rounds.size() % settleWindow == 0 ? window : rounds.size() % settleWindow;
+        Map<String, String> perShape = new LinkedHashMap<>();
+        firstNanos.forEach((shape, nanos) -> perShape.put(shape,
+            String.format("%.2fms -> %.3fms", nanos / 1e6, windowNanos.get(shape) / 1e6 / windowRounds)));
+        return new Report(rounds.size(), (System.nanoTime() - start) / 1_000_000,
+            rounds.isEmpty() ? 0 : rounds.get(0) / 1e6, average(rounds, rounds.size() - window, rounds.size()) / 1e6,
+            perShape);
+    }
+
+    /**
+     * 최근 구간 평균이 바로 앞 구간 평균과 settle-tolerance 안으로 같으면 안정되었다고 본다.
+     */
+    private boolean settled(List<Long> rounds) {
+        if (rounds.size() < settleWindow * 2) {
+            return false;
+        }
+        int size = rounds.size();
+        double recent = average(rounds, size - settleWindow, size);
+        double before = average(rounds, size - settleWindow * 2, size - settleWindow);
+        return Math.abs(recent - before) <= before * settleTolerance;
+    }
+
+    private static double average(List<Long> values, int from, int to) {
+        if (to <= from) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values.get(i);
+        }
+        return (double) sum / (to - from);
+    }
+
+    /**
+     * 컨트롤러가 부르는 저장소 메서드 x 조건. fields 는 팀 조인이 있는 모양과 없는 모양을 둘 다 돌린다.
+     * v3 는 두 번째 페이지로 돌린다. (첫 페이지가 다 차지 않으면 count 쿼리를 건너뛰므로)
+     */
+    private Map<String, List<Runnable>> shapes() {
+        Pageable first = PageRequest.of(0, 20);
+        Pageable second = PageRequest.of(1, 20);
+        List<MemberSearchCondition> conditions = unmatched(conditions());
+        Map<String, List<Runnable>> shapes = new LinkedHashMap<>();
+        shapes.put("v1", calls(memberJpaRepository::search, conditions));
+        shapes.put("v1 fields", calls(condition -> memberJpaRepository.search(condition, List.of(MemberField.USERNAME)),
+            conditions));
+        shapes.put("v2", calls(condition -> memberRepository.searchPageSimple(condition, first), conditions));
+        shapes.put("v3", calls(condition -> memberRepository.searchPageComplex(condition, second), conditions));
+        shapes.put("v3 fields", calls(condition -> memberRepository.searchPageFields(condition,
+            List.of(MemberField.USERNAME, MemberField.TEAM_NAME), second), conditions));
+        return shapes;
+    }
+
+    private static List<Runnable> calls(Consumer<MemberSearchCondition> search, List<MemberSearchCondition> conditions) {
+        List<Runnable> calls = new ArrayList<>();
+        conditions.forEach(condition -> calls.add(() -> search.accept(condition)));
+        return calls;
+    }
+
+    /** where 절 조합마다 JPQL 이 다르므로 자주 쓰는 조합을 모두 돌린다. 첫 번째는 조건 없음 */
+    static List<MemberSearchCondition> conditions() {
+        return List.of(
+            condition(null, null, null, null),
+            condition(null, "teamA", null, null),
+            condition(null, null, 20, 40),
+            condition(null, "teamB", 30, null),
+            condition("member1", null, null, null));
+    }
+
+    /**
+     * 같은 where 절을 만들지만 아무 행도 맞지 않는 조건. 조건 없음은 어떤 값으로도 범위를 줄일 수 없으므로 뺀다.
+     */
+    static List<MemberSearchCondition> unmatched(List<MemberSearchCondition> conditions) {
+        List<MemberSearchCondition> unmatched = new ArrayList<>();
+        for (MemberSearchCondition condition : conditions) {
+            if (condition.getUsername() == null && condition.getTeamName() == null
+                && condition.getAgeGoe() == null && condition.getAgeLoe() == null) {
+                continue;
+            }
+            unmatched.add(condition(
+                condition.getUsername() == null ? null : UNMATCHED,
+                condition.getTeamName() == null ? null : UNMATCHED,
+                condition.getAgeGoe() == null ? null : Integer.MAX_VALUE,
+                condition.getAgeLoe() == null ? null : Integer.MIN_VALUE));
+        }
+        return unmatched;
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+
+    public static class Report {
+
+        private final int rounds;
+        private final long elapsedMillis;
+        private final double firstRoundMillis;
+        private final double settledRoundMillis;
+        private final Map<String, String> shapes;
+
+        Report(int rounds, long elapsedMillis, double firstRoundMillis, double settledRoundMillis,
+            Map<String, String> shapes) {
+            this.rounds = rounds;
+            this.elapsedMillis = elapsedMillis;
+            this.firstRoundMillis = firstRoundMillis;
+            this.settledRoundMillis = settledRoundMillis;
+            this.shapes = shapes;
+        }
+
+        public int getRounds() {
+            return rounds;
+        }
+
+        public double getFirstRoundMillis() {
+            return firstRoundMillis;
+        }
+
+        public double getSettledRoundMillis() {
+            return settledRoundMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rounds in %dms, round %.2fms -> %.3fms (%.0fx), per shape %s",
+                rounds, elapsedMillis, firstRoundMillis, settledRoundMillis,
+                settledRoundMillis > 0 ? firstRoundMillis / settledRoundMillis : 0, shapes);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+-- querydsl-sql 메타데이터(SMember, STeam, SMemberIdKey, SMemberUsernameKey) 생성용 스키마
+-- 실제 테이블은 JPA(ddl-auto)가 만든다. 엔티티 매핑을 바꾸면 같이 맞춘다.
+
+create table team (
+    team_id bigint not null,
+    name varchar(255),
+    primary key (team_id)
+);
+
+create table member (
+    member_id bigint not null,
+    age integer not null,
+    username varchar(255),
+    team_id bigint,
+    username_lower varchar(255) as lower(username),
+    age_bucket varchar(16) as case when age between 0 and 20 then '0~20살'
+        when age between 21 and 30 then '21~30살' else '기타' end,
+    primary key (member_id)
+);
+
+create index idx_member_username_lower on member (username_lower);
+create index idx_member_age_bucket on member (age_bucket);
+
+alter table member add constraint fk_member_team foreign key (team_id) references team;
+
+-- 키 목록 조회용 세션 임시 테이블 (SMemberIdKey, SMemberUsernameKey)
+-- 실제 테이블은 MemberKeyTable 이 커넥션마다 같은 구조로 만든다. (MemberKeyTable.ID_KEY_DDL, USERNAME_KEY_DDL)
+create local temporary table member_id_key (
+    ord integer not null,
+    member_id bigint not null,
+    primary key (member_id)
+) on commit delete rows transactional;
+
+create local temporary table member_username_key (
+    ord integer not null,
+    username varchar(255) not null,
+    primary key (username)
+) on commit delete rows transactional;
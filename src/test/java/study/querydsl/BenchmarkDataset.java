@@ -0,0 +1,88 @@
+package study.querydsl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
+import java.util.function.IntConsumer;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 벤치마크가 같이 쓰는 데이터와 측정 도구
+ *
+ * - 팀 100개(team_id 1~100, team1~team100), 회원 members 개(member_id 101~, member0~).
+ *   나이(0~99)와 팀은 seed 42 난수라 실행마다 같다.
+ * - 같은 설정의 벤치마크는 스프링 컨텍스트(H2)를 같이 쓴다. 다른 크기로 넣어 두었거나 건수가 바뀌었으면
+ *   지우고 다시 넣는다. (같은 크기면 그대로 쓴다)
+ */
+public final class BenchmarkDataset {
+
+    public static final int TEAMS = 100;
+
+    private static final int BATCH = 10_000;
+    private static final Map<DataSource, Integer> LOADED = new WeakHashMap<>();
+
+    private BenchmarkDataset() {
+    }
+
+    /** 회원 i 의 id */
+    public static long memberId(int i) {
+        return TEAMS + i + 1;
+    }
+
+    /**
+     * 회원 members 명을 준비한다. 새로 넣었으면 true (읽기 모델처럼 데이터에서 만드는 것은 이때만 다시 만들면 된다)
+     */
+    public static synchronized boolean load(JdbcTemplate jdbcTemplate, int members) {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Integer loaded = LOADED.get(dataSource);
+        if (loaded != null && loaded == members
+            && jdbcTemplate.queryForObject("select count(*) from member", Long.class) == members) {
+            return false;
+        }
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+
+        List<Object[]> teams = new ArrayList<>();
+        for (int i = 1; i <= TEAMS; i++) {
+            teams.add(new Object[]{(long) i, "team" + i});
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", teams);
+
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>(Math.min(members, BATCH));
+        for (int i = 0; i < members; i++) {
+            batch.add(new Object[]{memberId(i), "member" + i, random.nextInt(100), (long) random.nextInt(TEAMS) + 1});
+            if (batch.size() == BATCH) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", batch);
+        LOADED.put(dataSource, members);
+        return true;
+    }
+
+    /**
+     * warmup 번 부른 뒤 iterations 번 부른 평균 시간(ms)
+     */
+    public static double measure(int warmup, int iterations, Runnable call) {
+        return measure(warmup, iterations, i -> call.run());
+    }
+
+    /**
+     * call 은 몇 번째 호출인지 받는다. 측정은 0 ~ iterations - 1, 워밍업은 iterations 부터
+     */
+    public static double measure(int warmup, int iterations, IntConsumer call) {
+        for (int i = 0; i < warmup; i++) {
+            call.accept(iterations + i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            call.accept(i);
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / iterations;
+    }
+}
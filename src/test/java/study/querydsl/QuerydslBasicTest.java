@@ -32,9 +32,12 @@ import study.querydsl.dto.QMemberDto;
 import study.querydsl.dto.UserDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
-import study.querydsl.entity.Team;
 
-@SpringBootTest
+/**
+ * teamA(member1, member2), teamB(member3, member4) 데이터는 fixtures/basic.sql 스냅샷으로 컨텍스트가 뜰 때 한 번만 적재한다.
+ * 스냅샷을 커밋해 두므로 다른 테스트와 DB를 공유하지 않도록 별도의 컨텍스트(DB)를 사용한다.
+ */
+@SpringBootTest(properties = "spring.datasource.data=classpath:fixtures/basic.sql")
 @Transactional
 public class QuerydslBasicTest {
 
@@ -45,16 +48,6 @@ public class QuerydslBasicTest {
     @BeforeEach
     void setUp() {
         queryFactory = new JPAQueryFactory(em);
-
-        Team teamA = new Team("teamA");
-        Team teamB = new Team("teamB");
-        persistTeams(teamA, teamB);
-
-        Member member1 = new Member("member1", 10, teamA);
-        Member member2 = new Member("member2", 20, teamA);
-        Member member3 = new Member("member3", 30, teamB);
-        Member member4 = new Member("member4", 40, teamB);
-        persistMembers(member1, member2, member3, member4);
     }
 
     private void persistMembers(Member... members) {
@@ -63,12 +56,6 @@ public class QuerydslBasicTest {
         }
     }
 
-    private void persistTeams(Team... teams) {
-        for (Team team : teams) {
-            em.persist(team);
-        }
-    }
-
     @Test
     void startJPQL() {
         String queryString = "select m from Member m where m.username = :username";
@@ -0,0 +1,198 @@
+package study.querydsl.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.version.DataVersions;
+
+/**
+ * 버전이 커밋 후에 올라가는지 확인해야 하므로 테스트 트랜잭션(롤백)을 사용하지 않는다.
+ * 커밋한 데이터가 같은 DB를 쓰는 다른 테스트에 보이지 않도록 단독으로 실행한다.
+ */
+@Isolated
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    DataVersions dataVersions;
+
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            teamA = new Team("teamA");
+            teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamB));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void notModifiedWhenNothingChanged() throws Exception {
+        String etag = etag("/v1/members?teamName=teamA");
+
+        mockMvc.perform(get("/v1/members?teamName=teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void etagChangesOnlyForTouchedTeam() throws Exception {
+        String teamAEtag = etag("/v1/members?teamName=teamA");
+        String teamBEtag = etag("/v1/members?teamName=teamB");
+        String globalEtag = etag("/v1/members");
+
+        transactionTemplate.executeWithoutResult(status ->
+            em.persist(new Member("member3", 30, em.find(Team.class, teamB.getId()))));
+
+        mockMvc.perform(get("/v1/members?teamName=teamA").header(HttpHeaders.IF_NONE_MATCH, teamAEtag))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/v1/members?teamName=teamB").header(HttpHeaders.IF_NONE_MATCH, teamBEtag))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/v1/members").header(HttpHeaders.IF_NONE_MATCH, globalEtag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void etagChangesOnBulkUpdate() throws Exception {
+        String etag = etag("/v3/members?teamName=teamA&page=0&size=10");
+
+        transactionTemplate.executeWithoutResult(status -> new JPAQueryFactory(em)
+            .update(member)
+            .set(member.age, member.age.add(1))
+            .execute());
+
+        mockMvc.perform(get("/v3/members?teamName=teamA&page=0&size=10").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void rolledBackWriteKeepsEtag() throws Exception {
+        String etag = etag("/v1/members?teamName=teamA");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("member3", 30, em.find(Team.class, teamA.getId())));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        mockMvc.perform(get("/v1/members?teamName=teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void unknownTeamNamesDoNotGrowVersions() throws Exception {
+        Map<?, ?> teamVersions = (Map<?, ?>) ReflectionTestUtils.getField(dataVersions, "teamVersions");
+        int tracked = teamVersions.size();
+
+        String etag = etag("/v1/members?teamName=noSuchTeam0");
+        for (int i = 1; i < 20; i++) {
+            etag("/v1/members?teamName=noSuchTeam" + i);
+        }
+
+        assertThat(teamVersions).hasSize(tracked);
+        assertThat(etag("/v1/members?teamName=noSuchTeam0")).isEqualTo(etag);
+    }
+
+    @Test
+    void sparseFields() throws Exception {
+        mockMvc.perform(get("/v1/members?teamName=teamA&fields=username"))
+            .andExpect(status().isOk())
+            .andExpect(content().json("[{\"username\": \"member1\"}]", true));
+        mockMvc.perform(get("/v3/members?fields=username,teamName&page=0&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content[0].*", hasSize(2)))
+            .andExpect(jsonPath("$.content[0].teamName").value("teamA"));
+        mockMvc.perform(get("/v1/members?fields=username,password"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportStreamsMatchingRows() throws Exception {
+        mockMvc.perform(get("/v1/members/export?ageGoe=15"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(content().json("[{\"username\": \"member2\", \"age\": 20, \"teamName\": \"teamB\"}]"));
+        mockMvc.perform(get("/v1/members/export"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].*", hasSize(5)));
+    }
+
+    @Test
+    void exportEncodesSmileAndCbor() throws Exception {
+        assertExported(MediaType.APPLICATION_JSON, new ObjectMapper());
+        assertExported(MemberExportWriter.APPLICATION_SMILE, new ObjectMapper(new SmileFactory()));
+        assertExported(MediaType.APPLICATION_CBOR, new ObjectMapper(new CBORFactory()));
+    }
+
+    private void assertExported(MediaType mediaType, ObjectMapper objectMapper) throws Exception {
+        byte[] body = mockMvc.perform(get("/v1/members/export").accept(mediaType))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(mediaType))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        List<Map<String, Object>> rows = objectMapper.readValue(body, new TypeReference<List<Map<String, Object>>>() {
+        });
+        assertThat(rows).as("%s", mediaType)
+            .extracting(row -> row.get("username"), row -> ((Number) row.get("age")).intValue(), row -> row.get("teamName"))
+            .containsExactlyInAnyOrder(tuple("member1", 10, "teamA"), tuple("member2", 20, "teamB"));
+    }
+
+    private String etag(String url) throws Exception {
+        String etag = mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("W/");
+        return etag;
+    }
+}
@@ -0,0 +1,136 @@
+package study.querydsl.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberCreateRequest;
+import study.querydsl.dto.MemberCreateResponse;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.UsernameFilter;
+
+/**
+ * 쓰기 큐가 커밋한 회원을 확인하므로 데이터를 커밋한다. (별도 컨텍스트 = 별도 메모리 DB)
+ */
+@SpringBootTest(properties = {
+    "querydsl.write-behind.batch-size=20",
+    "querydsl.write-behind.max-delay=50ms"
+})
+@AutoConfigureMockMvc
+class MemberCreateTest {
+
+    private static final int REQUESTS = 40;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    UsernameFilter usernameFilter;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    void concurrentCreatesShareTransactions() throws Exception {
+        Long teamId = transactionTemplate.execute(status -> {
+            Team team = new Team("createTeam");
+            em.persist(team);
+            return team.getId();
+        });
+        DistributionSummary batches = meterRegistry.get("member.write-behind.batch.size").summary();
+        double writtenBefore = batches.totalAmount();
+        long batchesBefore = batches.count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<MemberCreateResponse>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                MemberCreateRequest request = new MemberCreateRequest("create" + i, i, i % 2 == 0 ? teamId : null);
+                responses.add(executor.submit(() -> create(request)));
+            }
+            Set<Long> ids = new HashSet<>();
+            for (Future<MemberCreateResponse> response : responses) {
+                ids.add(response.get().getId());
+            }
+            assertThat(ids).hasSize(REQUESTS).doesNotContainNull();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Long teamMembers = transactionTemplate.execute(status -> em.createQuery(
+                "select count(m) from Member m where m.team.id = :teamId", Long.class)
+            .setParameter("teamId", teamId)
+            .getSingleResult());
+        assertThat(teamMembers).isEqualTo(REQUESTS / 2);
+        assertThat(usernameFilter.mightExist(em, "create" + (REQUESTS - 1))).isTrue();
+
+        assertThat(batches.totalAmount() - writtenBefore).isEqualTo(REQUESTS);
+        assertThat(batches.count() - batchesBefore).isLessThan(REQUESTS);
+    }
+
+    @Test
+    void unknownTeamFailsOnlyItsRequest() throws Exception {
+        MvcResult result = mockMvc.perform(post("/v1/members")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new MemberCreateRequest("noTeam", 10, -1L))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
+
+        MemberCreateResponse created = create(new MemberCreateRequest("afterNoTeam", 10, null));
+        Member member = transactionTemplate.execute(status -> em.find(Member.class, created.getId()));
+        assertThat(member.getUsername()).isEqualTo("afterNoTeam");
+    }
+
+    @Test
+    void blankUsernameIsRejected() throws Exception {
+        MvcResult result = mockMvc.perform(post("/v1/members")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"age\": 10}"))
+            .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
+    }
+
+    private MemberCreateResponse create(MemberCreateRequest request) throws Exception {
+        MvcResult result = mockMvc.perform(post("/v1/members")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, MemberCreateResponse.class);
+    }
+}
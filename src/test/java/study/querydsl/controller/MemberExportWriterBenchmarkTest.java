@@ -0,0 +1,92 @@
+package study.querydsl.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * JSON / Smile / CBOR 의 payload 크기와 인코딩 처리량 비교
+ * ./gradlew benchmark --tests '*MemberExportWriterBenchmarkTest'
+ */
+@Tag("benchmark")
+class MemberExportWriterBenchmarkTest {
+
+    private static final int ROWS = 10_000;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    private final MemberExportWriter writer = new MemberExportWriter();
+    private final List<MemberTeamDto> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 2), i % 2 == 0 ? "teamA" : "teamB"));
+        }
+    }
+
+    @Test
+    void payloadSizeAndThroughput() throws IOException {
+        int json = measure("json", MediaType.APPLICATION_JSON);
+        int smile = measure("smile", MemberExportWriter.APPLICATION_SMILE);
+        int cbor = measure("cbor", MediaType.APPLICATION_CBOR);
+        measureObjectMapper();
+
+        assertThat(smile).isLessThan(json);
+        assertThat(cbor).isLessThan(json);
+    }
+
+    private int measure(String name, MediaType mediaType) throws IOException {
+        int size = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            size = encode(mediaType).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            encode(mediaType);
+        }
+        report(name, size, System.nanoTime() - start);
+        return size;
+    }
+
+    private byte[] encode(MediaType mediaType) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(ROWS * 64);
+        try (JsonGenerator generator = writer.createGenerator(mediaType, out)) {
+            generator.writeStartArray();
+            for (MemberTeamDto row : rows) {
+                writer.write(generator, row);
+            }
+            generator.writeEndArray();
+        }
+        return out.toByteArray();
+    }
+
+    private void measureObjectMapper() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        int size = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            size = objectMapper.writeValueAsBytes(rows).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            objectMapper.writeValueAsBytes(rows);
+        }
+        report("json(ObjectMapper)", size, System.nanoTime() - start);
+    }
+
+    private void report(String name, int size, long elapsedNanos) {
+        double rowsPerSec = (double) ROWS * ITERATIONS / (elapsedNanos / 1_000_000_000.0);
+        System.out.printf("%-20s bytes=%-9d bytes/row=%-6.1f rows/s=%,.0f%n",
+            name, size, (double) size / ROWS, rowsPerSec);
+    }
+}
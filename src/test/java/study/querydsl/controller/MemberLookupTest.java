@@ -0,0 +1,84 @@
+package study.querydsl.controller;
+
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberKeyRepository;
+
+/**
+ * 조회는 트랜잭션 밖에서 하므로 데이터를 커밋한다. (별도 컨텍스트 = 별도 메모리 DB)
+ */
+@SpringBootTest(properties = "querydsl.key-search.max-keys=5")
+@AutoConfigureMockMvc
+class MemberLookupTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    @SpyBean
+    MemberKeyRepository memberKeyRepository;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (em.createQuery("select count(m) from Member m", Long.class).getSingleResult() == 0) {
+                em.persist(new Member("member1", 10));
+                em.persist(new Member("member2", 20));
+            }
+        });
+    }
+
+    @Test
+    void lookupByUsernames() throws Exception {
+        mockMvc.perform(lookup("{\"usernames\": [\"member2\", \"noSuchMember\", \"member1\"]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].username").value(contains("member2", "member1")));
+    }
+
+    @Test
+    void tooManyKeysIsBadRequest() throws Exception {
+        mockMvc.perform(lookup("{\"ids\": [1, 2, 3, 4, 5, 6]}"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(lookup("{\"ids\": [1, 2], \"usernames\": [\"member1\"]}"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void saturatedFanOutIsServiceUnavailable() throws Exception {
+        doThrow(new TransientDataAccessResourceException("Query fan-out executor is saturated"))
+            .when(memberKeyRepository).searchByIds(anyCollection());
+
+        mockMvc.perform(lookup("{\"ids\": [1, 2, 3]}"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    private static MockHttpServletRequestBuilder lookup(String body) {
+        return post("/v1/members/lookup").contentType(MediaType.APPLICATION_JSON).content(body);
+    }
+}
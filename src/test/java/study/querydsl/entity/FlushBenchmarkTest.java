@@ -0,0 +1,85 @@
+package study.querydsl.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.BenchmarkDataset;
+
+/**
+ * 영속성 컨텍스트에 회원 10만 건이 있을 때 flush 비용
+ * 바이트코드 향상(dirty tracking) 여부에 따라 비교한다.
+ * ./gradlew benchmark --tests '*FlushBenchmarkTest'
+ * ./gradlew benchmark --tests '*FlushBenchmarkTest' -Penhance.dirtyTracking=false
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "logging.level.org.hibernate.SQL=info",
+    "decorator.datasource.p6spy.enable-logging=false",
+    "spring.jpa.properties.hibernate.jdbc.batch_size=100"
+})
+class FlushBenchmarkTest {
+
+    private static final int MEMBERS = Integer.getInteger("benchmark.members", 100_000);
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        BenchmarkDataset.load(jdbcTemplate, MEMBERS);
+    }
+
+    @Test
+    void flushWithManagedMembers() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+            assertThat(members).hasSize(MEMBERS);
+
+            System.out.printf("[flush] managed=%d enhanced=%s%n", members.size(), members.get(0) instanceof SelfDirtinessTracker);
+            System.out.printf("%-16s %12s%n", "modified", "flush(ms)");
+            measure("none", members, 0);
+            measure("1%", members, members.size() / 100);
+            measure("10%", members, members.size() / 10);
+            status.setRollbackOnly();
+        });
+    }
+
+    private void measure(String name, List<Member> members, int modified) {
+        for (int i = 0; i < WARMUP; i++) {
+            modifyAndFlush(members, modified, i);
+        }
+        long elapsed = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            elapsed += modifyAndFlush(members, modified, WARMUP + i);
+        }
+        System.out.printf("%-16s %12.3f%n", name, elapsed / 1_000_000.0 / ITERATIONS);
+    }
+
+    /** 수정은 측정에서 빼고 flush 만 잰다. */
+    private long modifyAndFlush(List<Member> members, int modified, int round) {
+        for (int i = 0; i < modified; i++) {
+            Member member = members.get((i * 97 + round) % members.size());
+            member.setAge(member.getAge() + 1);
+        }
+        long start = System.nanoTime();
+        em.flush();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,116 @@
+package study.querydsl.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * 팀에 회원을 추가하거나 회원 수를 셀 때 Team.members 전체를 읽지 않는지 SQL 수로 확인한다.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@TestInstance(Lifecycle.PER_CLASS)
+class TeamMembersTest {
+
+    private static final int MEMBERS = 500;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    Statistics statistics;
+    Long teamId;
+    Long firstMemberId;
+
+    @BeforeAll
+    void setUpTeam() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("bigTeam");
+            em.persist(team);
+            for (int i = 0; i < MEMBERS; i++) {
+                Member member = new Member("member" + i, i, team);
+                em.persist(member);
+                if (i == 0) {
+                    firstMemberId = member.getId();
+                }
+            }
+            teamId = team.getId();
+        });
+    }
+
+    @BeforeEach
+    void clearStatistics() {
+        statistics.clear();
+    }
+
+    @Test
+    void addingMemberDoesNotLoadMembers() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = em.find(Team.class, teamId);
+            statistics.clear();
+
+            em.persist(new Member("newMember", 1, team));
+            em.flush();
+
+            assertThat(Hibernate.isInitialized(team.getMembers())).isFalse();
+            assertThat(statistics.getCollectionLoadCount()).isZero();
+            // 시퀀스 조회 + member insert
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    void sizeAndContainsAreAnsweredByQueries() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = em.find(Team.class, teamId);
+            Member member = em.find(Member.class, firstMemberId);
+            statistics.clear();
+
+            assertThat(team.getMembers().size()).isEqualTo(MEMBERS);
+            assertThat(team.getMembers().contains(member)).isTrue();
+
+            assertThat(Hibernate.isInitialized(team.getMembers())).isFalse();
+            assertThat(statistics.getCollectionLoadCount()).isZero();
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void membersArePaged() {
+        Team team = transactionTemplate.execute(status -> em.find(Team.class, teamId));
+        statistics.clear();
+
+        Page<Member> page = memberRepository.findByTeam(team, PageRequest.of(2, 20, Sort.by("id")));
+
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.getContent().get(0).getUsername()).isEqualTo("member40");
+        assertThat(page.getTotalElements()).isEqualTo(MEMBERS);
+        // 내용 + count
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
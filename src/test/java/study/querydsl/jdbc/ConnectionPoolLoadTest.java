@@ -0,0 +1,127 @@
+package study.querydsl.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+/**
+ * 작은 풀(2개)에 동시 요청을 몰아서 statement 캐시 적중률과 풀 자동 확장을 확인한다.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.hikari.maximum-pool-size=2",
+    "spring.datasource.hikari.minimum-idle=2",
+    "querydsl.jdbc.pool.adaptive.enabled=true",
+    "querydsl.jdbc.pool.adaptive.interval-millis=3600000",
+    "querydsl.jdbc.pool.adaptive.min-size=2",
+    "querydsl.jdbc.pool.adaptive.max-size=8",
+    "querydsl.jdbc.pool.adaptive.latency-tolerance=1000",
+    "logging.level.org.hibernate.SQL=info"
+})
+class ConnectionPoolLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPoolLoadTest.class);
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 100;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    AdaptivePoolSizer adaptivePoolSizer;
+
+    @Autowired
+    JdbcStatistics statistics;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 100; i++) {
+                em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void concurrentSearches() throws Exception {
+        HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        int initialPoolSize = hikari.getHikariConfigMXBean().getMaximumPoolSize();
+        long hitsBefore = statistics.getCacheHits();
+        long missesBefore = statistics.getCacheMisses();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    MemberSearchCondition condition = new MemberSearchCondition();
+                    condition.setTeamName((thread + i) % 2 == 0 ? "teamA" : "teamB");
+                    condition.setAgeGoe(i % 50);
+                    memberJpaRepository.search(condition);
+                }
+            }));
+        }
+        while (!futures.stream().allMatch(Future::isDone)) {
+            adaptivePoolSizer.adjust();
+            Thread.sleep(20);
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long hits = statistics.getCacheHits() - hitsBefore;
+        long misses = statistics.getCacheMisses() - missesBefore;
+        int finalPoolSize = hikari.getHikariConfigMXBean().getMaximumPoolSize();
+        log.info("requests={} elapsed={}ms cacheHits={} cacheMisses={} pool={}->{}",
+            THREADS * REQUESTS_PER_THREAD, elapsedMillis, hits, misses, initialPoolSize, finalPoolSize);
+
+        assertThat((double) hits / (hits + misses)).isGreaterThan(0.9);
+        assertThat(finalPoolSize).isGreaterThan(initialPoolSize).isLessThanOrEqualTo(8);
+    }
+}
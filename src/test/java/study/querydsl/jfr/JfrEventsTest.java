@@ -0,0 +1,133 @@
+package study.querydsl.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+@SpringBootTest
+@Transactional
+class JfrEventsTest {
+
+    private static final List<String> EVENTS = List.of(
+        "study.querydsl.RepositoryCall", "study.querydsl.QueryFetch", "study.querydsl.JpqlRender",
+        "study.querydsl.SqlExecute", "study.querydsl.EntityLoad", "study.querydsl.Flush");
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    EntityManager em;
+
+    Long memberId;
+
+    @BeforeEach
+    void setUp() {
+        Team team = new Team("jfrTeam");
+        em.persist(team);
+        Member member = new Member("jfrMember", 30, team);
+        em.persist(member);
+        em.persist(new Member("jfrMember2", 40, team));
+        em.flush();
+        em.clear();
+        memberId = member.getId();
+    }
+
+    @Test
+    void searchEmitsRepositoryAndQueryEvents() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("jfrTeam");
+        condition.setAgeGoe(35);
+
+        List<RecordedEvent> events = record(() -> assertThat(memberRepository.search(condition)).hasSize(1));
+
+        RecordedEvent call = single(events, "study.querydsl.RepositoryCall");
+        assertThat(call.getString("method")).isEqualTo("MemberRepositoryImpl.search");
+        assertThat(call.getString("condition")).isEqualTo("teamName,ageGoe");
+        assertThat(call.getLong("rows")).isEqualTo(1);
+
+        RecordedEvent fetch = single(events, "study.querydsl.QueryFetch");
+        assertThat(fetch.getString("caller")).isEqualTo("MemberRepositoryImpl.searchInternal");
+        assertThat(fetch.getString("jpql")).contains("team.name = ?1");
+        assertThat(fetch.getLong("rows")).isEqualTo(1);
+        assertThat(fetch.getInt("statements")).isEqualTo(1);
+        assertThat(fetch.getLong("executionTime")).isPositive();
+        assertThat(fetch.getLong("executionTime") + fetch.getLong("hydrationTime"))
+            .isLessThanOrEqualTo(fetch.getDuration().toNanos());
+
+        assertThat(single(events, "study.querydsl.JpqlRender").getString("jpql")).isEqualTo(fetch.getString("jpql"));
+        assertThat(of(events, "study.querydsl.SqlExecute")).hasSize(1);
+        assertThat(QueryScope.current()).isNull();
+    }
+
+    @Test
+    void loadsLazyInitializationAndFlush() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            Member member = em.find(Member.class, memberId);
+            Team team = member.getTeam();
+            team.getName();
+            assertThat(new ArrayList<>(team.getMembers())).hasSize(2);
+            member.setAge(31);
+            em.flush();
+        });
+
+        List<RecordedEvent> loads = of(events, "study.querydsl.EntityLoad");
+        assertThat(loads).extracting(event -> event.getString("loadType") + ":" + event.getBoolean("lazy"))
+            .contains("GET:false", "IMMEDIATE_LOAD:true", "COLLECTION:true");
+        assertThat(loads).filteredOn(event -> event.getString("loadType").equals("GET"))
+            .extracting(event -> event.getString("entity") + "#" + event.getString("id"))
+            .containsExactly(Member.class.getName() + "#" + memberId);
+
+        RecordedEvent flush = single(events, "study.querydsl.Flush");
+        assertThat(flush.getInt("entities")).isEqualTo(3);
+        assertThat(of(events, "study.querydsl.SqlExecute")).isNotEmpty();
+    }
+
+    /**
+     * 다른 테스트 클래스가 동시에 실행될 수 있으므로 이 스레드의 이벤트만 본다.
+     */
+    private List<RecordedEvent> record(Runnable work) throws Exception {
+        Path file = Files.createTempFile("querydsl", ".jfr");
+        try (Recording recording = new Recording()) {
+            EVENTS.forEach(name -> recording.enable(name).withoutThreshold());
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+            long threadId = Thread.currentThread().getId();
+            return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getThread() != null && event.getThread().getJavaThreadId() == threadId)
+                .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<RecordedEvent> of(List<RecordedEvent> events, String name) {
+        return events.stream()
+            .filter(event -> event.getEventType().getName().equals(name))
+            .collect(Collectors.toList());
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> found = of(events, name);
+        assertThat(found).as(name).hasSize(1);
+        return found.get(0);
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.jfr;
+
+import java.util.List;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.BenchmarkDataset;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+
+/**
+ * 짧은 검색 쿼리 하나: JFR 기록 안 함 vs Querydsl 이벤트 기록
+ * ./gradlew benchmark --tests '*JfrOverheadBenchmarkTest'
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "logging.level.org.hibernate.SQL=info",
+    "decorator.datasource.p6spy.enable-logging=false"
+})
+class JfrOverheadBenchmarkTest {
+
+    private static final int MEMBERS = Integer.getInteger("benchmark.members", 10_000);
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 5_000;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        BenchmarkDataset.load(jdbcTemplate, MEMBERS);
+    }
+
+    @Test
+    void recordingOffVsOn() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1234");
+
+        double off = measure(condition);
+        double on;
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("RepositoryCall", "QueryFetch", "JpqlRender", "SqlExecute", "EntityLoad", "Flush")) {
+                recording.enable("study.querydsl." + name).withoutThreshold();
+            }
+            recording.start();
+            on = measure(condition);
+        }
+        System.out.printf("[jfr] members=%d search by username%n", MEMBERS);
+        System.out.printf("%-12s %12s%n", "recording", "us/search");
+        System.out.printf("%-12s %12.2f%n", "off", off);
+        System.out.printf("%-12s %12.2f%n", "on", on);
+    }
+
+    /** 검색 한 번(us) */
+    private double measure(MemberSearchCondition condition) {
+        return BenchmarkDataset.measure(WARMUP, ITERATIONS, () -> memberJpaRepository.search(condition)) * 1_000;
+    }
+}
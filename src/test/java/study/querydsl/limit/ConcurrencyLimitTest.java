@@ -0,0 +1,102 @@
+package study.querydsl.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+
+/**
+ * 전체 조회(/v1/members) 쿼리를 느리게 만들고 동시에 요청을 몰아서 거절되는지, limit 이 줄어드는지 확인한다.
+ * limit 은 max 보다 낮게 시작해서 어느 쪽으로든 움직일 수 있게 두고, smoothing=1 로 한 번에 반영한다.
+ */
+@SpringBootTest(properties = {
+    "querydsl.concurrency-limit.initial-limit=8",
+    "querydsl.concurrency-limit.min-limit=1",
+    "querydsl.concurrency-limit.max-limit=16",
+    "querydsl.concurrency-limit.smoothing=1"
+})
+@AutoConfigureMockMvc
+class ConcurrencyLimitTest {
+
+    private static final int INITIAL_LIMIT = 8;
+    private static final int REQUESTS = 12;
+    private static final long SLOW_QUERY_MILLIS = 800;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @SpyBean
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    void slowQueriesShedLoadWithRetryAfter() throws Exception {
+        // 평소 응답 시간(longRtt)은 느려지기 전 요청으로 잡힌다. 서블릿 초기화는 페이징 조회로 먼저 끝낸다.
+        mockMvc.perform(get("/v2/members")).andExpect(status().isOk());
+        mockMvc.perform(get("/v1/members")).andExpect(status().isOk());
+        assertThat(limit()).isEqualTo(INITIAL_LIMIT);
+
+        doAnswer(invocation -> {
+            Thread.sleep(SLOW_QUERY_MILLIS);
+            return invocation.callRealMethod();
+        }).when(memberJpaRepository).search(any(MemberSearchCondition.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+        try {
+            List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                responses.add(executor.submit(() -> mockMvc.perform(get("/v1/members")).andReturn().getResponse()));
+            }
+
+            // 전체 조회가 밀려 있어도 페이징 조회는 limit 이 따로라서 처리된다.
+            Thread.sleep(SLOW_QUERY_MILLIS / 5);
+            mockMvc.perform(get("/v2/members")).andExpect(status().isOk());
+
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<MockHttpServletResponse> future : responses) {
+                MockHttpServletResponse response = future.get();
+                statuses.add(response.getStatus());
+                if (response.getStatus() == 503) {
+                    assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+                }
+            }
+            assertThat(statuses).containsOnly(200, 503);
+            assertThat(statuses).filteredOn(status -> status == 200).hasSizeLessThanOrEqualTo(INITIAL_LIMIT + 2);
+            assertThat(statuses).filteredOn(status -> status == 503).hasSizeGreaterThanOrEqualTo(2);
+            assertThat(limit()).isLessThan(INITIAL_LIMIT);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(meterRegistry.get("member.search.concurrency.rejected").tag("endpoint", "unpaged")
+            .functionCounter().count()).isGreaterThanOrEqualTo(2);
+        assertThat(meterRegistry.get("member.search.concurrency.rejected").tag("endpoint", "paged")
+            .functionCounter().count()).isZero();
+        assertThat(meterRegistry.get("member.search.concurrency.in-flight").tag("endpoint", "unpaged")
+            .gauge().value()).isZero();
+    }
+
+    private double limit() {
+        return meterRegistry.get("member.search.concurrency.limit").tag("endpoint", "unpaged").gauge().value();
+    }
+}
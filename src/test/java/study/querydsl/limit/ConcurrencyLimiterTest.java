@@ -0,0 +1,77 @@
+package study.querydsl.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void rejectsOverLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 10, 2.0, 0.2);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getRejected()).isEqualTo(1);
+
+        limiter.release(millis(10));
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void growsUnderLoadWhileLatencyIsSteady() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 2, 50, 2.0, 0.2);
+
+        cycles(limiter, 100, 10);
+
+        assertThat(limiter.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void doesNotGrowWhenIdle() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 2, 50, 2.0, 0.2);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(millis(10));
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shrinksWhenDatabaseSlowsDownAndRecovers() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 2, 20, 2.0, 0.2);
+        cycles(limiter, 20, 10);
+        assertThat(limiter.getLimit()).isEqualTo(20);
+
+        cycles(limiter, 10, 200);
+        assertThat(limiter.getLimit()).isLessThanOrEqualTo(6);
+
+        // 느린 상태가 계속되면 평소 응답 시간(longRtt)이 따라 올라가서 다시 늘어난다.
+        cycles(limiter, 100, 200);
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    /**
+     * limit 까지 채웠다가 모두 같은 응답 시간으로 돌려준다.
+     */
+    private static void cycles(ConcurrencyLimiter limiter, int cycles, long rttMillis) {
+        for (int i = 0; i < cycles; i++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int j = 0; j < acquired; j++) {
+                limiter.release(millis(rttMillis));
+            }
+        }
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,258 @@
+package study.querydsl.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.outbox.ChangeEvent.ChangeType;
+import study.querydsl.repository.MemberTestRepository;
+import study.querydsl.repository.support.ComputedColumnQueryFactory;
+import study.querydsl.repository.support.ComputedColumns;
+
+/**
+ * 롤백된 트랜잭션이 남긴 빈 id를 기다리지 않도록 gap-timeout을 0으로, 대기 목록에서 버리는 gap-expiry 를 1초로 둔다.
+ * (빈 id 앞에서 멈추는 것은 deliveryStopsAtRecentGap에서 확인)
+ */
+@SpringBootTest(properties = {
+    "querydsl.outbox.relay-interval-millis=3600000",
+    "querydsl.outbox.gap-timeout=0s",
+    "querydsl.outbox.gap-expiry=1s"
+})
+class ChangeEventRelayTest {
+
+    @Autowired
+    ChangeEventRelay relay;
+
+    @Autowired
+    RecordingSubscriber subscriber;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ChangeEventWriter changeEventWriter;
+
+    @BeforeEach
+    void setUp() {
+        relay.relay();
+        subscriber.events.clear();
+    }
+
+    @Test
+    void entityChangesAreDeliveredInOrder() {
+        Team team = new Team("teamA");
+        Member member = new Member("member1", 10, team);
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(team);
+            em.persist(member);
+        });
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, team.getId()).setName("teamB"));
+
+        relay.relay();
+
+        assertThat(subscriber.events)
+            .extracting(ChangeEvent::getAggregateType, ChangeEvent::getAggregateId, ChangeEvent::getChangeType)
+            .containsExactly(
+                tuple("Team", team.getId(), ChangeType.CREATED),
+                tuple("Member", member.getId(), ChangeType.CREATED),
+                tuple("Team", team.getId(), ChangeType.UPDATED));
+    }
+
+    @Test
+    void rolledBackChangesAreNotDelivered() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Team("rollback"));
+            em.flush();
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Team("afterRollback")));
+
+        relay.relay();
+        assertThat(subscriber.events).extracting(ChangeEvent::getChangeType).containsExactly(ChangeType.CREATED);
+        assertThat(pendingGaps()).isEqualTo(1);
+
+        Thread.sleep(1_100);
+        relay.relay();
+        assertThat(pendingGaps()).isZero();
+        assertThat(subscriber.events).hasSize(1);
+    }
+
+    /**
+     * 먼저 id를 받은 트랜잭션이 뒤의 트랜잭션보다 늦게 커밋되어도 전달된다.
+     */
+    @Test
+    void lateCommitBehindSkippedGapIsDelivered() throws Exception {
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Team slow = new Team("slowCommit");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> slowTransaction = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                em.persist(slow);
+                em.flush();
+                inserted.countDown();
+                awaitQuietly(commit);
+            }));
+            assertThat(inserted.await(5, TimeUnit.SECONDS)).isTrue();
+            Team fast = new Team("fastCommit");
+            transactionTemplate.executeWithoutResult(status -> em.persist(fast));
+
+            relay.relay();
+            assertThat(subscriber.events).extracting(ChangeEvent::getAggregateId).containsExactly(fast.getId());
+
+            commit.countDown();
+            slowTransaction.get(5, TimeUnit.SECONDS);
+            relay.relay();
+
+            assertThat(subscriber.events).extracting(ChangeEvent::getAggregateId)
+                .containsExactly(fast.getId(), slow.getId());
+            assertThat(pendingGaps()).isZero();
+        } finally {
+            commit.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void bulkUpdateIsRecordedAsRange() {
+        List<Member> members = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int age = 10; age <= 50; age += 10) {
+                Member member = new Member("bulk" + age, age);
+                em.persist(member);
+                members.add(member);
+            }
+        });
+        relay.relay();
+        subscriber.events.clear();
+
+        Long updated = transactionTemplate.execute(status -> memberTestRepository.bulkAddAge(20, 40, 1));
+        relay.relay();
+
+        assertThat(updated).isEqualTo(3);
+        assertThat(subscriber.events).hasSize(1);
+        ChangeEvent event = subscriber.events.get(0);
+        assertThat(event.getChangeType()).isEqualTo(ChangeType.BULK_UPDATED);
+        assertThat(event.getRangeStart()).isEqualTo(members.get(1).getId());
+        assertThat(event.getRangeEnd()).isEqualTo(members.get(3).getId());
+    }
+
+    @Test
+    void rawQueryFactoryDeleteIsRecordedAsRange() {
+        Member member = new Member("rawDelete", 77);
+        transactionTemplate.executeWithoutResult(status -> em.persist(member));
+        relay.relay();
+        subscriber.events.clear();
+
+        Long deleted = transactionTemplate.execute(status -> new ComputedColumnQueryFactory(em, new ComputedColumns(),
+            changeEventWriter).delete(QMember.member).where(QMember.member.username.eq("rawDelete")).execute());
+        relay.relay();
+
+        assertThat(deleted).isEqualTo(1);
+        assertThat(subscriber.events)
+            .extracting(ChangeEvent::getAggregateType, ChangeEvent::getChangeType, ChangeEvent::getRangeStart,
+                ChangeEvent::getRangeEnd)
+            .containsExactly(tuple("Member", ChangeType.BULK_DELETED, member.getId(), member.getId()));
+    }
+
+    @Test
+    void failedBatchIsRedelivered() {
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Team("retry")));
+        subscriber.failNext.set(true);
+
+        relay.relay();
+        assertThat(subscriber.events).isEmpty();
+
+        relay.relay();
+        assertThat(subscriber.events).extracting(ChangeEvent::getChangeType).containsExactly(ChangeType.CREATED);
+    }
+
+    @Test
+    void deliveryStopsAtRecentGap() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ChangeEvent> events = Arrays.asList(event(11, now), event(14, now));
+
+        ChangeEventRelay.Batch recent = ChangeEventRelay.deliverable(10, events, now.minusSeconds(5));
+        assertThat(recent.events).extracting(ChangeEvent::getId).containsExactly(11L);
+        assertThat(recent.gaps).isEmpty();
+
+        ChangeEventRelay.Batch old = ChangeEventRelay.deliverable(10, events, now.plusSeconds(1));
+        assertThat(old.events).extracting(ChangeEvent::getId).containsExactly(11L, 14L);
+        assertThat(old.gaps).containsExactly(12L, 13L);
+    }
+
+    private long pendingGaps() {
+        return jdbcTemplate.queryForObject("select count(*) from change_event_gap", Long.class);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ChangeEvent event(long id, LocalDateTime createdAt) {
+        return new ChangeEvent(id, "Member", id, ChangeType.CREATED, null, null, null, createdAt);
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+    }
+
+    static class RecordingSubscriber implements ChangeEventSubscriber {
+
+        final List<ChangeEvent> events = Collections.synchronizedList(new ArrayList<>());
+        final AtomicBoolean failNext = new AtomicBoolean();
+
+        @Override
+        public String getName() {
+            return "recording";
+        }
+
+        @Override
+        public void onEvents(List<ChangeEvent> batch) {
+            if (failNext.compareAndSet(true, false)) {
+                throw new IllegalStateException("simulated failure");
+            }
+            events.addAll(batch);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.readmodel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.BenchmarkDataset;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * 조인 검색(member left join team)과 읽기 모델(member_team_read) 검색 비교
+ * ./gradlew benchmark --tests '*MemberTeamReadModelBenchmarkTest' -Dbenchmark.members=1000000
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "querydsl.read-model.enabled=true",
+    "querydsl.read-model.rebuild-on-startup=false",
+    "logging.level.org.hibernate.SQL=info",
+    "decorator.datasource.p6spy.enable-logging=false"
+})
+class MemberTeamReadModelBenchmarkTest {
+
+    private static final int MEMBERS = Integer.getInteger("benchmark.members", 200_000);
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberTeamReadModelUpdater updater;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    ReadModelMemberRepository readModel;
+
+    @BeforeEach
+    void setUp() {
+        readModel = new ReadModelMemberRepository(em);
+        if (BenchmarkDataset.load(jdbcTemplate, MEMBERS)) {
+            updater.rebuild();
+        }
+    }
+
+    @Test
+    void joinVsReadModel() {
+        System.out.printf("[read-model] members=%d%n", MEMBERS);
+        System.out.printf("%-24s %12s %12s %8s%n", "condition", "join(ms)", "read(ms)", "speedup");
+
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("team7");
+        byTeam.setAgeGoe(20);
+        byTeam.setAgeLoe(40);
+        compare("teamName+age page", () -> memberRepository.searchPageComplex(byTeam, PageRequest.of(0, 20)),
+            () -> readModel.searchPageComplex(byTeam, PageRequest.of(0, 20)));
+
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUsername("member12345");
+        compare("username", () -> memberRepository.search(byUsername), () -> readModel.search(byUsername));
+
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(90);
+        compare("age page", () -> memberRepository.searchPageComplex(byAge, PageRequest.of(0, 20)),
+            () -> readModel.searchPageComplex(byAge, PageRequest.of(0, 20)));
+
+        compare("teamName list", () -> memberRepository.search(byTeam), () -> readModel.search(byTeam));
+    }
+
+    private void compare(String name, Supplier<Object> join, Supplier<Object> read) {
+        assertThat(count(read.get())).isEqualTo(count(join.get()));
+        double joinMillis = measure(join);
+        double readMillis = measure(read);
+        System.out.printf("%-24s %12.3f %12.3f %7.1fx%n", name, joinMillis, readMillis, joinMillis / readMillis);
+    }
+
+    private static long count(Object result) {
+        return result instanceof Page ? ((Page<?>) result).getTotalElements() : ((List<?>) result).size();
+    }
+
+    private double measure(Supplier<Object> query) {
+        return BenchmarkDataset.measure(WARMUP, ITERATIONS, query::get);
+    }
+}
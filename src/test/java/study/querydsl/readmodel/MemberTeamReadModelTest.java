@@ -0,0 +1,175 @@
+package study.querydsl.readmodel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+import study.querydsl.outbox.ChangeEvent;
+import study.querydsl.outbox.ChangeEvent.ChangeType;
+import study.querydsl.outbox.ChangeEventRelay;
+import study.querydsl.outbox.ChangeEventWriter;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+import study.querydsl.repository.support.ComputedColumnQueryFactory;
+import study.querydsl.repository.support.ComputedColumns;
+import study.querydsl.version.DataVersions;
+
+@SpringBootTest(properties = {
+    "querydsl.read-model.enabled=true",
+    "querydsl.read-model.search-enabled=true",
+    "querydsl.outbox.relay-interval-millis=3600000",
+    "querydsl.outbox.gap-timeout=0s"
+})
+class MemberTeamReadModelTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    ChangeEventRelay relay;
+
+    @Autowired
+    ChangeEventWriter changeEventWriter;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberTeamReadModelUpdater updater;
+
+    @Autowired
+    DataVersions dataVersions;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    void readModelFollowsWrites() {
+        Team team = new Team("readA");
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(team);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("read" + i, i * 10, i % 2 == 0 ? team : null));
+            }
+        });
+        relay.relay();
+        assertSameAsJoin(new MemberSearchCondition());
+        assertThat(memberRepository.search(teamName("readA"))).hasSize(5);
+
+        // 팀 이름 변경
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, team.getId()).setName("readB"));
+        relay.relay();
+        assertThat(memberRepository.search(teamName("readA"))).isEmpty();
+        assertThat(memberRepository.search(teamName("readB"))).hasSize(5);
+
+        // 벌크 수정, 삭제
+        transactionTemplate.executeWithoutResult(status -> memberTestRepository.bulkAddAge(30, 60, 1));
+        transactionTemplate.executeWithoutResult(status -> memberTestRepository.bulkDeleteByAgeLoe(20));
+        relay.relay();
+        assertSameAsJoin(new MemberSearchCondition());
+        assertThat(memberRepository.search(new MemberSearchCondition())).hasSize(7)
+            .extracting(MemberTeamDto::getAge).contains(31, 41, 51, 61);
+    }
+
+    @Test
+    void pagingUsesReadModel() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(0);
+
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 3)).getTotalElements())
+            .isEqualTo(memberJpaRepository.search(condition).size());
+    }
+
+    @Test
+    void updateBumpsOnlyAffectedTeams() {
+        Team teamC = new Team("readC");
+        Team teamD = new Team("readD");
+        Team teamE = new Team("readE");
+        Member member = new Member("readMover", 20, teamC);
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(teamC);
+            em.persist(teamD);
+            em.persist(teamE);
+            em.persist(member);
+        });
+        relay.relay();
+        String etagC = dataVersions.etag(teamName("readC"));
+        String etagD = dataVersions.etag(teamName("readD"));
+        String etagE = dataVersions.etag(teamName("readE"));
+
+        // 엔티티를 거치지 않고 팀을 옮긴 뒤 이벤트만 반영한다. (원본 쪽 버전 증가 없이 읽기 모델 갱신분만 본다)
+        jdbcTemplate.update("update member set team_id = ? where member_id = ?", teamD.getId(), member.getId());
+        updater.onEvents(List.of(new ChangeEvent(null, Member.class.getSimpleName(), member.getId(),
+            ChangeType.UPDATED, null, null, null, LocalDateTime.now())));
+
+        assertThat(memberRepository.search(teamName("readD"))).extracting(MemberTeamDto::getUsername)
+            .containsExactly("readMover");
+        assertThat(dataVersions.etag(teamName("readC"))).isNotEqualTo(etagC);
+        assertThat(dataVersions.etag(teamName("readD"))).isNotEqualTo(etagD);
+        assertThat(dataVersions.etag(teamName("readE"))).isEqualTo(etagE);
+    }
+
+    @Test
+    void bulkTeamRenameReachesReadModel() {
+        Team teamF = new Team("readF");
+        Team teamG = new Team("readG");
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(teamF);
+            em.persist(teamG);
+            em.persist(new Member("readF1", 10, teamF));
+            em.persist(new Member("readG1", 20, teamG));
+        });
+        relay.relay();
+
+        long renamed = transactionTemplate.execute(status -> new ComputedColumnQueryFactory(em, new ComputedColumns(),
+            changeEventWriter).update(QTeam.team)
+            .set(QTeam.team.name, QTeam.team.name.concat("x"))
+            .where(QTeam.team.name.in("readF", "readG"))
+            .execute());
+        String etagF = dataVersions.etag(teamName("readF"));
+        String etagFx = dataVersions.etag(teamName("readFx"));
+        relay.relay();
+
+        assertThat(renamed).isEqualTo(2);
+        assertThat(memberRepository.search(teamName("readF"))).isEmpty();
+        assertThat(memberRepository.search(teamName("readFx"))).extracting(MemberTeamDto::getUsername)
+            .containsExactly("readF1");
+        assertThat(memberRepository.search(teamName("readGx"))).extracting(MemberTeamDto::getUsername)
+            .containsExactly("readG1");
+        assertThat(dataVersions.etag(teamName("readF"))).isNotEqualTo(etagF);
+        assertThat(dataVersions.etag(teamName("readFx"))).isNotEqualTo(etagFx);
+    }
+
+    private void assertSameAsJoin(MemberSearchCondition condition) {
+        assertThat(memberRepository.search(condition))
+            .containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition));
+    }
+
+    private static MemberSearchCondition teamName(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
@@ -0,0 +1,148 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.repository.MemberField.AGE;
+import static study.querydsl.repository.MemberField.TEAM_ID;
+import static study.querydsl.repository.MemberField.TEAM_NAME;
+import static study.querydsl.repository.MemberField.USERNAME;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 실행된 SQL 을 StatementInspector 로 받아서 select 절과 team 조인을 확인한다.
+ */
+@SpringBootTest
+@Transactional
+class MemberFieldTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    SqlRecorder sqlRecorder;
+
+    Team teamA;
+
+    @BeforeEach
+    void setUp() {
+        teamA = new Team("fieldTeamA");
+        Team teamB = new Team("fieldTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("field1", 10, teamA));
+        em.persist(new Member("field2", 20, teamB));
+        em.persist(new Member("field3", 30));
+        em.flush();
+        em.clear();
+        sqlRecorder.statements.clear();
+    }
+
+    @Test
+    void parse() {
+        assertThat(MemberField.parse("username, teamName,username")).containsExactly(USERNAME, TEAM_NAME);
+        assertThat(MemberField.parse(" ")).isNull();
+        assertThatThrownBy(() -> MemberField.parse("username,password"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void selectsOnlyRequestedColumnsWithoutTeamJoin() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(20);
+
+        List<Map<String, Object>> result = memberJpaRepository.search(condition, List.of(USERNAME, TEAM_ID));
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0)).containsOnlyKeys("username", "teamId");
+        assertThat(result).extracting(row -> row.get("username")).containsExactlyInAnyOrder("field1", "field2");
+        assertThat(result).filteredOn(row -> "field1".equals(row.get("username")))
+            .extracting(row -> row.get("teamId")).containsExactly(teamA.getId());
+
+        String sql = lastSelect();
+        assertThat(sql).doesNotContain("join").doesNotContain(" age as");
+    }
+
+    @Test
+    void teamNameFieldOrConditionJoinsTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("fieldTeamA");
+
+        assertThat(memberJpaRepository.search(condition, List.of(AGE)))
+            .containsExactly(Map.of("age", 10));
+        assertThat(lastSelect()).contains("left outer join team");
+
+        List<Map<String, Object>> named = memberJpaRepository.search(new MemberSearchCondition(), List.of(TEAM_NAME));
+        assertThat(named).extracting(row -> row.get("teamName"))
+            .contains("fieldTeamA", "fieldTeamB", null);
+        assertThat(lastSelect()).contains("left outer join team");
+    }
+
+    @Test
+    void pageWithFields() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("field2");
+
+        Page<Map<String, Object>> page = memberRepository.searchPageFields(condition, List.of(USERNAME),
+            PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).containsExactly(Map.of("username", "field2"));
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(sqlRecorder.statements).filteredOn(sql -> sql.startsWith("select"))
+            .isNotEmpty()
+            .noneMatch(sql -> sql.contains("join"));
+    }
+
+    private String lastSelect() {
+        List<String> statements = sqlRecorder.statements;
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            if (statements.get(i).startsWith("select")) {
+                return statements.get(i);
+            }
+        }
+        throw new AssertionError("no select statement");
+    }
+
+    @TestConfiguration
+    static class SqlRecorderConfig {
+
+        @Bean
+        SqlRecorder sqlRecorder() {
+            return new SqlRecorder();
+        }
+    }
+
+    static class SqlRecorder implements StatementInspector {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.BenchmarkDataset;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.KeyBatches;
+import study.querydsl.sql.MemberKeyTable;
+
+/**
+ * id 목록 조회: member.id.in(전체 목록) 한 번 vs padding 한 IN 배치(+fan-out) vs 임시 테이블 조인, 목록 크기별
+ * 목록 크기가 매번 달라지는 실제 호출처럼 크기에 조금씩 다른 값을 더해서 부른다. (IN 한 번은 크기마다 SQL 이 새로 생긴다)
+ * ./gradlew benchmark --tests '*MemberKeyRepositoryBenchmarkTest'
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "logging.level.org.hibernate.SQL=info",
+    "decorator.datasource.p6spy.enable-logging=false",
+    "querydsl.fan-out.timeout=30s",
+    "querydsl.key-search.temp-table-threshold=" + Integer.MAX_VALUE
+})
+class MemberKeyRepositoryBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberKeyRepositoryBenchmarkTest.class);
+
+    private static final int MEMBERS = Integer.getInteger("benchmark.members", 100_000);
+    private static final int[] SIZES = {100, 1_000, 4_000, 20_000, 50_000};
+    /** IN 한 번은 키 5만 개에서 호출마다 1분 가까이 걸리므로 이 크기까지만 잰다. */
+    private static final int SINGLE_IN_MAX = 20_000;
+    private static final int ITERATIONS = 5;
+
+    @Autowired
+    MemberKeyRepository memberKeyRepository;
+
+    @Autowired
+    MemberKeyTable memberKeyTable;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        BenchmarkDataset.load(jdbcTemplate, MEMBERS);
+    }
+
+    @Test
+    void listSizes() {
+        List<Long> all = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            all.add(BenchmarkDataset.memberId(i));
+        }
+        Collections.shuffle(all, new Random(7));
+
+        log.info("[key-search] members={} cpus={}", MEMBERS, Runtime.getRuntime().availableProcessors());
+        log.info(String.format("%8s %14s %14s %14s", "keys", "single IN(ms)", "batches(ms)", "temp table(ms)"));
+        for (int size : SIZES) {
+            if (size > MEMBERS) {
+                break;
+            }
+            Function<Integer, List<Long>> keys = i -> all.subList(i, size);
+            Function<List<Long>, List<MemberTeamDto>> singleIn = ids -> transactionTemplate.execute(status -> {
+                List<MemberTeamDto> rows = new JPAQueryFactory(em)
+                    .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.in(ids))
+                    .fetch();
+                return KeyBatches.orderBy(ids, rows, MemberTeamDto::getMemberId);
+            });
+            Function<List<Long>, List<MemberTeamDto>> batches = memberKeyRepository::searchByIds;
+            Function<List<Long>, List<MemberTeamDto>> tempTable =
+                ids -> transactionTemplate.execute(status -> memberKeyTable.searchByIds(ids));
+
+            assertThat(batches.apply(keys.apply(0))).isEqualTo(tempTable.apply(keys.apply(0)))
+                .extracting(MemberTeamDto::getMemberId).containsExactlyElementsOf(keys.apply(0));
+
+            log.info(String.format("%8d %14s %14.2f %14.2f", size,
+                size <= SINGLE_IN_MAX ? String.format("%.2f", measure(i -> singleIn.apply(keys.apply(i)))) : "-",
+                measure(i -> batches.apply(keys.apply(i))),
+                measure(i -> tempTable.apply(keys.apply(i)))));
+        }
+    }
+
+    /** i 번째 호출은 목록 크기가 size - i 다. */
+    private static double measure(Function<Integer, ?> search) {
+        return BenchmarkDataset.measure(1, ITERATIONS, i -> search.apply(i));
+    }
+}
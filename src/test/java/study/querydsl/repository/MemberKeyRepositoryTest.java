@@ -0,0 +1,122 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * IN 배치 fan-out 은 커밋된 데이터만 보므로 데이터를 커밋한다. (별도 컨텍스트 = 별도 메모리 DB)
+ * 배치 4개, 키 10개를 넘으면 임시 테이블로 조회한다.
+ */
+@SpringBootTest(properties = {
+    "querydsl.key-search.batch-size=4",
+    "querydsl.key-search.parallelism=2",
+    "querydsl.key-search.temp-table-threshold=10"
+})
+class MemberKeyRepositoryTest {
+
+    @Autowired
+    MemberKeyRepository memberKeyRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        ids = transactionTemplate.execute(status -> {
+            List<Long> memberIds = new ArrayList<>();
+            List<Member> members = em.createQuery("select m from Member m where m.username like 'key%' order by m.id",
+                Member.class).getResultList();
+            if (members.isEmpty()) {
+                Team team = new Team("keyTeam");
+                em.persist(team);
+                for (int i = 0; i < 20; i++) {
+                    Member member = new Member("key" + i, i, i % 2 == 0 ? team : null);
+                    em.persist(member);
+                    members.add(member);
+                }
+                // 이름이 같은 회원
+                Member twin = new Member("key3", 99, team);
+                em.persist(twin);
+                members.add(twin);
+            }
+            members.forEach(member -> memberIds.add(member.getId()));
+            return memberIds;
+        });
+    }
+
+    @Test
+    void inBatchesKeepCallerOrder() {
+        List<Long> keys = List.of(ids.get(7), ids.get(2), -1L, ids.get(5), ids.get(2), ids.get(0), ids.get(9));
+
+        List<MemberTeamDto> result = memberKeyRepository.searchByIds(keys);
+
+        assertThat(result).extracting(MemberTeamDto::getMemberId)
+            .containsExactly(ids.get(7), ids.get(2), ids.get(5), ids.get(0), ids.get(9));
+        assertThat(result.get(0).getTeamName()).isNull();
+        assertThat(result.get(1).getTeamName()).isEqualTo("keyTeam");
+    }
+
+    @Test
+    void tempTableKeepsCallerOrder() {
+        List<Long> keys = new ArrayList<>();
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            keys.add(ids.get(i));
+        }
+        keys.add(-1L);
+
+        assertThat(memberKeyRepository.searchByIds(keys)).extracting(MemberTeamDto::getMemberId)
+            .containsExactlyElementsOf(keys.subList(0, ids.size()));
+    }
+
+    @Test
+    void usernamesReturnEveryMemberWithTheName() {
+        List<String> small = List.of("key4", "key3", "nobody");
+        List<String> large = new ArrayList<>(small);
+        for (int i = 10; i < 20; i++) {
+            large.add("key" + i);
+        }
+
+        List<MemberTeamDto> inBatches = memberKeyRepository.searchByUsernames(small);
+        List<MemberTeamDto> tempTable = memberKeyRepository.searchByUsernames(large);
+
+        assertThat(inBatches).extracting(MemberTeamDto::getUsername).containsExactly("key4", "key3", "key3");
+        assertThat(inBatches).extracting(MemberTeamDto::getAge).containsExactly(4, 3, 99);
+        assertThat(tempTable.subList(0, 3)).isEqualTo(inBatches);
+        assertThat(tempTable).hasSize(13);
+    }
+
+    @Test
+    void tempTableDoesNotCommitCallerTransaction() {
+        List<Long> keys = new ArrayList<>(ids);
+        transactionTemplate.executeWithoutResult(status -> {
+            Member pending = new Member("keyPending", 1);
+            em.persist(pending);
+            keys.add(0, pending.getId());
+
+            // flush 한 뒤 조회하므로 아직 커밋하지 않은 회원도 보인다.
+            assertThat(memberKeyRepository.searchByIds(keys)).extracting(MemberTeamDto::getUsername)
+                .startsWith("keyPending", "key0");
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberKeyRepository.searchByIds(keys)).extracting(MemberTeamDto::getUsername)
+            .doesNotContain("keyPending")
+            .hasSize(ids.size());
+    }
+}
@@ -0,0 +1,93 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+class MemberTestRepositoryTest {
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    @Transactional
+    void scanDoesNotFillPersistenceContext() {
+        Team team = new Team("scanTeam");
+        em.persist(team);
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("scan" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("scanTeam");
+        List<MemberTeamDto> scanned = new ArrayList<>();
+        long count = memberTestRepository.scanMemberTeam(condition, scanned::add);
+
+        assertThat(count).isEqualTo(20);
+        assertThat(scanned).containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition));
+
+        List<Member> members = new ArrayList<>();
+        memberTestRepository.scanMembers(10, members::add);
+        assertThat(members).extracting(Member::getUsername).contains("scan10", "scan19").doesNotContain("scan9");
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    @Transactional
+    void statelessWritesRecordChangeEvents() {
+        Team team = new Team("statelessTeam");
+        em.persist(team);
+        em.flush();
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            members.add(new Member("stateless" + i, i, team));
+        }
+        assertThat(memberTestRepository.insertAll(members)).isEqualTo(5);
+        assertThat(members).allSatisfy(member -> assertThat(member.getId()).isNotNull());
+
+        members.forEach(member -> member.setAge(member.getAge() + 100));
+        memberTestRepository.updateAll(members);
+
+        assertThat(jdbcTemplate.queryForList(
+            "select age from member where username like 'stateless%' order by age", Integer.class))
+            .containsExactly(100, 101, 102, 103, 104);
+        assertThat(jdbcTemplate.queryForObject(
+            "select count(*) from change_event where aggregate_type = 'Member' and change_type in ('CREATED', 'UPDATED')"
+                + " and aggregate_id = ?", Long.class, members.get(0).getId()))
+            .isEqualTo(2);
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isEqualTo(1);
+    }
+
+    @Test
+    void statelessWriteRequiresTransaction() {
+        assertThatThrownBy(() -> memberTestRepository.insertAll(List.of(new Member("noTx", 1))))
+            .isInstanceOf(InvalidDataAccessApiUsageException.class);
+    }
+}
@@ -0,0 +1,126 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberCreateRequest;
+import study.querydsl.entity.Member;
+
+/**
+ * 동시 가입: 요청마다 트랜잭션 하나 vs MemberWriteBehind (모아서 한 트랜잭션 + JDBC batch)
+ * H2 인메모리는 커밋 비용이 거의 없으므로, 원격 DB 의 커밋(왕복 + 디스크 동기화)은 트랜잭션마다
+ * benchmark.commit-latency-ms 만큼 쉬는 것으로 흉내 낸다.
+ * ./gradlew benchmark --tests '*MemberWriteBehindBenchmarkTest'
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "logging.level.org.hibernate.SQL=info",
+    "decorator.datasource.p6spy.enable-logging=false"
+})
+class MemberWriteBehindBenchmarkTest {
+
+    private static final int CREATES = Integer.getInteger("benchmark.creates", 5_000);
+    private static final int CLIENTS = 64;
+    private static final long COMMIT_LATENCY_MS = Long.getLong("benchmark.commit-latency-ms", 2);
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void transactionPerRequestVsWriteBehind() throws Exception {
+        TransactionTemplate transactionTemplate = new SlowCommitTransactionTemplate(transactionManager);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MemberWriteBehind memberWriteBehind = new MemberWriteBehind(em, transactionTemplate, meterRegistry, 1_000, 100, Duration.ofMillis(1), Duration.ofMillis(50));
+        IntConsumer perRequest = i -> transactionTemplate.executeWithoutResult(status ->
+            em.persist(new Member("perRequest" + i, i % 100)));
+        IntConsumer writeBehind = i -> memberWriteBehind.create(new MemberCreateRequest("writeBehind" + i, i % 100, null))
+            .join();
+
+        // 워밍업
+        run("warmup", 1_000, perRequest);
+        run("warmup", 1_000, i -> writeBehind.accept(CREATES + i));
+
+        System.out.printf("[write-behind] creates=%d clients=%d commit-latency=%dms cpus=%d%n", CREATES, CLIENTS,
+            COMMIT_LATENCY_MS, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-24s %12s %12s%n", "mode", "elapsed(ms)", "creates/s");
+        double perRequestMillis = run("transaction per request", CREATES, i -> perRequest.accept(1_000 + i));
+        double writeBehindMillis = run("write-behind", CREATES, i -> writeBehind.accept(CREATES + 1_000 + i));
+        System.out.printf("speedup %.1fx (write-behind batch: mean size %.1f, mean %.2fms)%n",
+            perRequestMillis / writeBehindMillis,
+            meterRegistry.get("member.write-behind.batch.size").summary().mean(),
+            meterRegistry.get("member.write-behind.batch").timer().mean(TimeUnit.MILLISECONDS));
+        memberWriteBehind.close();
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member where username like 'writeBehind%'",
+            Long.class)).isEqualTo(CREATES + 1_000);
+    }
+
+    private double run(String name, int creates, IntConsumer create) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                int offset = client;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < creates; i += CLIENTS) {
+                        create.accept(i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+            if (!name.equals("warmup")) {
+                System.out.printf("%-24s %12.1f %12.0f%n", name, millis, creates / millis * 1000);
+            }
+            return millis;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class SlowCommitTransactionTemplate extends TransactionTemplate {
+
+        private SlowCommitTransactionTemplate(PlatformTransactionManager transactionManager) {
+            super(transactionManager);
+        }
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return super.execute(status -> {
+                T result = action.doInTransaction(status);
+                try {
+                    Thread.sleep(COMMIT_LATENCY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return result;
+            });
+        }
+    }
+}
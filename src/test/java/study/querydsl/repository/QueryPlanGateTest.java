@@ -0,0 +1,226 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.SqlPlanRecorder.Statement;
+
+/**
+ * 저장소 메서드 x 검색 조건 픽스처마다 실행된 SQL, 개수, H2 실행 계획을 골든 파일(golden/query-plans)과 비교한다.
+ *
+ * - SQL 개수가 늘거나(조인/건수 쿼리 추가, N+1) 인덱스로 읽던 테이블을 tableScan 으로 읽으면 실패한다.
+ * - 그 밖의 차이(SQL 이 줄거나 계획 문구가 바뀜)는 실패하지 않고 골든 파일을 다시 만들라고 알린다.
+ * - 골든 파일이나 그 안의 픽스처가 없으면 실패한다. -Dgolden.update=true 면 비교하지 않고 golden.dir 에 새로 쓴다.
+ *
+ * 데이터는 fixtures/basic.sql 스냅샷을 쓴다. (SQL 이 실행되는 스레드만 기록하므로 병렬 실행과 섞이지 않는다)
+ */
+@SpringBootTest(properties = "spring.datasource.data=classpath:fixtures/basic.sql")
+class QueryPlanGateTest {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanGateTest.class);
+    private static final String GOLDEN_RESOURCE = "golden/query-plans/";
+    private static final boolean UPDATE = Boolean.getBoolean("golden.update");
+    private static final Path GOLDEN_DIR = Paths.get(
+        System.getProperty("golden.dir", "src/test/resources/" + GOLDEN_RESOURCE));
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberKeyRepository memberKeyRepository;
+
+    @Autowired
+    SqlPlanRecorder sqlPlanRecorder;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @TestFactory
+    Stream<DynamicTest> repositoryMethods() {
+        PageRequest page = PageRequest.of(0, 3);
+        Map<String, Map<String, Runnable>> methods = new LinkedHashMap<>();
+        methods.put("MemberRepository.search", byCondition(memberRepository::search));
+        methods.put("MemberRepository.searchPageSimple", byCondition(c -> memberRepository.searchPageSimple(c, page)));
+        methods.put("MemberRepository.searchPageComplex",
+            byCondition(c -> memberRepository.searchPageComplex(c, page)));
+        methods.put("MemberRepository.searchPageFields",
+            byCondition(c -> memberRepository.searchPageFields(c, List.of(MemberField.USERNAME), page)));
+        methods.put("MemberRepository.existsByCondition", byCondition(memberRepository::existsByCondition));
+        methods.put("MemberRepository.findByUsername", byUsername(memberRepository::findByUsername));
+        methods.put("MemberJpaRepository.search", byCondition(memberJpaRepository::search));
+        methods.put("MemberJpaRepository.searchFields",
+            byCondition(c -> memberJpaRepository.search(c, List.of(MemberField.USERNAME, MemberField.TEAM_ID))));
+        methods.put("MemberJpaRepository.searchByBuilder", byCondition(memberJpaRepository::searchByBuilder));
+        methods.put("MemberJpaRepository.searchStream", byCondition(c -> memberJpaRepository.searchStream(c, dto -> {
+        })));
+        methods.put("MemberJpaRepository.findByUsername_querydsl",
+            byUsername(memberJpaRepository::findByUsername_querydsl));
+        methods.put("MemberKeyRepository.searchByIds",
+            byKeys(memberKeyRepository::searchByIds, List.of(4L), List.of(6L, 3L, 5L), List.of(-1L, -2L)));
+        methods.put("MemberKeyRepository.searchByUsernames", byKeys(memberKeyRepository::searchByUsernames,
+            List.of("member2"), List.of("member4", "member1", "member3"), List.of("nobody", "nobody2")));
+
+        return methods.entrySet().stream()
+            .map(method -> DynamicTest.dynamicTest(method.getKey(), () -> verify(method.getKey(), method.getValue())));
+    }
+
+    private static Map<String, Runnable> byCondition(Consumer<MemberSearchCondition> method) {
+        Map<String, Runnable> fixtures = byUsername(username -> method.accept(condition(username, null, null, null)));
+        fixtures.put("none", () -> method.accept(condition(null, null, null, null)));
+        fixtures.put("teamName", () -> method.accept(condition(null, "teamB", null, null)));
+        fixtures.put("ageRange", () -> method.accept(condition(null, null, 20, 30)));
+        fixtures.put("teamNameAndAge", () -> method.accept(condition(null, "teamB", 35, 40)));
+        return fixtures;
+    }
+
+    private static Map<String, Runnable> byUsername(Consumer<String> method) {
+        Map<String, Runnable> fixtures = new LinkedHashMap<>();
+        fixtures.put("username", () -> method.accept("member2"));
+        fixtures.put("absentUsername", () -> method.accept("nobody"));
+        return fixtures;
+    }
+
+    /** 키 여러 개는 IN 파라미터 개수가 2의 거듭제곱으로 채워지는지 본다. (KeyBatches) */
+    private static <K> Map<String, Runnable> byKeys(Consumer<List<K>> method, List<K> oneKey, List<K> keys,
+        List<K> absentKeys) {
+        Map<String, Runnable> fixtures = new LinkedHashMap<>();
+        fixtures.put("oneKey", () -> method.accept(oneKey));
+        fixtures.put("keys", () -> method.accept(keys));
+        fixtures.put("absentKeys", () -> method.accept(absentKeys));
+        return fixtures;
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+
+    private void verify(String method, Map<String, Runnable> fixtures) throws IOException {
+        Map<String, List<Statement>> recorded = new LinkedHashMap<>();
+        fixtures.forEach((fixture, invocation) ->
+            recorded.put(fixture, sqlPlanRecorder.record(invocation, jdbcTemplate)));
+        String actual = render(method, recorded);
+
+        if (UPDATE) {
+            Files.createDirectories(GOLDEN_DIR);
+            Files.write(GOLDEN_DIR.resolve(method + ".txt"), actual.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        String golden = readGolden(method);
+        assertThat(golden)
+            .as("golden file %s%s.txt is missing. Re-run with -Dgolden.update=true to create it.%n%s",
+                GOLDEN_RESOURCE, method, actual)
+            .isNotNull();
+
+        Map<String, List<List<String>>> expected = parseAccess(golden);
+        List<String> regressions = new ArrayList<>();
+        recorded.forEach((fixture, statements) -> {
+            List<List<String>> expectedAccess = expected.get(fixture);
+            if (expectedAccess == null) {
+                regressions.add(fixture + ": missing from golden file");
+                return;
+            }
+            if (statements.size() > expectedAccess.size()) {
+                regressions.add(fixture + ": statements " + expectedAccess.size() + " -> " + statements.size());
+            }
+            for (int i = 0; i < Math.min(statements.size(), expectedAccess.size()); i++) {
+                for (String access : statements.get(i).access) {
+                    String alias = access.substring(0, access.indexOf('='));
+                    if (access.endsWith(".tableScan") && expectedAccess.get(i).stream()
+                        .anyMatch(before -> before.startsWith(alias + "=") && !before.endsWith(".tableScan"))) {
+                        regressions.add(fixture + ": statement " + (i + 1) + " " + alias + " index -> tableScan");
+                    }
+                }
+            }
+        });
+        assertThat(regressions)
+            .as("%s query plan regressed (golden %s%s.txt)%n%s", method, GOLDEN_RESOURCE, method, actual)
+            .isEmpty();
+        if (!golden.equals(actual)) {
+            log.info("{} differs from golden file without regression. Re-run with -Dgolden.update=true to accept.",
+                method);
+        }
+    }
+
+    private static String render(String method, Map<String, List<Statement>> recorded) {
+        StringBuilder out = new StringBuilder()
+            .append("# ").append(method).append('\n')
+            .append("# QueryPlanGateTest 가 만든 파일. 바뀐 결과를 받아들이려면 -Dgolden.update=true 로 다시 만든다.\n");
+        recorded.forEach((fixture, statements) -> {
+            out.append("\n## ").append(fixture).append('\n')
+                .append("statements: ").append(statements.size()).append('\n');
+            for (Statement statement : statements) {
+                out.append("-- sql\n").append(statement.sql).append('\n');
+                if (!statement.plan.isEmpty()) {
+                    out.append("-- plan\n").append(statement.plan).append('\n');
+                }
+                out.append("-- access: ").append(String.join(" ", statement.access)).append('\n');
+            }
+        });
+        return out.toString();
+    }
+
+    /** 픽스처별로 SQL 마다의 "-- access:" 줄 */
+    private static Map<String, List<List<String>>> parseAccess(String golden) {
+        Map<String, List<List<String>>> access = new LinkedHashMap<>();
+        List<List<String>> current = null;
+        for (String line : golden.split("\n")) {
+            if (line.startsWith("## ")) {
+                current = new ArrayList<>();
+                access.put(line.substring(3).trim(), current);
+            } else if (line.startsWith("-- access:") && current != null) {
+                String tables = line.substring("-- access:".length()).trim();
+                current.add(tables.isEmpty() ? List.of() : List.of(tables.split(" ")));
+            }
+        }
+        return access;
+    }
+
+    private static String readGolden(String method) {
+        try (InputStream in = QueryPlanGateTest.class.getClassLoader()
+            .getResourceAsStream(GOLDEN_RESOURCE + method + ".txt")) {
+            return in == null ? null : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TestConfiguration
+    static class SqlPlanRecorderConfig {
+
+        @Bean
+        SqlPlanRecorder sqlPlanRecorder() {
+            return new SqlPlanRecorder();
+        }
+    }
+}
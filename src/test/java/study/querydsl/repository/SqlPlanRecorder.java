@@ -0,0 +1,75 @@
+package study.querydsl.repository;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 테스트 스레드에서 실행된 SQL 을 모으고 H2 EXPLAIN 실행 계획을 붙인다.
+ * JdbcEventListener 빈은 p6spy 데코레이터가 등록한다.
+ */
+class SqlPlanRecorder extends SimpleJdbcEventListener {
+
+    /** FROM 절의 테이블 별칭 뒤에 H2 가 붙이는 주석에서 별칭과 접근 방법(인덱스 이름 또는 tableScan)을 읽는다. */
+    private static final Pattern ACCESS = Pattern.compile(
+        "\"PUBLIC\"\\.\"\\w+\" \"(\\w+)\"\\s*/\\* PUBLIC\\.(\\w+(?:\\.tableScan)?)");
+    private static final Pattern GENERATED_INDEX = Pattern.compile("(PRIMARY_KEY|_INDEX)_[0-9A-F]+\\b");
+
+    private final ThreadLocal<List<String[]>> capturing = new ThreadLocal<>();
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        List<String[]> statements = capturing.get();
+        if (statements != null) {
+            statements.add(new String[]{statementInformation.getSql(), statementInformation.getSqlWithValues()});
+        }
+    }
+
+    /**
+     * action 이 실행한 SQL 을 모은다. 실행 계획은 action 이 끝난 뒤 EXPLAIN 으로 구한다.
+     */
+    List<Statement> record(Runnable action, JdbcTemplate jdbcTemplate) {
+        capturing.set(new ArrayList<>());
+        List<String[]> captured;
+        try {
+            action.run();
+        } finally {
+            captured = capturing.get();
+            capturing.remove();
+        }
+        List<Statement> statements = new ArrayList<>();
+        for (String[] sql : captured) {
+            String plan = sql[1].trim().toLowerCase().startsWith("select")
+                ? normalize(String.join("\n", jdbcTemplate.queryForList("explain " + sql[1], String.class)))
+                : "";
+            statements.add(new Statement(sql[0].trim(), plan));
+        }
+        return statements;
+    }
+
+    /** H2 가 만든 인덱스 이름의 번호는 테이블 생성 순서에 따라 바뀌므로 뗀다. */
+    private static String normalize(String plan) {
+        return GENERATED_INDEX.matcher(plan).replaceAll("$1");
+    }
+
+    static class Statement {
+
+        final String sql;
+        final String plan;
+        final List<String> access = new ArrayList<>();
+
+        Statement(String sql, String plan) {
+            this.sql = sql;
+            this.plan = plan;
+            Matcher matcher = ACCESS.matcher(plan);
+            while (matcher.find()) {
+                access.add(matcher.group(1) + "=" + matcher.group(2));
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.BenchmarkDataset;
+import study.querydsl.entity.Member;
+
+/**
+ * 회원 전체 스캔: EntityManager(JPAQuery) 와 StatelessSession 의 처리 시간, 힙 사용량 비교
+ * H2 인메모리 DB 도 같은 힙을 쓰므로 500만 건이면 힙 4g 정도가 필요하다. (benchmark 태스크 maxHeapSize)
+ * ./gradlew benchmark --tests '*StatelessScanBenchmarkTest' -Dbenchmark.members=1000000
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "logging.level.org.hibernate.SQL=info",
+    "decorator.datasource.p6spy.enable-logging=false"
+})
+class StatelessScanBenchmarkTest {
+
+    private static final int MEMBERS = Integer.getInteger("benchmark.members", 5_000_000);
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        BenchmarkDataset.load(jdbcTemplate, MEMBERS);
+    }
+
+    @Test
+    void entityManagerVsStatelessSession() {
+        System.out.printf("[stateless-scan] members=%d%n", MEMBERS);
+        System.out.printf("%-20s %12s %14s %18s%n", "path", "time(ms)", "rows/s", "retained heap(MB)");
+
+        measure("em fetch", consumer -> {
+            List<Member> members = new JPAQueryFactory(em).selectFrom(member).fetch();
+            members.forEach(consumer);
+            return members.size();
+        });
+        measure("em iterate", consumer -> {
+            long count = 0;
+            try (CloseableIterator<Member> iterator = new JPAQueryFactory(em).selectFrom(member).iterate()) {
+                while (iterator.hasNext()) {
+                    consumer.accept(iterator.next());
+                    count++;
+                }
+            }
+            return count;
+        });
+        measure("stateless scan", consumer -> memberTestRepository.scanMembers(null, consumer));
+    }
+
+    /**
+     * 처리량과, 스캔이 끝난 시점(트랜잭션 커밋 전)에 GC 후에도 남아 있는 힙을 잰다.
+     * EntityManager 경로는 영속성 컨텍스트가 엔티티와 스냅샷을 트랜잭션 끝까지 잡고 있다.
+     */
+    private void measure(String name, ToLongFunction<Consumer<Member>> scan) {
+        long baseline = usedHeapAfterGc();
+        long[] retained = {0};
+        Consumer<Member> consumer = m -> {
+        };
+
+        long start = System.nanoTime();
+        Long count = transactionTemplate.execute(status -> {
+            long scanned = scan.applyAsLong(consumer);
+            retained[0] = usedHeapAfterGc() - baseline;
+            return scanned;
+        });
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(count).isEqualTo(MEMBERS);
+        System.out.printf("%-20s %12.1f %14.0f %18.1f%n", name, elapsed / 1_000_000.0,
+            count / (elapsed / 1_000_000_000.0), Math.max(0, retained[0]) / 1024.0 / 1024.0);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,145 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.jdbc.JdbcStatistics;
+
+/**
+ * 벌크/StatelessSession update 뒤의 재스캔은 커밋된 데이터를 보므로 데이터를 커밋한다. (별도 컨텍스트 = 별도 메모리 DB)
+ */
+@SpringBootTest(properties = "querydsl.username-filter.expected-insertions=100")
+class UsernameFilterTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    UsernameFilter usernameFilter;
+
+    @Autowired
+    JdbcStatistics statistics;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (memberJpaRepository.findByUsername("filter1").isEmpty()) {
+                Team team = new Team("filterTeam");
+                em.persist(team);
+                em.persist(new Member("filter1", 10, team));
+                em.persist(new Member("filter2", 20, team));
+            }
+        });
+    }
+
+    @Test
+    void absentUsernameSkipsDatabase() {
+        assertThat(statementsOf(() -> memberRepository.findByUsername("nobody"))).isZero();
+        assertThat(statementsOf(() -> memberJpaRepository.findByUsername_querydsl("nobody"))).isZero();
+        assertThat(statementsOf(() -> memberRepository.existsByCondition(username("nobody")))).isZero();
+
+        assertThat(memberRepository.findByUsername("nobody")).isEmpty();
+        assertThat(memberRepository.existsByCondition(username("nobody"))).isFalse();
+        assertThat(memberRepository.findByUsername("filter1")).hasSize(1);
+        assertThat(memberJpaRepository.findByUsername_querydsl("filter1")).hasSize(1);
+    }
+
+    @Test
+    void existsByCondition() {
+        MemberSearchCondition teamAndAge = new MemberSearchCondition();
+        teamAndAge.setTeamName("filterTeam");
+        teamAndAge.setAgeGoe(15);
+        assertThat(memberRepository.existsByCondition(teamAndAge)).isTrue();
+
+        teamAndAge.setAgeGoe(25);
+        assertThat(memberRepository.existsByCondition(teamAndAge)).isFalse();
+
+        assertThat(memberRepository.existsByCondition(username("filter2"))).isTrue();
+        assertThat(memberRepository.existsByCondition(new MemberSearchCondition())).isTrue();
+    }
+
+    @Test
+    void unflushedMemberIsFoundInSameTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("unflushed", 30));
+            assertThat(memberRepository.findByUsername("unflushed")).hasSize(1);
+            assertThat(memberRepository.existsByCondition(username("unflushed"))).isTrue();
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    void statelessRenameDisablesFilterUntilRescanned() throws InterruptedException {
+        Member filter2 = memberJpaRepository.findByUsername("filter2").get(0);
+        transactionTemplate.executeWithoutResult(status -> {
+            filter2.setUsername("renamed");
+            memberTestRepository.updateAll(List.of(filter2));
+
+            assertThat(usernameFilter.isUsable()).isFalse();
+            assertThat(memberRepository.findByUsername("renamed")).hasSize(1);
+        });
+
+        awaitRescan();
+        assertThat(memberRepository.findByUsername("renamed")).hasSize(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            filter2.setUsername("filter2");
+            memberTestRepository.updateAll(List.of(filter2));
+        });
+        awaitRescan();
+    }
+
+    @Test
+    void entityUpdateKeepsFilterUsable() throws InterruptedException {
+        awaitRescan();
+        transactionTemplate.executeWithoutResult(status -> {
+            Member filter1 = memberJpaRepository.findByUsername("filter1").get(0);
+            em.find(Member.class, filter1.getId()).setAge(11);
+            em.flush();
+
+            assertThat(usernameFilter.isUsable()).isTrue();
+        });
+        assertThat(usernameFilter.isUsable()).isTrue();
+    }
+
+    private void awaitRescan() throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!usernameFilter.isUsable() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(usernameFilter.isUsable()).isTrue();
+    }
+
+    private long statementsOf(Supplier<?> query) {
+        long before = statistics.getExecutions();
+        query.get();
+        return statistics.getExecutions() - before;
+    }
+
+    private static MemberSearchCondition username(String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return condition;
+    }
+}
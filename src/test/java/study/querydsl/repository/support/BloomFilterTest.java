@@ -0,0 +1,38 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    @Test
+    void noFalseNegativesWhileGrowing() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            filter.put("member" + i);
+        }
+
+        for (int i = 0; i < 20_000; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+        }
+        assertThat(filter.segmentCount()).isGreaterThan(1);
+        assertThat(filter.approximateCount()).isLessThanOrEqualTo(20_000);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            filter.put("member" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("nobody" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.015);
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.MemberComputedColumns.AGE_BUCKET;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.BenchmarkDataset;
+import study.querydsl.repository.MemberComputedColumns;
+
+/**
+ * lower(username), 나이 구간 case 식: 그대로 실행 vs 계산 컬럼(인덱스)으로 바꿔 실행
+ * ./gradlew benchmark --tests '*ComputedColumnBenchmarkTest'
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "logging.level.org.hibernate.SQL=info",
+    "decorator.datasource.p6spy.enable-logging=false"
+})
+class ComputedColumnBenchmarkTest {
+
+    private static final int MEMBERS = Integer.getInteger("benchmark.members", 200_000);
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        BenchmarkDataset.load(jdbcTemplate, MEMBERS);
+    }
+
+    @Test
+    void expressionVsComputedColumn() {
+        System.out.printf("[computed-column] members=%d%n", MEMBERS);
+        System.out.printf("%-28s %14s %14s %8s%n", "query", "expression(ms)", "column(ms)", "speedup");
+
+        compare("lower(username) = ?", q -> q.select(member.id)
+            .from(member)
+            .where(member.username.lower().eq("member12345"))
+            .fetch());
+
+        compare("lower(username) like 'x%'", q -> q.select(member.id)
+            .from(member)
+            .where(member.username.lower().startsWith("member1234"))
+            .fetch());
+
+        compare("age bucket = '21~30' count", q -> q.select(member.count())
+            .from(member)
+            .where(AGE_BUCKET.eq("21~30살"))
+            .fetch());
+
+        compare("age bucket select (~10K rows)", q -> q.select(member.id, AGE_BUCKET)
+            .from(member)
+            .where(member.age.goe(95))
+            .fetch());
+    }
+
+    private void compare(String name, Function<JPAQueryFactory, List<?>> query) {
+        JPAQueryFactory plain = new JPAQueryFactory(em);
+        JPAQueryFactory computed = new ComputedColumnQueryFactory(em, MemberComputedColumns.COLUMNS);
+        assertThat(inTransaction(() -> query.apply(computed)))
+            .containsExactlyInAnyOrderElementsOf(inTransaction(() -> query.apply(plain)));
+
+        double expression = measure(() -> query.apply(plain));
+        double column = measure(() -> query.apply(computed));
+        System.out.printf("%-28s %14.3f %14.3f %7.1fx%n", name, expression, column, expression / column);
+    }
+
+    private List<Object> inTransaction(Supplier<List<?>> query) {
+        return transactionTemplate.execute(status -> new ArrayList<>(query.get()));
+    }
+
+    private double measure(Supplier<List<?>> query) {
+        return BenchmarkDataset.measure(WARMUP, ITERATIONS, () -> inTransaction(query));
+    }
+}
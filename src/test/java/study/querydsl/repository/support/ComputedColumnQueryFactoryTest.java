@@ -0,0 +1,151 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.MemberComputedColumns.AGE_BUCKET;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.MemberComputedColumns;
+
+@SpringBootTest
+@Transactional
+class ComputedColumnQueryFactoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory plain;
+    JPAQueryFactory computed;
+
+    @BeforeEach
+    void setUp() {
+        plain = new JPAQueryFactory(em);
+        computed = new ComputedColumnQueryFactory(em, MemberComputedColumns.COLUMNS);
+
+        for (int age = 0; age <= 40; age += 5) {
+            em.persist(new Member("Computed" + age, age));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void lowerUsesColumn() {
+        assertComputed(q -> q.selectFrom(member)
+            .where(member.username.lower().eq("computed10")), "usernameLower");
+
+        assertComputed(q -> q.select(member.username)
+            .from(member)
+            .where(Expressions.stringTemplate("function('lower', {0})", member.username).eq("computed10")),
+            "usernameLower");
+    }
+
+    @Test
+    void ageBucketInSelectAndWhere() {
+        JPAQuery<Tuple> query = assertComputed(q -> q.select(member.age, AGE_BUCKET)
+            .from(member)
+            .where(AGE_BUCKET.eq("21~30살"), ours(member))
+            .orderBy(member.age.asc()), "ageBucket");
+
+        assertThat(query.fetch()).extracting(tuple -> tuple.get(member.age)).containsExactly(25, 30);
+    }
+
+    /**
+     * 파라미터로 바인딩된 case 식은 select 와 group by 가 같은 식으로 보이지 않아 H2 에서 실패한다.
+     * 컬럼으로 바꾸면 실행된다.
+     */
+    @Test
+    void groupByAgeBucket() {
+        List<Tuple> rows = computed.select(AGE_BUCKET, member.count())
+            .from(member)
+            .where(ours(member))
+            .groupBy(AGE_BUCKET)
+            .orderBy(AGE_BUCKET.asc())
+            .fetch();
+
+        assertThat(rows).extracting(row -> row.get(0, String.class) + "=" + row.get(1, Long.class))
+            .containsExactly("0~20살=5", "21~30살=2", "기타=2");
+    }
+
+    /** 컬럼 정의(columnDefinition)와 Querydsl 식이 모든 나이에서 같은 값을 낸다. */
+    @Test
+    void columnMatchesExpression() {
+        List<Tuple> rows = plain.select(AGE_BUCKET, member.ageBucket, member.username.lower(), member.usernameLower)
+            .from(member)
+            .where(ours(member))
+            .fetch();
+
+        assertThat(rows).hasSize(9).allSatisfy(row -> {
+            assertThat(row.get(1, String.class)).isEqualTo(row.get(0, String.class));
+            assertThat(row.get(3, String.class)).isEqualTo(row.get(2, String.class));
+        });
+    }
+
+    @Test
+    void otherAliasAndSubquery() {
+        QMember other = new QMember("other");
+        QMember sub = new QMember("sub");
+        assertComputed(q -> q.selectFrom(other)
+            .where(other.username.lower().in(
+                JPAExpressions.select(sub.username.lower())
+                    .from(sub)
+                    .where(sub.age.goe(30), ours(sub)))), "other.usernameLower");
+    }
+
+    @Test
+    void otherExpressionsAreLeftAlone() {
+        String upper = computed.selectFrom(member).where(member.username.upper().eq("A")).toString();
+        assertThat(upper).doesNotContain("usernameLower");
+
+        String otherBuckets = computed.select(new CaseBuilder()
+            .when(member.age.between(0, 10)).then("0~10살")
+            .otherwise("기타"))
+            .from(member)
+            .toString();
+        assertThat(otherBuckets).doesNotContain("ageBucket");
+    }
+
+    @Test
+    void columnFollowsBulkUpdate() {
+        plain.update(member).set(member.age, member.age.add(10)).where(ours(member)).execute();
+
+        assertThat(computed.select(member.age)
+            .from(member)
+            .where(AGE_BUCKET.eq("0~20살"), ours(member))
+            .orderBy(member.age.asc())
+            .fetch()).containsExactly(10, 15, 20);
+    }
+
+    private static BooleanExpression ours(QMember member) {
+        return member.username.startsWith("Computed");
+    }
+
+    /**
+     * 바꾼 JPQL 에 계산 컬럼이 들어가고 결과는 원래 쿼리와 같다.
+     */
+    private <T> JPAQuery<T> assertComputed(Function<JPAQueryFactory, JPAQuery<T>> query, String column) {
+        JPAQuery<T> original = query.apply(plain);
+        JPAQuery<T> rewritten = query.apply(computed);
+        assertThat(original.toString()).doesNotContain(column);
+        assertThat(rewritten.toString()).contains(column);
+        assertThat(rewritten.fetch()).containsExactlyInAnyOrderElementsOf(original.fetch());
+        assertThat(rewritten.fetchCount()).isEqualTo(original.fetchCount());
+        return rewritten;
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class KeyBatchesTest {
+
+    @Test
+    void distinctKeepsFirstOccurrence() {
+        assertThat(KeyBatches.distinct(Arrays.asList(3L, 1L, null, 3L, 2L, 1L))).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    void batchesArePaddedToPowersOfTwo() {
+        List<Integer> keys = IntStream.range(0, 21).boxed().collect(Collectors.toList());
+
+        List<List<Integer>> batches = KeyBatches.partition(keys, 8);
+
+        assertThat(batches).extracting(List::size).containsExactly(8, 8, 8);
+        assertThat(batches.get(2)).containsExactly(16, 17, 18, 19, 20, 20, 20, 20);
+        assertThat(KeyBatches.partition(List.of(1), 8)).containsExactly(List.of(1));
+        assertThat(IntStream.rangeClosed(1, 9).map(KeyBatches::padded).boxed())
+            .containsExactly(1, 2, 4, 4, 8, 8, 8, 8, 16);
+    }
+
+    @Test
+    void orderByFollowsKeys() {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"b", "b1"});
+        rows.add(new String[]{"a", "a1"});
+        rows.add(new String[]{"b", "b2"});
+
+        List<String[]> ordered = KeyBatches.orderBy(List.of("a", "missing", "b"), rows, row -> row[0]);
+
+        assertThat(ordered).extracting(row -> row[1]).containsExactly("a1", "b1", "b2");
+    }
+}
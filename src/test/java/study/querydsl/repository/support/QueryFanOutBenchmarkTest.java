@@ -0,0 +1,130 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.BenchmarkDataset;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.QTeamStatDto;
+
+/**
+ * 대시보드 쿼리 3개(페이지, 팀 통계, 건수): 한 EntityManager 에서 차례로 vs QueryFanOut
+ * H2 인메모리는 CPU 만 쓰므로 코어 수만큼만 빨라진다. 원격 DB 처럼 쿼리마다 왕복 지연이 있는 경우는
+ * benchmark.latency-ms 만큼 쉬는 것으로 흉내 낸다.
+ * ./gradlew benchmark --tests '*QueryFanOutBenchmarkTest'
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "logging.level.org.hibernate.SQL=info",
+    "decorator.datasource.p6spy.enable-logging=false",
+    "querydsl.fan-out.timeout=10s"
+})
+class QueryFanOutBenchmarkTest {
+
+    private static final int MEMBERS = Integer.getInteger("benchmark.members", 20_000);
+    private static final long LATENCY_MS = Long.getLong("benchmark.latency-ms", 50);
+    private static final int WARMUP = 10;
+    private static final int ITERATIONS = 30;
+
+    @Autowired
+    QueryFanOut queryFanOut;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        BenchmarkDataset.load(jdbcTemplate, MEMBERS);
+    }
+
+    @Test
+    void serialVsFanOut() {
+        List<Function<JPAQueryFactory, ? extends JPAQuery<?>>> dashboard = List.of(
+            query -> query
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(30))
+                .orderBy(member.username.asc())
+                .offset(1000)
+                .limit(20),
+            query -> query
+                .select(new QTeamStatDto(team.name, member.count(), member.age.avg()))
+                .from(member)
+                .join(member.team, team)
+                .where(member.age.goe(30))
+                .groupBy(team.name),
+            query -> query
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(30)));
+
+        System.out.printf("[fan-out] members=%d cpus=%d%n", MEMBERS, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-26s %12s %12s %8s%n", "dashboard", "serial(ms)", "fan-out(ms)", "speedup");
+        compare("3 queries", dashboard);
+        compare("3 queries + " + LATENCY_MS + "ms latency", withLatency(dashboard));
+    }
+
+    private void compare(String name, List<Function<JPAQueryFactory, ? extends JPAQuery<?>>> queries) {
+        Supplier<List<List<?>>> serial = () -> transactionTemplate.execute(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            List<List<?>> results = new ArrayList<>();
+            queries.forEach(query -> results.add(query.apply(queryFactory).fetch()));
+            return results;
+        });
+        Supplier<List<List<?>>> fanOut = () -> queryFanOut.fetch(new ComputedColumns(), Duration.ofSeconds(10), queries);
+        assertThat(fanOut.get().get(2)).isEqualTo(serial.get().get(2));
+
+        double serialMillis = measure(serial);
+        double fanOutMillis = measure(fanOut);
+        System.out.printf("%-26s %12.3f %12.3f %7.1fx%n", name, serialMillis, fanOutMillis, serialMillis / fanOutMillis);
+    }
+
+    private static List<Function<JPAQueryFactory, ? extends JPAQuery<?>>> withLatency(
+        List<Function<JPAQueryFactory, ? extends JPAQuery<?>>> queries) {
+        List<Function<JPAQueryFactory, ? extends JPAQuery<?>>> delayed = new ArrayList<>();
+        for (Function<JPAQueryFactory, ? extends JPAQuery<?>> query : queries) {
+            delayed.add(queryFactory -> {
+                try {
+                    Thread.sleep(LATENCY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return query.apply(queryFactory);
+            });
+        }
+        return delayed;
+    }
+
+    private static double measure(Supplier<?> dashboard) {
+        return BenchmarkDataset.measure(WARMUP, ITERATIONS, dashboard::get);
+    }
+}
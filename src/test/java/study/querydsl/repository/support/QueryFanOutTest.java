@@ -0,0 +1,192 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.TeamStatDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+/**
+ * fan-out 쿼리는 커밋된 데이터만 보므로 데이터를 커밋한다. (별도 컨텍스트 = 별도 메모리 DB)
+ */
+@SpringBootTest(properties = {
+    "querydsl.fan-out.pool-size=2",
+    "querydsl.fan-out.queue-size=2",
+    "querydsl.fan-out.timeout=500ms"
+})
+class QueryFanOutTest {
+
+    @Autowired
+    QueryFanOut queryFanOut;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (memberJpaRepository.findByUsername("fanOut0").isEmpty()) {
+                Team teamA = new Team("fanOutA");
+                Team teamB = new Team("fanOutB");
+                em.persist(teamA);
+                em.persist(teamB);
+                for (int i = 0; i < 10; i++) {
+                    em.persist(new Member("fanOut" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+                }
+            }
+        });
+    }
+
+    @Test
+    void dashboard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        QueryFanOut.Result3<MemberTeamDto, TeamStatDto, Long> result =
+            memberTestRepository.dashboard(condition, PageRequest.of(0, 3));
+
+        List<MemberTeamDto> all = memberJpaRepository.search(condition);
+        assertThat(result.getFirst()).hasSize(3).isSubsetOf(all);
+        assertThat(result.getSecond()).extracting(TeamStatDto::getTeamName).containsExactly("fanOutA", "fanOutB");
+        assertThat(result.getSecond()).extracting(TeamStatDto::getMemberCount).containsExactly(4L, 4L);
+        assertThat(result.getThird()).containsExactly((long) all.size());
+    }
+
+    @Test
+    void deadlineCancelsSlowQuery() {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Function<JPAQueryFactory, JPAQuery<?>> slow = query -> {
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return query.selectFrom(member);
+        };
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> queryFanOut.fetch(new ComputedColumns(), queryFanOut.getTimeout(),
+            List.of(query -> query.selectFrom(member), slow)))
+            .isInstanceOf(QueryTimeoutException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(awaitQuietly(interrupted)).isTrue();
+    }
+
+    @Test
+    void failureIsPropagated() {
+        assertThatThrownBy(() -> queryFanOut.fetch(new ComputedColumns(), queryFanOut.getTimeout(),
+            List.of(query -> query.selectFrom(member), query -> {
+                throw new IllegalArgumentException("boom");
+            })))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("boom");
+    }
+
+    @Test
+    void saturatedExecutorFailsFast() {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Function<JPAQueryFactory, ? extends JPAQuery<?>>> blocked = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            blocked.add(query -> {
+                awaitQuietly(release);
+                return query.selectFrom(member);
+            });
+        }
+
+        try {
+            assertThatThrownBy(() -> queryFanOut.fetch(new ComputedColumns(), queryFanOut.getTimeout(), blocked))
+                .isInstanceOf(TransientDataAccessResourceException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void timedOutQueryKeepsItsSlotUntilItFinishes() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        // interrupt 를 무시하고 계속 실행되는 쿼리 (cancelQuery 가 바로 먹히지 않는 드라이버 호출)
+        Function<JPAQueryFactory, JPAQuery<?>> stubborn = query -> {
+            while (!awaitQuietly(release)) {
+                Thread.interrupted();
+            }
+            finished.countDown();
+            return query.selectFrom(member);
+        };
+        List<Function<JPAQueryFactory, ? extends JPAQuery<?>>> four = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            four.add(query -> query.selectFrom(member));
+        }
+
+        try {
+            assertThatThrownBy(() -> queryFanOut.fetch(new ComputedColumns(), queryFanOut.getTimeout(),
+                List.of(stubborn)))
+                .isInstanceOf(QueryTimeoutException.class);
+
+            // pool-size + queue-size = 4 중 하나는 아직 실행 중인 쿼리가 쥐고 있다.
+            assertThatThrownBy(() -> queryFanOut.fetch(new ComputedColumns(), queryFanOut.getTimeout(), four))
+                .isInstanceOf(TransientDataAccessResourceException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(finished.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(fetchWithRetry(four)).hasSize(4);
+    }
+
+    /** 실행을 마친 스레드가 permit 을 돌려주기까지 잠깐 걸릴 수 있다. */
+    private List<List<?>> fetchWithRetry(List<Function<JPAQueryFactory, ? extends JPAQuery<?>>> queries)
+        throws InterruptedException {
+        for (int i = 0; ; i++) {
+            try {
+                return queryFanOut.fetch(new ComputedColumns(), queryFanOut.getTimeout(), queries);
+            } catch (TransientDataAccessResourceException e) {
+                if (i == 20) {
+                    throw e;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Exception {
+        SingleFlight<String, String> singleFlight = singleFlight(Duration.ofSeconds(5));
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("teamA", () -> {
+                executions.incrementAndGet();
+                await(release);
+                return "result";
+            })));
+        }
+        waitUntil(() -> count("coalesced") == 7);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(count("executed")).isEqualTo(1);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    @Test
+    void followerRunsItsOwnQueryAfterMaxWait() throws Exception {
+        SingleFlight<String, String> singleFlight = singleFlight(Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("teamA", () -> {
+            await(release);
+            return "leader";
+        }));
+        waitUntil(() -> singleFlight.inFlightCount() == 1);
+
+        assertThat(singleFlight.execute("teamA", () -> "follower")).isEqualTo("follower");
+        assertThat(count("timeout")).isEqualTo(1);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("leader");
+    }
+
+    @Test
+    void followerWaitCanBeCancelled() throws Exception {
+        SingleFlight<String, String> singleFlight = singleFlight(Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> singleFlight.execute("teamA", () -> {
+            await(release);
+            return "leader";
+        }));
+        waitUntil(() -> singleFlight.inFlightCount() == 1);
+
+        // Future.cancel() 뒤에는 결과를 받을 수 없으므로 스레드를 직접 인터럽트하고 던진 예외를 받아 둔다.
+        AtomicReference<Object> outcome = new AtomicReference<>();
+        Thread follower = new Thread(() -> {
+            try {
+                outcome.set(singleFlight.execute("teamA", () -> "follower"));
+            } catch (RuntimeException e) {
+                outcome.set(e);
+            }
+        });
+        follower.start();
+        waitUntil(() -> count("coalesced") == 1);
+        follower.interrupt();
+        follower.join(5_000);
+
+        assertThat(outcome.get()).isInstanceOf(CancellationException.class);
+        assertThat((Throwable) outcome.get()).hasCauseInstanceOf(InterruptedException.class);
+        release.countDown();
+
+        waitUntil(() -> singleFlight.inFlightCount() == 0);
+    }
+
+    @Test
+    void leaderFailureIsSharedAndNotCached() throws Exception {
+        SingleFlight<String, String> singleFlight = singleFlight(Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("teamA", () -> {
+            await(release);
+            throw new IllegalStateException("db down");
+        }));
+        waitUntil(() -> singleFlight.inFlightCount() == 1);
+        Future<String> follower = executor.submit(() -> singleFlight.execute("teamA", () -> "follower"));
+        waitUntil(() -> count("coalesced") == 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("db down");
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("db down");
+        assertThat(singleFlight.execute("teamA", () -> "retry")).isEqualTo("retry");
+    }
+
+    private SingleFlight<String, String> singleFlight(Duration maxWait) {
+        return new SingleFlight<>("test.single-flight", Tags.empty(), maxWait, meterRegistry);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("test.single-flight").tag("result", result).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
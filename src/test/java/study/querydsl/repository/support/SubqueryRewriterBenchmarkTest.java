@@ -0,0 +1,152 @@
+package study.querydsl.repository.support;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.WindowOver;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.BenchmarkDataset;
+import study.querydsl.entity.QMember;
+import study.querydsl.sql.SMember;
+
+/**
+ * 집계 서브쿼리: 원래 쿼리 / SubqueryRewriter / 윈도 함수(querydsl-sql) 비교
+ * 상관 서브쿼리 원본은 바깥 행마다 실행되므로 회원 수를 크게 잡으면 오래 걸린다.
+ * ./gradlew benchmark --tests '*SubqueryRewriterBenchmarkTest'
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "logging.level.org.hibernate.SQL=info",
+    "decorator.datasource.p6spy.enable-logging=false"
+})
+class SubqueryRewriterBenchmarkTest {
+
+    private static final int MEMBERS = Integer.getInteger("benchmark.members", 20_000);
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 10;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    SQLQueryFactory sqlQueryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+    QMember memberSub = new QMember("memberSub");
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        BenchmarkDataset.load(jdbcTemplate, MEMBERS);
+    }
+
+    @Test
+    void originalVsRewrittenVsWindow() {
+        System.out.printf("[subquery-rewrite] members=%d teams=%d%n", MEMBERS, BenchmarkDataset.TEAMS);
+        System.out.printf("%-26s %14s %14s %14s%n", "query", "original(ms)", "rewritten(ms)", "window(ms)");
+
+        compare("max age per team",
+            () -> new JPAQueryFactory(em)
+                .select(member.id)
+                .from(member)
+                .where(member.age.eq(
+                    select(memberSub.age.max())
+                        .from(memberSub)
+                        .where(memberSub.team.eq(member.team)))),
+            () -> (List<?>) windowed(SQLExpressions.max(SMember.member.age), false));
+
+        compare("age > team avg",
+            () -> new JPAQueryFactory(em)
+                .select(member.id)
+                .from(member)
+                .where(member.age.gt(
+                    select(memberSub.age.avg())
+                        .from(memberSub)
+                        .where(memberSub.team.eq(member.team)))),
+            () -> (List<?>) windowed(SQLExpressions.avg(SMember.member.age), true));
+
+        compare("age = overall max",
+            () -> new JPAQueryFactory(em)
+                .select(member.id)
+                .from(member)
+                .where(member.age.eq(
+                    select(memberSub.age.max())
+                        .from(memberSub))),
+            null);
+
+        compare("team size in select",
+            () -> new JPAQueryFactory(em)
+                .select(member.id, select(memberSub.count())
+                    .from(memberSub)
+                    .where(memberSub.team.eq(member.team)))
+                .from(member),
+            null);
+    }
+
+    /**
+     * select member_id from (select member_id, age, agg(age) over (partition by team_id) w from member) where age (= | >) w
+     */
+    private List<Long> windowed(WindowOver<?> aggregate, boolean greaterThan) {
+        SMember m = SMember.member;
+        SQLQuery<Tuple> inner = sqlQueryFactory
+            .select(m.memberId, m.age, aggregate.over().partitionBy(m.teamId).as("w"))
+            .from(m)
+            .where(m.teamId.isNotNull());
+
+        SMember ranked = new SMember("ranked");
+        NumberPath<Double> rankedWindow = Expressions.numberPath(Double.class, ranked, "w");
+        NumberPath<Double> rankedAge = Expressions.numberPath(Double.class, ranked, "age");
+        return sqlQueryFactory
+            .select(ranked.memberId)
+            .from(inner, Expressions.path(Object.class, "ranked"))
+            .where(greaterThan ? rankedAge.gt(rankedWindow) : rankedAge.eq(rankedWindow))
+            .fetch();
+    }
+
+    private void compare(String name, Supplier<JPAQuery<?>> query, Supplier<List<?>> window) {
+        int expected = inTransaction(() -> query.get().fetch()).size();
+        assertThat(inTransaction(() -> new SubqueryRewriter(em).rewrite(query.get()).fetch())).hasSize(expected);
+        if (window != null) {
+            assertThat(inTransaction(window)).hasSize(expected);
+        }
+
+        double original = measure(() -> query.get().fetch());
+        double rewritten = measure(() -> new SubqueryRewriter(em).rewrite(query.get()).fetch());
+        String windowed = window != null ? String.format("%.3f", measure(window)) : "-";
+        System.out.printf("%-26s %14.3f %14.3f %14s%n", name, original, rewritten, windowed);
+    }
+
+    private List<?> inTransaction(Supplier<List<?>> query) {
+        return transactionTemplate.execute(status -> query.get());
+    }
+
+    private double measure(Supplier<List<?>> query) {
+        return BenchmarkDataset.measure(WARMUP, ITERATIONS, () -> inTransaction(query));
+    }
+}
@@ -0,0 +1,208 @@
+package study.querydsl.repository.support;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.UserDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class SubqueryRewriterTest {
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory queryFactory;
+    SubqueryRewriter rewriter;
+    QMember memberSub = new QMember("memberSub");
+
+    @BeforeEach
+    void setUp() {
+        queryFactory = new JPAQueryFactory(em);
+        rewriter = new SubqueryRewriter(em);
+
+        Team teamA = new Team("rewriteA");
+        Team teamB = new Team("rewriteB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("rewrite1", 10, teamA));
+        em.persist(new Member("rewrite2", 20, teamA));
+        em.persist(new Member("rewrite3", 30, teamB));
+        em.persist(new Member("rewrite4", 40, teamB));
+        em.persist(new Member("rewrite5", 35, teamB));
+        em.persist(new Member("rewrite6", 50));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void uncorrelatedMaxInWhere() {
+        JPAQuery<Member> query = queryFactory
+            .selectFrom(member)
+            .where(member.age.eq(
+                select(memberSub.age.max())
+                    .from(memberSub)
+                    .where(ours(memberSub))
+            ), ours(member));
+
+        assertThat(assertRewritten(query)).extracting(Member::getUsername).containsExactly("rewrite6");
+    }
+
+    @Test
+    void uncorrelatedAvgInWhere() {
+        JPAQuery<Member> query = queryFactory
+            .selectFrom(member)
+            .where(member.age.goe(
+                select(memberSub.age.avg())
+                    .from(memberSub)
+                    .where(memberSub.team.isNotNull(), ours(memberSub))
+            ), ours(member));
+
+        assertThat(assertRewritten(query)).extracting(Member::getUsername)
+            .containsExactlyInAnyOrder("rewrite3", "rewrite4", "rewrite5", "rewrite6");
+    }
+
+    @Test
+    void uncorrelatedAvgInSelect() {
+        JPAQuery<Tuple> query = queryFactory
+            .select(member.username,
+                select(memberSub.age.avg())
+                    .from(memberSub)
+                    .where(ours(memberSub)))
+            .from(member)
+            .where(ours(member));
+
+        List<Tuple> result = assertRewritten(query);
+        assertThat(result).hasSize(6);
+        assertThat(result.get(0).get(1, Double.class)).isEqualTo(185 / 6.0);
+    }
+
+    @Test
+    void uncorrelatedMaxInDtoProjection() {
+        JPAQuery<UserDto> query = queryFactory
+            .select(Projections.fields(UserDto.class,
+                member.username.as("name"),
+                ExpressionUtils.as(select(memberSub.age.max())
+                    .from(memberSub)
+                    .where(ours(memberSub)), "age")
+            ))
+            .from(member)
+            .where(ours(member));
+
+        assertThat(assertRewritten(query)).extracting(UserDto::getAge).containsOnly(50);
+    }
+
+    /**
+     * 팀에서 나이가 가장 많은 회원 (팀이 없는 회원은 sub.team = member.team 이 참이 될 수 없어 빠진다)
+     */
+    @Test
+    void correlatedMaxPerTeam() {
+        JPAQuery<Member> query = queryFactory
+            .selectFrom(member)
+            .where(member.age.eq(
+                select(memberSub.age.max())
+                    .from(memberSub)
+                    .where(memberSub.team.eq(member.team))
+            ), ours(member));
+
+        assertThat(assertRewritten(query)).extracting(Member::getUsername).containsExactlyInAnyOrder("rewrite2", "rewrite4");
+    }
+
+    @Test
+    void correlatedAvgPerTeamWithLocalCondition() {
+        JPAQuery<Member> query = queryFactory
+            .selectFrom(member)
+            .where(member.age.gt(
+                select(memberSub.age.avg())
+                    .from(memberSub)
+                    .where(memberSub.team.eq(member.team), memberSub.age.lt(40))
+            ), ours(member));
+
+        assertThat(assertRewritten(query)).extracting(Member::getUsername)
+            .containsExactlyInAnyOrder("rewrite2", "rewrite4", "rewrite5");
+    }
+
+    @Test
+    void correlatedCountInSelect() {
+        JPAQuery<Tuple> query = queryFactory
+            .select(member.username,
+                select(memberSub.count())
+                    .from(memberSub)
+                    .where(memberSub.team.eq(member.team)))
+            .from(member)
+            .where(ours(member))
+            .orderBy(member.username.asc());
+
+        assertThat(assertRewritten(query)).extracting(tuple -> tuple.get(1, Long.class))
+            .containsExactly(2L, 2L, 3L, 3L, 3L, 0L);
+    }
+
+    @Test
+    void otherShapesAreLeftAlone() {
+        JPAQuery<Member> in = queryFactory
+            .selectFrom(member)
+            .where(member.age.in(
+                select(memberSub.age)
+                    .from(memberSub)
+                    .where(memberSub.age.gt(10))
+            ));
+        assertThat(rewriter.rewrite(in).toString()).isEqualTo(in.toString());
+
+        JPAQuery<Member> otherCorrelation = queryFactory
+            .selectFrom(member)
+            .where(member.age.eq(
+                select(memberSub.age.max())
+                    .from(memberSub)
+                    .where(memberSub.age.lt(member.age))
+            ));
+        assertThat(rewriter.rewrite(otherCorrelation).toString()).isEqualTo(otherCorrelation.toString());
+    }
+
+    @Test
+    void tooManyGroupsAreLeftAlone() {
+        JPAQuery<Member> query = queryFactory
+            .selectFrom(member)
+            .where(member.age.eq(
+                select(memberSub.age.max())
+                    .from(memberSub)
+                    .where(memberSub.username.eq(member.username))
+            ));
+
+        assertThat(new SubqueryRewriter(em, 3).rewrite(query).toString()).isEqualTo(query.toString());
+    }
+
+    /** 같은 스프링 컨텍스트를 쓰는 다른 테스트의 데이터는 제외한다. */
+    private static BooleanExpression ours(QMember member) {
+        return member.username.startsWith("rewrite");
+    }
+
+    /**
+     * 재작성한 쿼리에는 서브쿼리가 없고, 결과는 원래 쿼리와 같다.
+     */
+    private <T> List<T> assertRewritten(JPAQuery<T> query) {
+        JPAQuery<T> rewritten = rewriter.rewrite(query);
+        assertThat(rewritten.toString().split("select", -1)).hasSize(2);
+
+        List<T> expected = query.fetch();
+        List<T> actual = rewritten.fetch();
+        assertThat(actual).usingRecursiveFieldByFieldElementComparator().containsExactlyInAnyOrderElementsOf(expected);
+        return actual;
+    }
+}
@@ -0,0 +1,123 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+class WriteBehindQueueTest {
+
+    private static final WriteBehindQueue.BatchListener NO_METRICS = new WriteBehindQueue.BatchListener() {
+        @Override
+        public void written(int size, long elapsedNanos) {
+        }
+
+        @Override
+        public void rejected() {
+        }
+    };
+
+    @Test
+    void coalescesWithinDelayAndSize() throws Exception {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        Function<List<Integer>, List<String>> writer = items -> {
+            batches.add(items);
+            List<String> results = new ArrayList<>();
+            items.forEach(item -> results.add("id" + item));
+            return results;
+        };
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        try (WriteBehindQueue<Integer, String> queue =
+            new WriteBehindQueue<>("test", 100, 4, Duration.ofMillis(200), Duration.ZERO, writer, NO_METRICS)) {
+            for (int i = 0; i < 10; i++) {
+                futures.add(queue.submit(i));
+            }
+            for (int i = 0; i < 10; i++) {
+                assertThat(futures.get(i).get(2, TimeUnit.SECONDS)).isEqualTo("id" + i);
+            }
+        }
+
+        // 4개씩 차면 바로 쓰고, 남은 2개는 max-delay 가 지나서 쓴다.
+        assertThat(batches).extracting(List::size).containsExactly(4, 4, 2);
+    }
+
+    @Test
+    void fullQueueRejects() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        WriteBehindQueue.BatchListener listener = new WriteBehindQueue.BatchListener() {
+            @Override
+            public void written(int size, long elapsedNanos) {
+            }
+
+            @Override
+            public void rejected() {
+                rejected.incrementAndGet();
+            }
+        };
+        Function<List<Integer>, List<Integer>> blocked = items -> {
+            try {
+                release.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return items;
+        };
+
+        try (WriteBehindQueue<Integer, Integer> queue =
+            new WriteBehindQueue<>("test", 2, 1, Duration.ZERO, Duration.ofMillis(20), blocked, listener)) {
+            CompletableFuture<Integer> writing = queue.submit(0);
+            // 쓰기 스레드가 첫 요청을 가져가서 막힐 때까지 기다린다.
+            while (queue.size() > 0) {
+                Thread.sleep(10);
+            }
+            queue.submit(1);
+            queue.submit(2);
+
+            assertThatThrownBy(() -> queue.submit(3)).isInstanceOf(TransientDataAccessResourceException.class);
+            assertThat(rejected).hasValue(1);
+
+            release.countDown();
+            assertThat(writing.get(2, TimeUnit.SECONDS)).isZero();
+        }
+    }
+
+    @Test
+    void failedBatchIsRetriedOneByOne() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Function<List<Integer>, List<Integer>> writer = items -> {
+            calls.incrementAndGet();
+            if (items.contains(2)) {
+                throw new IllegalStateException("bad item");
+            }
+            return items;
+        };
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        try (WriteBehindQueue<Integer, Integer> queue =
+            new WriteBehindQueue<>("test", 100, 3, Duration.ofMillis(200), Duration.ZERO, writer, NO_METRICS)) {
+            for (int i = 1; i <= 3; i++) {
+                futures.add(queue.submit(i));
+            }
+
+            assertThat(futures.get(0).get(2, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThatThrownBy(() -> futures.get(1).get(2, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(futures.get(2).get(2, TimeUnit.SECONDS)).isEqualTo(3);
+        }
+        assertThat(calls).hasValue(4);
+    }
+}
@@ -0,0 +1,301 @@
+package study.querydsl.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.version.DataVersions;
+
+@SpringBootTest(properties = {
+    "querydsl.shard.enabled=true",
+    "querydsl.shard.urls=jdbc:h2:mem:shard0-${random.uuid};DB_CLOSE_DELAY=-1,"
+        + "jdbc:h2:mem:shard1-${random.uuid};DB_CLOSE_DELAY=-1,"
+        + "jdbc:h2:mem:shard2-${random.uuid};DB_CLOSE_DELAY=-1"
+})
+@TestInstance(Lifecycle.PER_CLASS)
+class ShardedMemberRepositoryTest {
+
+    @Autowired
+    ShardedMemberRepository shardedMemberRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    DataVersions dataVersions;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * 샤드를 나누지 않았을 때의 결과 (기대값)
+     */
+    List<MemberTeamDto> all = new ArrayList<>();
+
+    @BeforeAll
+    void setUp() {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            teams.add(shardedMemberRepository.save(new Team("team" + i)));
+        }
+        for (int i = 0; i < 40; i++) {
+            Team team = i % 8 == 7 ? null : teams.get(i % teams.size());
+            Member member = shardedMemberRepository.save(new Member("member" + (i % 13), i % 9, team));
+            all.add(new MemberTeamDto(member.getId(), member.getUsername(), member.getAge(),
+                team == null ? null : team.getId(), team == null ? null : team.getName()));
+        }
+    }
+
+    @Test
+    void teamsAndMembersAreColocatedByTeamId() {
+        for (MemberTeamDto dto : all) {
+            long shardIndex = dto.getTeamId() == null ? 0 : dto.getTeamId() % 3;
+            assertThat(dto.getMemberId() % 3).isEqualTo(shardIndex);
+        }
+    }
+
+    @Test
+    void teamNameIsRoutedToSingleShard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+
+        assertThat(shardedMemberRepository.route(condition)).hasSize(1);
+        assertThat(shardedMemberRepository.search(condition))
+            .containsExactlyElementsOf(expected(dto -> "team3".equals(dto.getTeamName()), byMemberId()));
+
+        condition.setTeamName("unknown");
+        assertThat(shardedMemberRepository.route(condition)).hasSize(3);
+        assertThat(shardedMemberRepository.search(condition)).isEmpty();
+    }
+
+    /**
+     * 다른 인스턴스가 만든 팀처럼 디렉터리에 없는 팀도 모든 샤드를 조회해서 찾는다.
+     */
+    @Test
+    void teamNameMissingFromDirectoryScattersToAllShards() {
+        Team team = new Team("unregistered");
+        Member member = new Member("unregisteredMember", 30, team);
+        Shard shard = shardedMemberRepository.shardOf(2L);
+        shard.inTransaction(em -> {
+            em.persist(team);
+            em.persist(member);
+        });
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("unregistered");
+
+            assertThat(shardedMemberRepository.search(condition))
+                .extracting(MemberTeamDto::getUsername)
+                .containsExactly("unregisteredMember");
+        } finally {
+            shard.inTransaction(em -> {
+                em.remove(em.find(Member.class, member.getId()));
+                em.remove(em.find(Team.class, team.getId()));
+            });
+        }
+    }
+
+    @Test
+    void memberRepositoryWritesGoToTeamShard() {
+        Team team = shardedMemberRepository.save(new Team("writeTeam"));
+        Member member = new Member("shardWrite", 30, team);
+
+        memberRepository.save(member);
+        try {
+            assertThat(member.getId() % 3).isEqualTo(team.getId() % 3);
+            assertThat(shardedMemberRepository.search(username("shardWrite")))
+                .extracting(MemberTeamDto::getMemberId)
+                .containsExactly(member.getId());
+        } finally {
+            memberRepository.delete(member);
+        }
+        assertThat(shardedMemberRepository.search(username("shardWrite"))).isEmpty();
+    }
+
+    /**
+     * 샤드 쓰기는 스프링 트랜잭션에 묶인다. 롤백하면 샤드에도 변경 이벤트(기본 데이터소스)에도 남지 않는다.
+     */
+    @Test
+    void shardWritesJoinSpringTransaction() {
+        Team team = shardedMemberRepository.save(new Team("txTeam"));
+        Member rolledBack = new Member("shardRollback", 30, team);
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(rolledBack);
+            // 같은 트랜잭션 안에서는 샤드에 쓴 회원이 보인다.
+            assertThat(memberRepository.findById(rolledBack.getId())).isPresent();
+            status.setRollbackOnly();
+        });
+        assertThat(memberRepository.findById(rolledBack.getId())).isEmpty();
+        assertThat(memberChangeEvents(rolledBack.getId())).isZero();
+
+        Member committed = new Member("shardCommit", 30, team);
+        memberRepository.save(committed);
+        try {
+            assertThat(memberRepository.findById(committed.getId())).isPresent();
+            assertThat(memberChangeEvents(committed.getId())).isEqualTo(1);
+        } finally {
+            memberRepository.delete(committed);
+        }
+    }
+
+    @Test
+    void memberRepositoryReadsAreRoutedToShards() {
+        MemberTeamDto first = all.get(0);
+        Member found = memberRepository.findById(first.getMemberId()).orElseThrow();
+        assertThat(found.getUsername()).isEqualTo(first.getUsername());
+        assertThat(found.getTeam().getName()).isEqualTo(first.getTeamName());
+
+        assertThat(memberRepository.findByUsername("member3")).extracting(Member::getId)
+            .containsExactlyElementsOf(memberIds(expected(dto -> "member3".equals(dto.getUsername()), byMemberId())));
+
+        Page<Member> page = memberRepository.findByTeam(found.getTeam(), PageRequest.of(1, 3));
+        List<MemberTeamDto> teamMembers = expected(dto -> first.getTeamId().equals(dto.getTeamId()), byMemberId());
+        assertThat(page.getContent()).extracting(Member::getId)
+            .containsExactlyElementsOf(memberIds(teamMembers.subList(3, 6)));
+        assertThat(page.getTotalElements()).isEqualTo(teamMembers.size());
+
+        // 기본 데이터소스를 읽게 되는 메서드는 막는다.
+        assertThatThrownBy(() -> memberRepository.findAll()).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> memberRepository.count()).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    /**
+     * 샤드의 벌크 연산도 기본 데이터소스처럼 데이터 버전을 올린다. (BulkWriteStatementInspector)
+     */
+    @Test
+    void shardBulkWritesBumpDataVersions() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team1");
+        String before = dataVersions.etag(condition);
+
+        shardedMemberRepository.shardOf(0L).inTransaction(em -> em
+            .createQuery("update Member m set m.age = m.age where m.id = -1")
+            .executeUpdate());
+
+        assertThat(dataVersions.etag(condition)).isNotEqualTo(before);
+    }
+
+    @Test
+    void searchScattersToAllShards() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(3);
+        condition.setAgeLoe(6);
+
+        assertThat(shardedMemberRepository.route(condition)).hasSize(3);
+        assertThat(shardedMemberRepository.search(condition))
+            .containsExactlyElementsOf(expected(dto -> dto.getAge() >= 3 && dto.getAge() <= 6, byMemberId()));
+    }
+
+    @Test
+    void pagesAreMergedInGlobalOrder() {
+        Sort sort = Sort.by(Sort.Order.desc("age"), Sort.Order.asc("username"));
+        Comparator<MemberTeamDto> comparator = Comparator.comparing(MemberTeamDto::getAge).reversed()
+            .thenComparing(MemberTeamDto::getUsername)
+            .thenComparing(byMemberId());
+
+        assertPages(new MemberSearchCondition(), sort, comparator, 7);
+    }
+
+    @Test
+    void nullTeamNamesAreSortedLast() {
+        Comparator<MemberTeamDto> comparator = Comparator.comparing(MemberTeamDto::getTeamName,
+            Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparing(byMemberId());
+
+        assertPages(new MemberSearchCondition(), Sort.by("teamName"), comparator, 6);
+    }
+
+    @Test
+    void memberRepositoryDelegatesToShards() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(5);
+        PageRequest pageRequest = PageRequest.of(1, 4, Sort.by("username"));
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest);
+
+        assertThat(result).containsExactlyElementsOf(
+            shardedMemberRepository.searchPageComplex(condition, pageRequest).getContent());
+        assertThat(result.getTotalElements()).isEqualTo(expected(dto -> dto.getAge() >= 5, byMemberId()).size());
+    }
+
+    @Test
+    void existsStopsAtFirstShard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+        condition.setAgeGoe(0);
+        assertThat(memberRepository.existsByCondition(condition)).isTrue();
+
+        condition.setAgeGoe(9);
+        assertThat(memberRepository.existsByCondition(condition)).isFalse();
+
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUsername("member12");
+        assertThat(shardedMemberRepository.existsByCondition(byUsername)).isTrue();
+    }
+
+    private void assertPages(MemberSearchCondition condition, Sort sort, Comparator<MemberTeamDto> comparator,
+        int size) {
+        List<MemberTeamDto> expected = expected(dto -> true, comparator);
+        int pages = (expected.size() + size - 1) / size;
+        for (int page = 0; page <= pages; page++) {
+            Page<MemberTeamDto> result = shardedMemberRepository.searchPageComplex(condition,
+                PageRequest.of(page, size, sort));
+
+            int from = Math.min(page * size, expected.size());
+            int to = Math.min(from + size, expected.size());
+            assertThat(result.getContent()).containsExactlyElementsOf(expected.subList(from, to));
+            assertThat(result.getTotalElements()).isEqualTo(expected.size());
+        }
+    }
+
+    private List<MemberTeamDto> expected(Predicate<MemberTeamDto> filter,
+        Comparator<MemberTeamDto> comparator) {
+        return all.stream()
+            .filter(filter)
+            .sorted(comparator)
+            .collect(Collectors.toList());
+    }
+
+    private long memberChangeEvents(Long memberId) {
+        return jdbcTemplate.queryForObject(
+            "select count(*) from change_event where aggregate_type = 'Member' and aggregate_id = ?", Long.class,
+            memberId);
+    }
+
+    private static List<Long> memberIds(List<MemberTeamDto> dtos) {
+        return dtos.stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList());
+    }
+
+    private static MemberSearchCondition username(String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return condition;
+    }
+
+    private static Comparator<MemberTeamDto> byMemberId() {
+        return Comparator.comparing(MemberTeamDto::getMemberId);
+    }
+}
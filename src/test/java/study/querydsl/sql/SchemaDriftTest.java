@@ -0,0 +1,76 @@
+package study.querydsl.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * querydsl-sql 메타데이터를 만드는 schema.sql 이 실제 스키마(JPA ddl-auto, MemberKeyTable 임시 테이블)와 같은지 본다.
+ * 엔티티 매핑만 바꾸고 schema.sql 을 그대로 두면 SMember 등이 실제 컬럼과 달라지므로 실패한다.
+ * 컬럼(타입, 길이, null 허용, 계산식), 기본 키, 이름 붙인 인덱스, 외래 키를 비교한다.
+ */
+@SpringBootTest
+class SchemaDriftTest {
+
+    private static final Path SCHEMA = Paths.get(
+        System.getProperty("querydsl-sql.schema", "src/main/querydsl-sql/schema.sql"));
+    private static final String TABLES = "('MEMBER', 'TEAM', 'MEMBER_ID_KEY', 'MEMBER_USERNAME_KEY')";
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void schemaSqlMatchesLiveSchema() throws SQLException {
+        Map<String, List<Map<String, Object>>> live;
+        try (Connection connection = dataSource.getConnection()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            // 임시 테이블은 세션마다 만들어지므로 이 커넥션에 만든다.
+            jdbcTemplate.execute(MemberKeyTable.ID_KEY_DDL);
+            jdbcTemplate.execute(MemberKeyTable.USERNAME_KEY_DDL);
+            live = describe(jdbcTemplate);
+        }
+
+        Map<String, List<Map<String, Object>>> declared;
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:schema-drift")) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            jdbcTemplate.execute("runscript from '" + SCHEMA.toAbsolutePath() + "'");
+            declared = describe(jdbcTemplate);
+        }
+
+        assertThat(declared.get("columns")).isNotEmpty();
+        assertThat(declared).isEqualTo(live);
+    }
+
+    private static Map<String, List<Map<String, Object>>> describe(JdbcTemplate jdbcTemplate) {
+        return Map.of(
+            "columns", jdbcTemplate.queryForList("select table_name, column_name, type_name, character_maximum_length,"
+                + " is_nullable, is_computed, case when is_computed then column_default end as expression"
+                + " from information_schema.columns"
+                + " where table_schema = 'PUBLIC' and table_name in " + TABLES
+                + " order by table_name, column_name"),
+            "primaryKeys", jdbcTemplate.queryForList("select table_name, column_name"
+                + " from information_schema.indexes"
+                + " where table_schema = 'PUBLIC' and table_name in " + TABLES + " and primary_key"
+                + " order by table_name, column_name"),
+            "indexes", jdbcTemplate.queryForList("select table_name, index_name, column_name"
+                + " from information_schema.indexes"
+                + " where table_schema = 'PUBLIC' and table_name in " + TABLES + " and index_name like 'IDX\\_%'"
+                + " order by table_name, index_name, ordinal_position"),
+            "foreignKeys", jdbcTemplate.queryForList("select fktable_name, fkcolumn_name, pktable_name, pkcolumn_name"
+                + " from information_schema.cross_references"
+                + " where fktable_schema = 'PUBLIC' and fktable_name in " + TABLES
+                + " order by fktable_name, fkcolumn_name"));
+    }
+}
@@ -0,0 +1,118 @@
+package study.querydsl.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.querydsl.sql.SQLQueryFactory;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.BenchmarkDataset;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * MemberRepositoryImpl(JPQL) 과 SqlMemberRepository(querydsl-sql) 검색 비교
+ * 둘 다 읽기 전용 트랜잭션 안에서 잰다.
+ * ./gradlew benchmark --tests '*SqlMemberRepositoryBenchmarkTest'
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "logging.level.org.hibernate.SQL=info",
+    "decorator.datasource.p6spy.enable-logging=false"
+})
+class SqlMemberRepositoryBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlMemberRepositoryBenchmarkTest.class);
+
+    private static final int MEMBERS = Integer.getInteger("benchmark.members", 200_000);
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    SQLQueryFactory sqlQueryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManager em;
+
+    SqlMemberRepository sql;
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        sql = new SqlMemberRepository(sqlQueryFactory, em);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        BenchmarkDataset.load(jdbcTemplate, MEMBERS);
+    }
+
+    @Test
+    void jpqlVsSql() {
+        log.info("[querydsl-sql] members={}", MEMBERS);
+        log.info(String.format("%-24s %12s %12s %8s", "condition", "jpql(ms)", "sql(ms)", "speedup"));
+
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("team7");
+        byTeam.setAgeGoe(20);
+        byTeam.setAgeLoe(40);
+        compare("teamName+age page", () -> memberRepository.searchPageComplex(byTeam, PageRequest.of(0, 20)),
+            () -> sql.searchPageComplex(byTeam, PageRequest.of(0, 20)));
+
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUsername("member12345");
+        compare("username", () -> memberRepository.search(byUsername), () -> sql.search(byUsername));
+
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(90);
+        compare("age page", () -> memberRepository.searchPageComplex(byAge, PageRequest.of(0, 20)),
+            () -> sql.searchPageComplex(byAge, PageRequest.of(0, 20)));
+
+        compare("teamName list", () -> memberRepository.search(byTeam), () -> sql.search(byTeam));
+
+        MemberSearchCondition byAgeList = new MemberSearchCondition();
+        byAgeList.setAgeGoe(95);
+        compare("age list (~10K rows)", () -> memberRepository.search(byAgeList), () -> sql.search(byAgeList));
+
+        double topMillis = measure(() -> sql.findTopByTeam(new MemberSearchCondition(), 3));
+        log.info(String.format("%-24s %12s %12.3f", "top 3 per team", "-", topMillis));
+    }
+
+    private void compare(String name, Supplier<Object> jpql, Supplier<Object> sql) {
+        assertThat(count(inTransaction(sql))).isEqualTo(count(inTransaction(jpql)));
+        double jpqlMillis = measure(jpql);
+        double sqlMillis = measure(sql);
+        log.info(String.format("%-24s %12.3f %12.3f %7.1fx", name, jpqlMillis, sqlMillis, jpqlMillis / sqlMillis));
+    }
+
+    private Object inTransaction(Supplier<Object> query) {
+        return transactionTemplate.execute(status -> query.get());
+    }
+
+    private static long count(Object result) {
+        return result instanceof Page ? ((Page<?>) result).getTotalElements() : ((List<?>) result).size();
+    }
+
+    private double measure(Supplier<Object> query) {
+        return BenchmarkDataset.measure(WARMUP, ITERATIONS, () -> inTransaction(query));
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+@SpringBootTest(properties = "querydsl.sql.search-enabled=true")
+@Transactional
+class SqlMemberRepositoryTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    SqlMemberRepository sqlMemberRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        Team teamA = new Team("sqlA");
+        Team teamB = new Team("sqlB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("sql" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+        em.persist(new Member("sqlNoTeam", 5));
+    }
+
+    /** flush 하지 않은 변경도 같은 트랜잭션(커넥션)에서 보인다. */
+    @Test
+    void searchSharesJpaTransaction() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(0);
+
+        assertThat(memberRepository.search(condition))
+            .containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition))
+            .extracting(MemberTeamDto::getUsername).contains("sql0", "sqlNoTeam");
+
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("sqlA");
+        byTeam.setAgeGoe(20);
+        assertThat(memberRepository.searchPageComplex(byTeam, PageRequest.of(0, 2)).getTotalElements()).isEqualTo(4);
+        assertThat(memberRepository.searchPageSimple(byTeam, PageRequest.of(1, 2)).getContent())
+            .extracting(MemberTeamDto::getTeamName).containsOnly("sqlA");
+        assertThat(memberRepository.existsByCondition(byTeam)).isTrue();
+
+        byTeam.setAgeGoe(100);
+        assertThat(memberRepository.existsByCondition(byTeam)).isFalse();
+    }
+
+    @Test
+    void topByTeam() {
+        List<MemberTeamDto> top = sqlMemberRepository.findTopByTeam(new MemberSearchCondition(), 2);
+
+        assertThat(top).extracting(MemberTeamDto::getUsername)
+            .containsExactly("sql8", "sql6", "sql9", "sql7");
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * 컨트롤러처럼 트랜잭션 없이 SQL 검색을 부른다. 데이터를 커밋한다. (별도 컨텍스트 = 별도 메모리 DB)
+ */
+@SpringBootTest(properties = "querydsl.sql.search-enabled=true")
+@AutoConfigureMockMvc
+class SqlMemberSearchTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (em.createQuery("select count(m) from Member m where m.username like 'sqlSearch%'", Long.class)
+                .getSingleResult() == 0) {
+                Team team = new Team("sqlSearchTeam");
+                em.persist(team);
+                em.persist(new Member("sqlSearch1", 10, team));
+                em.persist(new Member("sqlSearch2", 20, team));
+            }
+        });
+    }
+
+    @Test
+    void searchWithoutTransaction() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sqlSearchTeam");
+
+        assertThat(memberRepository.search(condition)).hasSize(2);
+        assertThat(memberRepository.existsByCondition(condition)).isTrue();
+    }
+
+    @Test
+    void pagedEndpoints() throws Exception {
+        for (String path : new String[]{"/v2/members", "/v3/members"}) {
+            mockMvc.perform(get(path).param("teamName", "sqlSearchTeam"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].username").value(containsInAnyOrder("sqlSearch1", "sqlSearch2")))
+                .andExpect(jsonPath("$.totalElements").value(2));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package study.querydsl.warmup;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import study.querydsl.BenchmarkDataset;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * 회원이 많은 DB 에서 워밍업 없이/있이 기동한 뒤 검색 API 첫 요청 시간
+ * JIT 상태는 JVM 마다 다르므로 한 번에 한 모드만 잰다. (benchmark.warmup=false|true 로 두 번 실행)
+ * ./gradlew benchmark --tests '*SearchWarmupBenchmarkTest' -Dbenchmark.warmup=true
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "logging.level.org.hibernate.SQL=info",
+    "decorator.datasource.p6spy.enable-logging=false"
+})
+@AutoConfigureMockMvc
+class SearchWarmupBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchWarmupBenchmarkTest.class);
+
+    private static final int MEMBERS = Integer.getInteger("benchmark.members", 100_000);
+    private static final boolean WARMUP = Boolean.getBoolean("benchmark.warmup");
+    private static final String[] REQUESTS = {
+        "/v1/members?teamName=team7",
+        "/v1/members?ageGoe=20&ageLoe=21&teamName=team8",
+        "/v2/members?teamName=team9&page=0&size=20",
+        "/v3/members?ageGoe=20&ageLoe=40&page=1&size=20",
+        "/v3/members?teamName=team10&fields=username,teamName&page=0&size=20"
+    };
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    void firstRequestLatency() throws Exception {
+        BenchmarkDataset.load(jdbcTemplate, MEMBERS);
+        // 서블릿/Jackson 초기화는 워밍업과 상관없으므로 측정에서 뺀다.
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+
+        String report = "-";
+        if (WARMUP) {
+            report = new SearchWarmup(memberJpaRepository, memberRepository, Duration.ofSeconds(60), 20, 5000, 10, 0.1)
+                .run().toString();
+        }
+
+        log.info("[warmup] members={} warmup={} ({})", MEMBERS, WARMUP, report);
+        log.info(String.format("%-70s %10s %10s", "request", "first(ms)", "second(ms)"));
+        for (String request : REQUESTS) {
+            log.info(String.format("%-70s %10.2f %10.2f", request, time(request), time(request)));
+        }
+    }
+
+    private double time(String request) throws Exception {
+        long start = System.nanoTime();
+        mockMvc.perform(get(request)).andExpect(status().isOk());
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
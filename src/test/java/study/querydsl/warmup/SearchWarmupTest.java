@@ -0,0 +1,111 @@
+package study.querydsl.warmup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.Duration;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+@SpringBootTest(properties = {
+    "querydsl.warmup.enabled=true",
+    "querydsl.warmup.max-duration=20s",
+    "querydsl.warmup.max-rounds=300",
+    "management.endpoint.health.probes.enabled=true",
+    "management.endpoint.health.group.readiness.include=readinessState,searchWarmup",
+    "management.endpoint.health.group.readiness.show-details=always"
+})
+@AutoConfigureMockMvc
+class SearchWarmupTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    SearchWarmup searchWarmup;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    void notReadyBeforeWarmup() {
+        SearchWarmup notStarted = new SearchWarmup(memberJpaRepository, memberRepository,
+            Duration.ofSeconds(1), 20, 100, 10, 0.1);
+
+        assertThat(notStarted.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+    }
+
+    @Test
+    void failedWarmupStaysDown() throws InterruptedException {
+        MemberJpaRepository failing = mock(MemberJpaRepository.class);
+        when(failing.search(any(MemberSearchCondition.class))).thenThrow(new IllegalStateException("no connection"));
+        SearchWarmup warmup = new SearchWarmup(failing, memberRepository, Duration.ofSeconds(1), 20, 100, 10, 0.1);
+
+        warmup.start();
+        for (int i = 0; i < 100 && warmup.health().getStatus().equals(Status.OUT_OF_SERVICE); i++) {
+            Thread.sleep(50);
+        }
+
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.DOWN);
+        assertThat(warmup.health().getDetails()).containsEntry("error", "java.lang.IllegalStateException: no connection");
+        assertThat(warmup.getReport()).isNull();
+    }
+
+    @Test
+    @Transactional
+    void unboundedShapesMatchNoRows() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 30, teamA));
+        em.persist(new Member("member2", 40, teamB));
+
+        List<MemberSearchCondition> unmatched = SearchWarmup.unmatched(SearchWarmup.conditions());
+
+        assertThat(unmatched).hasSize(SearchWarmup.conditions().size() - 1);
+        for (MemberSearchCondition condition : unmatched) {
+            assertThat(memberJpaRepository.search(condition)).as("%s", condition).isEmpty();
+        }
+    }
+
+    @Test
+    void readyAfterWarmup() throws Exception {
+        MvcResult result = null;
+        for (int i = 0; i < 300; i++) {
+            result = mockMvc.perform(get("/actuator/health/readiness")).andReturn();
+            if (result.getResponse().getStatus() == 200) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        assertThat(result.getResponse().getContentAsString()).contains("\"searchWarmup\"", "firstRoundMs");
+        SearchWarmup.Report report = searchWarmup.getReport();
+        assertThat(report.getRounds()).isGreaterThanOrEqualTo(20);
+        assertThat(report.getFirstRoundMillis()).isGreaterThan(report.getSettledRoundMillis());
+    }
+}
@@ -0,0 +1,11 @@
+-- QuerydslBasicTest 기본 데이터 스냅샷 (컨텍스트가 뜰 때 한 번만 적재한다)
+insert into team (team_id, name) values (1, 'teamA');
+insert into team (team_id, name) values (2, 'teamB');
+
+insert into member (member_id, username, age, team_id) values (3, 'member1', 10, 1);
+insert into member (member_id, username, age, team_id) values (4, 'member2', 20, 1);
+insert into member (member_id, username, age, team_id) values (5, 'member3', 30, 2);
+insert into member (member_id, username, age, team_id) values (6, 'member4', 40, 2);
+
+-- 테스트에서 persist하는 엔티티의 id가 스냅샷과 겹치지 않도록 한다.
+alter sequence hibernate_sequence restart with 1000;